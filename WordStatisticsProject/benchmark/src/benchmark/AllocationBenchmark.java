@@ -0,0 +1,122 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import core.FileProcessor;
+import metrics.ProcessingMetrics;
+import model.FileStats;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bytes allocated per file in steady state, for every read mode
+ * One operation is one file, read and analyzed on the benchmark thread,
+ * which reuses its processing context (buffers, decoder, tokenizer, timer).
+ * What is left per file is the result (FileStats with its word-length
+ * histogram and words) and the file channel. Read gc.alloc.rate.norm
+ * (bytes per operation) of the GC profiler:
+ *     ant benchmark -Dbenchmark.args="AllocationBenchmark -prof gc"
+ * Every iteration also measures its own allocation per file with the thread
+ * allocation counter and fails the run when it exceeds ALLOCATION_BUDGET.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllocationBenchmark {
+    
+    // Most bytes a file may allocate in steady state (the result takes about 1.2 KB)
+    static final long ALLOCATION_BUDGET = 4 * 1024;
+    
+    private static final int FILE_COUNT = 64;
+    
+    // File size in bytes: 4 KB, 64 KB
+    @Param({"4096", "65536"})
+    public int fileSize;
+    
+    @Param({"FULL_TEXT", "STREAMING", "MAPPED"})
+    public FileProcessor.ReadMode readMode;
+    
+    // With metrics every file also uses the worker's timer
+    @Param({"false", "true"})
+    public boolean metrics;
+    
+    private Path root;
+    private Path[] files;
+    private FileProcessor processor;
+    private int next;
+    
+    private com.sun.management.ThreadMXBean threads;
+    private long filesProcessed;
+    private long filesAtStart;
+    private long allocatedAtStart;
+    
+    @Setup
+    public void setUp() throws IOException {
+        root = BenchmarkData.writeTree("wordstats-alloc", FILE_COUNT, fileSize);
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile).sorted().toArray(Path[]::new);
+        }
+        BenchmarkData.warmPageCache(root);
+        
+        processor = new FileProcessor();
+        processor.setReadMode(readMode);
+        if (metrics) {
+            processor.setMetrics(new ProcessingMetrics());
+        }
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+    
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.delete(root);
+    }
+    
+    /**
+     * Runs on the benchmark thread, like the iteration's operations
+     */
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        filesAtStart = filesProcessed;
+        allocatedAtStart = threads.getCurrentThreadAllocatedBytes();
+    }
+    
+    @TearDown(Level.Iteration)
+    public void checkAllocation() {
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+        long fileCount = filesProcessed - filesAtStart;
+        if (fileCount > 0 && allocated / fileCount > ALLOCATION_BUDGET) {
+            throw new IllegalStateException(readMode + ", " + fileSize + " bytes: "
+                + allocated / fileCount + " bytes allocated per file, budget " + ALLOCATION_BUDGET);
+        }
+    }
+    
+    @Benchmark
+    public FileStats processFile() {
+        FileStats stats = processor.processFile(files[next]);
+        next = (next + 1) % files.length;
+        filesProcessed++;
+        return stats;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+/**
+ * Synthetic input for the benchmarks
+ * Text is English-like: words of 1 to 12 letters (short ones most common),
+ * mixed case, with "is", "are" and "you" frequent enough to exercise the
+ * counters, separated by spaces, punctuation and line breaks. A fixed seed
+ * gives the same data on every run, so results are comparable.
+ */
+final class BenchmarkData {
+    
+    static final long SEED = 42;
+    
+    private static final String[] COMMON_WORDS = {
+        "is", "are", "you", "the", "of", "and", "to", "in", "it", "that"
+    };
+    private static final String SEPARATORS = "       ,.;:!?\n-'";
+    
+    private BenchmarkData() {
+    }
+    
+    /**
+     * ASCII text of exactly the given number of characters
+     */
+    static String text(int chars, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(chars + 16);
+        while (text.length() < chars) {
+            if (random.nextInt(4) == 0) {
+                text.append(COMMON_WORDS[random.nextInt(COMMON_WORDS.length)]);
+            } else {
+                // Length 1-12, skewed towards short words
+                int length = 1 + (int) Math.min(11, Math.abs(random.nextGaussian() * 4));
+                for (int i = 0; i < length; i++) {
+                    char c = (char) ('a' + random.nextInt(26));
+                    text.append(random.nextInt(10) == 0 ? Character.toUpperCase(c) : c);
+                }
+            }
+            text.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+        }
+        text.setLength(chars);
+        return text.toString();
+    }
+    
+    /**
+     * Writes a file of the given size
+     */
+    static void writeFile(Path file, int bytes, long seed) throws IOException {
+        Files.write(file, text(bytes, seed).getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    /**
+     * Creates a directory tree of fileCount files of bytesPerFile each,
+     * at most 500 files per subdirectory
+     */
+    static Path writeTree(String prefix, int fileCount, int bytesPerFile) throws IOException {
+        Path root = Files.createTempDirectory(prefix);
+        // Files of a tree share a few distinct texts: generating is slower than the benchmark
+        String[] texts = new String[Math.min(fileCount, 16)];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = text(bytesPerFile, SEED + i);
+        }
+        for (int i = 0; i < fileCount; i++) {
+            Path dir = root.resolve("d" + (i / 500));
+            Files.createDirectories(dir);
+            Files.write(dir.resolve("f" + i + ".txt"), texts[i % texts.length].getBytes(StandardCharsets.US_ASCII));
+        }
+        return root;
+    }
+    
+    /**
+     * Reads every file once so the measured runs find them in the page cache
+     */
+    static void warmPageCache(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.readAllBytes(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    /**
+     * Deletes a tree created by writeTree
+     */
+    static void delete(Path root) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
\ No newline at end of file
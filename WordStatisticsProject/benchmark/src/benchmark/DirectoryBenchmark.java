@@ -0,0 +1,124 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import core.StatisticsManager;
+import gui.ProgressListener;
+import model.FileStats;
+import model.GlobalStats;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end directory runs through StatisticsManager
+ * Both tree shapes hold the same 20 MB of text: many small files stress
+ * discovery, scheduling and per-file overhead; a few huge files stress the
+ * tokenizer and the read path. One operation is one complete run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DirectoryBenchmark {
+    
+    /**
+     * Shape of the generated tree
+     */
+    public enum TreeShape {
+        MANY_SMALL(5000, 4 * 1024),
+        FEW_HUGE(4, 5 * 1024 * 1024);
+        
+        final int fileCount;
+        final int bytesPerFile;
+        
+        TreeShape(int fileCount, int bytesPerFile) {
+            this.fileCount = fileCount;
+            this.bytesPerFile = bytesPerFile;
+        }
+    }
+    
+    @Param({"MANY_SMALL", "FEW_HUGE"})
+    public TreeShape shape;
+    
+    private Path root;
+    private StatisticsManager manager;
+    private RunListener listener;
+    
+    /**
+     * Waits for the end of a run
+     */
+    private static final class RunListener implements ProgressListener {
+        volatile CountDownLatch done;
+        volatile String error;
+        
+        @Override
+        public void onFileProcessed(FileStats fileStats, int filesProcessedSoFar, int totalFiles) {
+        }
+        
+        @Override
+        public void onProcessingComplete(GlobalStats globalStats) {
+            done.countDown();
+        }
+        
+        @Override
+        public void onProcessingStarted(int totalFiles) {
+        }
+        
+        @Override
+        public void onError(String fileName, String errorMessage) {
+            error = fileName + " - " + errorMessage;
+            done.countDown();
+        }
+        
+        @Override
+        public void onProgressUpdate(int progress) {
+        }
+    }
+    
+    @Setup
+    public void setUp() throws IOException {
+        root = BenchmarkData.writeTree("wordstats-bench", shape.fileCount, shape.bytesPerFile);
+        BenchmarkData.warmPageCache(root);
+        
+        listener = new RunListener();
+        manager = new StatisticsManager();
+        manager.setProgressListener(listener);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        BenchmarkData.delete(root);
+    }
+    
+    @Benchmark
+    public long processDirectory(ThroughputCounters counters) throws InterruptedException {
+        listener.done = new CountDownLatch(1);
+        manager.processDirectory(root.toString(), true);
+        listener.done.await();
+        if (listener.error != null) {
+            throw new IllegalStateException("Run failed: " + listener.error);
+        }
+        
+        GlobalStats stats = manager.getGlobalStats();
+        counters.add((long) shape.fileCount * shape.bytesPerFile, stats.getTotalWordCount());
+        return stats.getTotalWordCount();
+    }
+}
\ No newline at end of file
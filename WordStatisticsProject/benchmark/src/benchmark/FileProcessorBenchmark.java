@@ -0,0 +1,70 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import core.FileProcessor;
+import model.FileStats;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and analyzing one file that is already in the page cache
+ * Measures the read path of each mode (decode + tokenize for full text and
+ * streaming, byte tokenizing for mapped) without disk latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileProcessorBenchmark {
+    
+    // File size in bytes: 64 KB, 16 MB
+    @Param({"65536", "16777216"})
+    public int fileSize;
+    
+    @Param({"FULL_TEXT", "STREAMING", "MAPPED"})
+    public FileProcessor.ReadMode readMode;
+    
+    private Path file;
+    private FileProcessor processor;
+    
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("wordstats-bench", ".txt");
+        BenchmarkData.writeFile(file, fileSize, BenchmarkData.SEED);
+        Files.readAllBytes(file); // into the page cache
+        
+        processor = new FileProcessor();
+        processor.setReadMode(readMode);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public FileStats processFile(ThroughputCounters counters) {
+        FileStats stats = processor.processFile(file);
+        counters.add(fileSize, stats.getWordCount());
+        return stats;
+    }
+}
\ No newline at end of file
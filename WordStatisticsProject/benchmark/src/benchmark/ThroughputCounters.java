@@ -0,0 +1,41 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary results of a throughput benchmark
+ * JMH divides these counters by the measured time, so next to ops/s every
+ * benchmark reports "megabytes" (MB/s of input) and "words" (words/s).
+ * Allocation rate comes from the GC profiler (-prof gc).
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+    
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+    
+    public double megabytes;
+    public long words;
+    
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        words = 0;
+    }
+    
+    /**
+     * Records one processed input
+     */
+    void add(long bytes, long wordCount) {
+        megabytes += bytes / BYTES_PER_MEGABYTE;
+        words += wordCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmark;
+
+import core.WordAnalyzer;
+import model.FileStats;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Tokenizer throughput on in-memory text of several sizes
+ * analyzeText is the old map-based API (boxes every counter and builds the
+ * full word list); analyzeInto is what FileProcessor uses. The difference
+ * shows up in the GC profiler's allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordAnalyzerBenchmark {
+    
+    // Characters of text: 1 KB, 64 KB, 4 MB
+    @Param({"1024", "65536", "4194304"})
+    public int textSize;
+    
+    private String text;
+    private long wordCount;
+    private WordAnalyzer analyzer;
+    
+    @Setup
+    public void setUp() {
+        text = BenchmarkData.text(textSize, BenchmarkData.SEED);
+        analyzer = new WordAnalyzer();
+        FileStats stats = new FileStats();
+        analyzer.analyzeInto(text, stats);
+        wordCount = stats.getWordCount();
+    }
+    
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public Map<String, Object> analyzeText(ThroughputCounters counters) {
+        Map<String, Object> results = analyzer.analyzeText(text);
+        counters.add(textSize, wordCount);
+        return results;
+    }
+    
+    @Benchmark
+    public FileStats analyzeInto(ThroughputCounters counters) {
+        FileStats stats = new FileStats();
+        analyzer.analyzeInto(text, stats);
+        counters.add(textSize, stats.getWordCount());
+        return stats;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,822 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package cli;
+
+import core.FileProcessor;
+import core.ProcessingRun;
+import core.StatisticsManager;
+import core.TaskScheduler;
+import core.TermMatcher;
+import gui.ProgressListener;
+import metrics.MetricsReporter;
+import metrics.ProcessingMetrics;
+import model.FileStats;
+import model.GlobalStats;
+import model.LengthHistogram;
+import model.WordFrequencyTable;
+import model.WordSketches;
+import threading.ExecutorStrategy;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+
+/**
+ * Headless batch mode: runs the same engine as the GUI from the command line
+ * Per-file results are written to stdout as they complete, one record per
+ * line (JSON lines or CSV), followed by a summary record. Log messages of the
+ * engine go to stderr so stdout stays machine-readable, and so do the
+ * optional periodic metrics dumps.
+ *
+ * No Swing or AWT class is loaded: the engine calls this listener directly
+ * from its worker threads, and the record output is synchronized.
+ */
+public class BatchRunner implements ProgressListener {
+    
+    // Exit codes
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    
+    /**
+     * Output record format
+     */
+    public enum OutputFormat {
+        JSONL, CSV
+    }
+    
+    // Longest time a finished record may sit in the output buffer
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private static final String CSV_HEADER =
+        "file,path,words,is,are,you,longest,shortest,error,mean_length,median_length,p95_length";
+    
+    // Options
+    private String directory;
+    private boolean recursive;
+    private int threads;
+    private int discoveryThreads;
+    private OutputFormat format = OutputFormat.JSONL;
+    private FileProcessor.ReadMode readMode = FileProcessor.ReadMode.FULL_TEXT;
+    private boolean pipelined;
+    private ExecutorStrategy strategy = ExecutorStrategy.FIXED_POOL;
+    private int topWords; // 0 = word frequencies not counted
+    private final List<String> terms = new ArrayList<>();
+    private List<String> termNames = List.of(); // normalized, set before the run
+    private int approxTopWords; // 0 = no sketches, unless a sketch file is given
+    private double topKError = WordSketches.DEFAULT_TOP_K_ERROR;
+    private double distinctError = WordSketches.DEFAULT_DISTINCT_ERROR;
+    private Path sketchFile; // sketches of earlier runs, merged and saved back
+    private Level logLevel = Level.INFO;
+    private long metricsIntervalMillis; // 0 = no periodic dumps
+    private MetricsReporter.Format metricsFormat = MetricsReporter.Format.TEXT;
+    private boolean jmx;
+    private TaskScheduler.Policy schedule = TaskScheduler.Policy.LPT;
+    private int batchFiles = TaskScheduler.DEFAULT_MAX_BATCH_FILES;
+    private long batchBytes = TaskScheduler.DEFAULT_MAX_BATCH_BYTES;
+    private long timeoutMillis; // 0 = no limit, for the run and per file
+    private long fileTimeoutMillis;
+    private long maxFileBytes;
+    
+    // Metrics of the run (makespan in the summary)
+    private ProcessingMetrics metrics;
+    
+    // Result output (the real stdout), guarded by this
+    private PrintStream out;
+    private long lastFlushTime;
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile int exitCode = EXIT_OK;
+    
+    /**
+     * Runs the batch mode and returns the process exit code
+     */
+    public static int run(String[] args) {
+        // Belt and braces: nothing below should need a display
+        System.setProperty("java.awt.headless", "true");
+        
+        BatchRunner runner = new BatchRunner();
+        String problem = runner.parseArguments(args);
+        if (problem != null) {
+            if (!problem.isEmpty()) {
+                System.err.println("Error: " + problem);
+            }
+            printUsage();
+            return problem.isEmpty() ? EXIT_OK : EXIT_USAGE;
+        }
+        return runner.execute();
+    }
+    
+    /**
+     * Parses the arguments
+     *
+     * @return null if valid, "" if only help was requested, or an error message
+     */
+    private String parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return "";
+                case "-r":
+                case "--recursive":
+                    recursive = true;
+                    break;
+                case "--pipelined":
+                    pipelined = true;
+                    break;
+                case "--virtual-threads":
+                    strategy = ExecutorStrategy.VIRTUAL_THREADS;
+                    break;
+                case "-t":
+                case "--threads":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        threads = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid thread count: " + args[i];
+                    }
+                    if (threads < 0) {
+                        return "Invalid thread count: " + args[i];
+                    }
+                    break;
+                case "--discovery-threads":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        discoveryThreads = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid thread count: " + args[i];
+                    }
+                    if (discoveryThreads < 0) {
+                        return "Invalid thread count: " + args[i];
+                    }
+                    break;
+                case "-f":
+                case "--format":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        format = OutputFormat.valueOf(args[i].toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        return "Unknown format: " + args[i] + " (expected jsonl or csv)";
+                    }
+                    break;
+                case "--top-words":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        topWords = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid word count: " + args[i];
+                    }
+                    if (topWords <= 0) {
+                        return "Invalid word count: " + args[i];
+                    }
+                    break;
+                case "--approx-top-words":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        approxTopWords = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid word count: " + args[i];
+                    }
+                    if (approxTopWords <= 0) {
+                        return "Invalid word count: " + args[i];
+                    }
+                    break;
+                case "--top-k-error":
+                case "--distinct-error":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    double error;
+                    try {
+                        error = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid error: " + args[i];
+                    }
+                    if (!(error > 0 && error < 1)) {
+                        return "Error must be between 0 and 1: " + args[i];
+                    }
+                    if (arg.equals("--top-k-error")) {
+                        topKError = error;
+                    } else {
+                        distinctError = error;
+                    }
+                    break;
+                case "--sketch-file":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    sketchFile = Paths.get(args[i]);
+                    break;
+                case "--terms":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    terms.addAll(TermMatcher.parseTerms(args[i]));
+                    break;
+                case "--terms-file":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        terms.addAll(TermMatcher.parseTerms(Files.readString(Paths.get(args[i]))));
+                    } catch (IOException e) {
+                        return "Cannot read terms file: " + args[i] + " - " + e.getMessage();
+                    }
+                    break;
+                case "--log-level":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        logLevel = Level.parse(args[i].toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        return "Unknown log level: " + args[i] + " (expected severe, warning, info, fine or off)";
+                    }
+                    break;
+                case "--metrics-interval":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    double seconds;
+                    try {
+                        seconds = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid interval: " + args[i];
+                    }
+                    if (!(seconds > 0)) {
+                        return "Invalid interval: " + args[i];
+                    }
+                    metricsIntervalMillis = Math.max(1, (long) (seconds * 1000));
+                    break;
+                case "--metrics-format":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        metricsFormat = MetricsReporter.Format.valueOf(args[i].toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        return "Unknown metrics format: " + args[i] + " (expected text or json)";
+                    }
+                    break;
+                case "--jmx":
+                    jmx = true;
+                    break;
+                case "--schedule":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        schedule = TaskScheduler.Policy.valueOf(args[i].toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        return "Unknown schedule: " + args[i] + " (expected lpt or fifo)";
+                    }
+                    break;
+                case "--batch-files":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        batchFiles = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid batch size: " + args[i];
+                    }
+                    if (batchFiles <= 0) {
+                        return "Invalid batch size: " + args[i];
+                    }
+                    break;
+                case "--batch-bytes":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        batchBytes = Long.parseLong(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid batch size: " + args[i];
+                    }
+                    if (batchBytes <= 0) {
+                        return "Invalid batch size: " + args[i];
+                    }
+                    break;
+                case "--timeout":
+                case "--file-timeout":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    double limit;
+                    try {
+                        limit = Double.parseDouble(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid time limit: " + args[i];
+                    }
+                    if (!(limit > 0)) {
+                        return "Invalid time limit: " + args[i];
+                    }
+                    if (arg.equals("--timeout")) {
+                        timeoutMillis = Math.max(1, (long) (limit * 1000));
+                    } else {
+                        fileTimeoutMillis = Math.max(1, (long) (limit * 1000));
+                    }
+                    break;
+                case "--max-file-size":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        maxFileBytes = Long.parseLong(args[i]);
+                    } catch (NumberFormatException e) {
+                        return "Invalid size: " + args[i];
+                    }
+                    if (maxFileBytes <= 0) {
+                        return "Invalid size: " + args[i];
+                    }
+                    break;
+                case "-m":
+                case "--read-mode":
+                    if (++i >= args.length) {
+                        return "Missing value for " + arg;
+                    }
+                    try {
+                        readMode = FileProcessor.ReadMode.valueOf(args[i].toUpperCase(Locale.ROOT).replace('-', '_'));
+                    } catch (IllegalArgumentException e) {
+                        return "Unknown read mode: " + args[i] + " (expected full_text, streaming or mapped)";
+                    }
+                    break;
+                default:
+                    if (arg.startsWith("-")) {
+                        return "Unknown option: " + arg;
+                    }
+                    if (directory != null) {
+                        return "Only one directory can be given";
+                    }
+                    directory = arg;
+            }
+        }
+        
+        if (directory == null) {
+            return "No directory given";
+        }
+        if (!Files.isDirectory(Paths.get(directory))) {
+            return "Not a directory: " + directory;
+        }
+        return null;
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: WordStatisticsProject <directory> [options]");
+        System.err.println("  -r, --recursive          Include subdirectories");
+        System.err.println("  -t, --threads <n>        Worker threads (default: one per processor)");
+        System.err.println("      --discovery-threads <n>  Threads walking the directory tree in parallel");
+        System.err.println("                           (default: as many as worker threads; 1 = sequential)");
+        System.err.println("  -f, --format <fmt>       jsonl (default) or csv");
+        System.err.println("  -m, --read-mode <mode>   full_text (default), streaming or mapped");
+        System.err.println("      --pipelined          Process files while the directory is still scanned");
+        System.err.println("      --virtual-threads    Read files on virtual threads");
+        System.err.println("      --schedule <order>   lpt (default): largest files first, small files");
+        System.err.println("                           batched; fifo: discovery order (not pipelined only)");
+        System.err.println("      --batch-files <n>    Most small files per batch (default "
+            + TaskScheduler.DEFAULT_MAX_BATCH_FILES + ")");
+        System.err.println("      --batch-bytes <n>    Most bytes per batch (default "
+            + TaskScheduler.DEFAULT_MAX_BATCH_BYTES + ")");
+        System.err.println("      --timeout <s>        Stop the run after s seconds; the summary covers");
+        System.err.println("                           the files done until then (exit code 1)");
+        System.err.println("      --file-timeout <s>   Give up on a file after s seconds (error record)");
+        System.err.println("      --max-file-size <n>  Skip files larger than n bytes (error record)");
+        System.err.println("      --top-words <n>      Count all word frequencies; report the n most frequent");
+        System.err.println("      --approx-top-words <n>  Report the n most frequent words and the number");
+        System.err.println("                           of distinct words from fixed-size sketches");
+        System.err.println("      --top-k-error <e>    Top-word counts within e * total words (default "
+            + WordSketches.DEFAULT_TOP_K_ERROR + ")");
+        System.err.println("      --distinct-error <e> Relative error of the distinct count (default "
+            + WordSketches.DEFAULT_DISTINCT_ERROR + ")");
+        System.err.println("      --sketch-file <file> Merge the sketches of earlier runs from the file");
+        System.err.println("                           and save the combined sketches to it");
+        System.err.println("      --terms <list>       Comma-separated words or phrases to count");
+        System.err.println("      --terms-file <file>  Words or phrases to count, one per line");
+        System.err.println("      --log-level <level>  severe, warning, info (default) or fine (one line per file)");
+        System.err.println("      --metrics-interval <s>  Write throughput, latency and queue metrics to");
+        System.err.println("                           stderr every s seconds and at the end");
+        System.err.println("      --metrics-format <fmt>  text (default) or json");
+        System.err.println("      --jmx                Register the metrics as an MBean (for jconsole)");
+        System.err.println("  -h, --help               Show this help");
+        System.err.println("Without arguments the graphical interface is started.");
+    }
+    
+    /**
+     * Runs the scan and waits until it completes
+     */
+    private int execute() {
+        // Results go to the real stdout; engine log lines are moved to stderr
+        out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16),
+            false, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+        setLogLevel(logLevel);
+        
+        StatisticsManager manager = new StatisticsManager();
+        manager.setProgressListener(this);
+        manager.setThreadCount(threads);
+        manager.setDiscoveryThreads(discoveryThreads);
+        manager.setReadMode(readMode);
+        manager.setPipelined(pipelined);
+        manager.setExecutorStrategy(strategy);
+        manager.setSchedulingPolicy(schedule);
+        manager.setBatchLimits(batchFiles, batchBytes);
+        manager.setRunTimeout(timeoutMillis);
+        manager.setFileTimeLimit(fileTimeoutMillis);
+        manager.setMaxFileBytes(maxFileBytes);
+        metrics = manager.getMetrics();
+        manager.setCountWordFrequencies(topWords > 0);
+        if (approxTopWords > 0 || sketchFile != null) {
+            manager.setWordSketches(topKError, distinctError);
+        }
+        try {
+            manager.setTargetTerms(terms);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+        termNames = manager.getTargetTerms();
+        
+        if (format == OutputFormat.CSV) {
+            StringBuilder header = new StringBuilder(CSV_HEADER);
+            for (String term : termNames) {
+                header.append(',');
+                appendCsvField(header, term);
+            }
+            out.println(header);
+        }
+        
+        if (jmx) {
+            try {
+                manager.getMetrics().registerMBean(directory);
+            } catch (JMException e) {
+                System.err.println("Warning: could not register the metrics MBean - " + e.getMessage());
+            }
+        }
+        MetricsReporter reporter = null;
+        if (metricsIntervalMillis > 0) {
+            reporter = new MetricsReporter(manager.getMetrics(), System.err, metricsFormat);
+            reporter.start(metricsIntervalMillis);
+        }
+        
+        ProcessingRun run = manager.processDirectory(directory, recursive);
+        
+        try {
+            finished.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            manager.stopProcessing();
+            exitCode = EXIT_FAILED;
+        }
+        if (run.getState() == ProcessingRun.State.TIMED_OUT || run.getState() == ProcessingRun.State.CANCELLED) {
+            System.err.println("Error: the run " + (run.getState() == ProcessingRun.State.TIMED_OUT
+                ? "timed out" : "was stopped") + "; the summary only covers the files processed until then");
+            exitCode = EXIT_FAILED;
+        }
+        if (reporter != null) {
+            reporter.stop();
+            reporter.report(); // totals of the whole run
+        }
+        manager.shutdown();
+        
+        synchronized (this) {
+            out.flush();
+        }
+        return exitCode;
+    }
+    
+    /**
+     * Sets the level of the engine's log messages (on the root logger and its handlers)
+     */
+    private static void setLogLevel(Level level) {
+        Logger root = Logger.getLogger("");
+        root.setLevel(level);
+        for (Handler handler : root.getHandlers()) {
+            handler.setLevel(level);
+        }
+    }
+    
+    // ProgressListener callbacks (called from the worker threads)
+    
+    @Override
+    public void onProcessingStarted(int totalFiles) {
+        // Nothing to write: the count is logged by the engine
+    }
+    
+    @Override
+    public void onFileProcessed(FileStats fileStats, int processedCount, int totalFiles) {
+        // Formatted outside the lock, so workers only wait for the write itself
+        String record = format == OutputFormat.CSV
+            ? toCsv(fileStats) : toJson(fileStats, topWords, termNames);
+        
+        synchronized (this) {
+            out.println(record);
+            
+            // Flush now and then, not after every record
+            long now = System.nanoTime();
+            if (now - lastFlushTime >= FLUSH_INTERVAL_NANOS) {
+                out.flush();
+                lastFlushTime = now;
+            }
+        }
+    }
+    
+    @Override
+    public void onFilesProcessed(List<FileStats> batch, int processedCount, int totalFiles) {
+        // A whole batch of small files is written under one lock
+        List<String> records = new ArrayList<>(batch.size());
+        for (FileStats fileStats : batch) {
+            records.add(format == OutputFormat.CSV
+                ? toCsv(fileStats) : toJson(fileStats, topWords, termNames));
+        }
+        
+        synchronized (this) {
+            for (String record : records) {
+                out.println(record);
+            }
+            long now = System.nanoTime();
+            if (now - lastFlushTime >= FLUSH_INTERVAL_NANOS) {
+                out.flush();
+                lastFlushTime = now;
+            }
+        }
+    }
+    
+    @Override
+    public void onProgressUpdate(int progress) {
+        // Not used - records are the progress
+    }
+    
+    @Override
+    public synchronized void onProcessingComplete(GlobalStats globalStats) {
+        if (sketchFile != null) {
+            combineSketchFile(globalStats);
+        }
+        
+        if (format == OutputFormat.CSV) {
+            // A summary row would break the CSV column layout
+            System.err.println(globalStats.getSummary());
+            if (topWords > 0) {
+                System.err.println("Most frequent words: " + globalStats.getTopWords(topWords));
+            }
+            if (approxTopWords > 0) {
+                System.err.println("Approximate distinct words: " + globalStats.getApproximateDistinctWordCount());
+                System.err.println("Approximate most frequent words: " + globalStats.getApproximateTopWords(approxTopWords));
+            }
+            if (!termNames.isEmpty()) {
+                System.err.println("Terms: " + termNames + " = " + Arrays.toString(globalStats.getTermTotals()));
+            }
+        } else {
+            out.println(toJson(globalStats, topWords, approxTopWords, metrics));
+        }
+        out.flush();
+        finished.countDown();
+    }
+    
+    @Override
+    public void onError(String fileName, String errorMessage) {
+        System.err.println("Error: " + fileName + " - " + errorMessage);
+        exitCode = EXIT_FAILED;
+        finished.countDown();
+    }
+    
+    /**
+     * Merges the sketches saved by earlier runs into this run's, then saves the result
+     */
+    private void combineSketchFile(GlobalStats globalStats) {
+        try {
+            if (Files.exists(sketchFile)) {
+                globalStats.mergeWordSketches(WordSketches.load(sketchFile));
+            }
+            WordSketches combined = globalStats.getWordSketches();
+            if (combined != null) {
+                combined.save(sketchFile);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // IllegalArgumentException: saved with other error settings
+            System.err.println("Error: sketch file " + sketchFile + " - " + e.getMessage());
+            exitCode = EXIT_FAILED;
+        }
+    }
+    
+    // Record formatting
+    
+    static String toJson(FileStats stats, int topWords, List<String> termNames) {
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\"type\":\"file\",\"file\":");
+        appendJsonString(json, stats.getFileName());
+        json.append(",\"path\":");
+        appendJsonString(json, stats.getFilePath());
+        json.append(",\"words\":").append(stats.getWordCount());
+        json.append(",\"is\":").append(stats.getIsCount());
+        json.append(",\"are\":").append(stats.getAreCount());
+        json.append(",\"you\":").append(stats.getYouCount());
+        json.append(",\"longest\":");
+        appendJsonString(json, stats.getLongestWord());
+        json.append(",\"shortest\":");
+        appendJsonString(json, stats.getShortestWord());
+        json.append(",\"error\":").append(stats.isError());
+        appendJsonLengths(json, stats.getWordLengths());
+        if (!termNames.isEmpty()) {
+            json.append(",\"terms\":");
+            appendJsonTermCounts(json, termNames, stats.getTermCounts());
+        }
+        WordFrequencyTable frequencies = stats.getWordFrequencies();
+        if (topWords > 0 && frequencies != null) {
+            json.append(",\"distinctWords\":").append(frequencies.size());
+            json.append(",\"topWords\":");
+            appendJsonWordCounts(json, frequencies.top(topWords));
+        }
+        return json.append('}').toString();
+    }
+    
+    static String toJson(GlobalStats stats, int topWords, int approxTopWords, ProcessingMetrics metrics) {
+        StringBuilder json = new StringBuilder(200);
+        json.append("{\"type\":\"summary\"");
+        json.append(",\"files\":").append(stats.getTotalFilesProcessed());
+        json.append(",\"words\":").append(stats.getTotalWordCount());
+        json.append(",\"is\":").append(stats.getTotalIsCount());
+        json.append(",\"are\":").append(stats.getTotalAreCount());
+        json.append(",\"you\":").append(stats.getTotalYouCount());
+        json.append(",\"longest\":");
+        appendJsonString(json, stats.getLongestWordInDirectory());
+        json.append(",\"shortest\":");
+        appendJsonString(json, stats.getShortestWordInDirectory());
+        LengthHistogram lengths = stats.getWordLengths();
+        appendJsonLengths(json, lengths);
+        json.append(",\"lengthHistogram\":").append(Arrays.toString(lengths.getCounts()).replace(" ", ""));
+        json.append(",\"filesByWordCount\":[");
+        long[] filesByWordCount = stats.getFilesByWordCount();
+        for (int bucket = 0; bucket < filesByWordCount.length; bucket++) {
+            if (bucket > 0) {
+                json.append(',');
+            }
+            json.append("{\"minWords\":").append(GlobalStats.wordCountBucketStart(bucket));
+            json.append(",\"maxWords\":").append(GlobalStats.wordCountBucketEnd(bucket));
+            json.append(",\"files\":").append(filesByWordCount[bucket]).append('}');
+        }
+        json.append(']');
+        if (!stats.getTermNames().isEmpty()) {
+            json.append(",\"terms\":");
+            appendJsonTermCounts(json, stats.getTermNames(), stats.getTermTotals());
+        }
+        if (topWords > 0) {
+            json.append(",\"distinctWords\":").append(stats.getDistinctWordCount());
+            json.append(",\"topWords\":");
+            appendJsonWordCounts(json, stats.getTopWords(topWords));
+        }
+        WordSketches sketches = approxTopWords > 0 ? stats.getWordSketches() : null;
+        if (sketches != null) {
+            json.append(",\"approxDistinctWords\":").append(sketches.getDistinctWordEstimate());
+            json.append(",\"approxTopWords\":");
+            appendJsonWordCounts(json, sketches.getTopWords(approxTopWords));
+            json.append(",\"approxTopWordsMaxError\":").append(sketches.getTopWordsErrorBound());
+        }
+        if (metrics != null && metrics.getScheduledTasks() > 0) {
+            metrics.appendJsonMakespan(json);
+        }
+        return json.append('}').toString();
+    }
+    
+    static String toCsv(FileStats stats) {
+        StringBuilder csv = new StringBuilder(120);
+        appendCsvField(csv, stats.getFileName());
+        csv.append(',');
+        appendCsvField(csv, stats.getFilePath());
+        csv.append(',').append(stats.getWordCount());
+        csv.append(',').append(stats.getIsCount());
+        csv.append(',').append(stats.getAreCount());
+        csv.append(',').append(stats.getYouCount());
+        csv.append(',');
+        appendCsvField(csv, stats.getLongestWord());
+        csv.append(',');
+        appendCsvField(csv, stats.getShortestWord());
+        csv.append(',').append(stats.isError());
+        LengthHistogram lengths = stats.getWordLengths() != null ? stats.getWordLengths() : new LengthHistogram();
+        csv.append(',').append(String.format(Locale.ROOT, "%.3f", lengths.getMean()));
+        csv.append(',').append(lengths.getMedian());
+        csv.append(',').append(lengths.getPercentile(95));
+        long[] termCounts = stats.getTermCounts();
+        if (termCounts != null) {
+            for (long count : termCounts) {
+                csv.append(',').append(count);
+            }
+        }
+        return csv.toString();
+    }
+    
+    /**
+     * Mean, median and 95th percentile of the word length (all 0 without a histogram)
+     */
+    private static void appendJsonLengths(StringBuilder json, LengthHistogram lengths) {
+        if (lengths == null) {
+            lengths = new LengthHistogram();
+        }
+        json.append(",\"meanLength\":").append(String.format(Locale.ROOT, "%.3f", lengths.getMean()));
+        json.append(",\"medianLength\":").append(lengths.getMedian());
+        json.append(",\"p95Length\":").append(lengths.getPercentile(95));
+    }
+    
+    private static void appendJsonTermCounts(StringBuilder json, List<String> termNames, long[] counts) {
+        json.append('{');
+        for (int i = 0; i < termNames.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendJsonString(json, termNames.get(i));
+            json.append(':').append(counts != null && i < counts.length ? counts[i] : 0);
+        }
+        json.append('}');
+    }
+    
+    private static void appendJsonWordCounts(StringBuilder json, List<WordFrequencyTable.WordCount> wordCounts) {
+        json.append('[');
+        for (int i = 0; i < wordCounts.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"word\":");
+            appendJsonString(json, wordCounts.get(i).getWord());
+            json.append(",\"count\":").append(wordCounts.get(i).getCount()).append('}');
+        }
+        json.append(']');
+    }
+    
+    private static void appendJsonString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+    
+    /**
+     * RFC 4180 quoting: only fields with a comma, quote or line break are quoted
+     */
+    private static void appendCsvField(StringBuilder csv, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+            || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            csv.append(value);
+            return;
+        }
+        csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
\ No newline at end of file
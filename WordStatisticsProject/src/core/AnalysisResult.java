@@ -0,0 +1,95 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import model.FileStats;
+
+/**
+ * Result of analyzing one text with WordAnalyzer
+ * Replaces the old Map<String, Object>: counters are primitive longs (no boxing)
+ * and the full word list is only present when the caller asked for it.
+ */
+public class AnalysisResult {
+    
+    // Shared empty result for null / blank text
+    static final AnalysisResult EMPTY = new AnalysisResult(0, 0, 0, 0, "", "", null);
+    
+    private final long wordCount;
+    private final long isCount;
+    private final long areCount;
+    private final long youCount;
+    private final String longestWord;
+    private final String shortestWord;
+    private final String[] words;
+    
+    // Constructor
+    AnalysisResult(long wordCount, long isCount, long areCount, long youCount,
+                   String longestWord, String shortestWord, String[] words) {
+        this.wordCount = wordCount;
+        this.isCount = isCount;
+        this.areCount = areCount;
+        this.youCount = youCount;
+        this.longestWord = longestWord;
+        this.shortestWord = shortestWord;
+        this.words = words;
+    }
+    
+    /**
+     * Builds a result from a tokenizer that has finished its text
+     */
+    static AnalysisResult of(WordTokenizer tokenizer, String[] words) {
+        return new AnalysisResult(tokenizer.getWordCount(), tokenizer.getIsCount(),
+            tokenizer.getAreCount(), tokenizer.getYouCount(),
+            tokenizer.getLongestWord(), tokenizer.getShortestWord(), words);
+    }
+    
+    // Getters
+    public long getWordCount() {
+        return wordCount;
+    }
+    
+    public long getIsCount() {
+        return isCount;
+    }
+    
+    public long getAreCount() {
+        return areCount;
+    }
+    
+    public long getYouCount() {
+        return youCount;
+    }
+    
+    public String getLongestWord() {
+        return longestWord;
+    }
+    
+    public String getShortestWord() {
+        return shortestWord;
+    }
+    
+    /**
+     * True if the word list was requested and collected
+     */
+    public boolean hasWords() {
+        return words != null;
+    }
+    
+    /**
+     * All words in text order (original case)
+     * 
+     * @return The words, or an empty array if they were not requested
+     */
+    public String[] getWords() {
+        return words != null ? words : new String[0];
+    }
+    
+    /**
+     * Copies the statistics into a FileStats object
+     */
+    public void applyTo(FileStats fileStats) {
+        fileStats.updateStats(wordCount, isCount, areCount, youCount, longestWord, shortestWord);
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import model.FileStats;
+import model.GlobalStats;
+import gui.ProgressListener;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the statistics of a directory current while files are written
+ * Registers a WatchService on the same tree FileDiscoverer scans. Created or
+ * modified text files are analyzed again and their old contribution to
+ * GlobalStats is replaced; deleted files are retracted.
+ *
+ * Events are debounced: a path is only analyzed once no new event arrived
+ * for it during the quiet period, so a burst of writes costs one analysis.
+ * All work happens on one daemon thread.
+ */
+public class DirectoryWatcher {
+    
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWatcher.class.getName());
+    
+    // Default quiet period before a changed file is analyzed again
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+    
+    private final Path rootPath;
+    private final boolean includeSubdirs;
+    private final FileDiscoverer fileDiscoverer;
+    private final FileProcessor fileProcessor;
+    private final GlobalStats globalStats;
+    private final ProgressListener progressListener;
+    private final long debounceNanos;
+    
+    // Current statistics per file, keyed by absolute normalized path
+    private final Map<Path, FileStats> currentStats;
+    // Registered directories
+    private final Map<WatchKey, Path> watchedDirectories;
+    // Paths waiting for their quiet period to end, with the time of the last event
+    private final Map<Path, Long> pendingPaths;
+    
+    private WatchService watchService;
+    private Thread watcherThread;
+    private volatile boolean running;
+    
+    /**
+     * Constructor
+     *
+     * @param globalStats Statistics of the initial scan; updated in place
+     * @param progressListener Receives the updates on the watcher thread (may be null)
+     */
+    public DirectoryWatcher(String directoryPath, boolean includeSubdirs,
+                            FileDiscoverer fileDiscoverer, FileProcessor fileProcessor,
+                            GlobalStats globalStats, ProgressListener progressListener,
+                            long debounceMillis) {
+        this.rootPath = Paths.get(directoryPath).toAbsolutePath().normalize();
+        this.includeSubdirs = includeSubdirs;
+        this.fileDiscoverer = fileDiscoverer;
+        this.fileProcessor = fileProcessor;
+        this.globalStats = globalStats;
+        this.progressListener = progressListener;
+        this.debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        this.currentStats = new HashMap<>();
+        this.watchedDirectories = new HashMap<>();
+        this.pendingPaths = new LinkedHashMap<>();
+    }
+    
+    /**
+     * Registers the directories and starts the watcher thread
+     */
+    public void start() throws IOException {
+        for (FileStats stats : globalStats.getAllFileStats()) {
+            currentStats.put(keyOf(Paths.get(stats.getFilePath())), stats);
+        }
+        
+        watchService = rootPath.getFileSystem().newWatchService();
+        register(rootPath);
+        
+        running = true;
+        watcherThread = new Thread(this::watchLoop, "directory-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+    
+    /**
+     * Stops watching; pending changes are dropped
+     */
+    public void stop() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close(); // wakes up the watcher thread
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Error closing watch service: " + e.getMessage());
+        }
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Main loop: waits for events, coalesces them, analyzes paths that became quiet
+     */
+    private void watchLoop() {
+        try {
+            while (running) {
+                WatchKey key;
+                if (pendingPaths.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    long waitNanos = Math.max(0, nextDueTime() - System.nanoTime());
+                    key = watchService.poll(waitNanos, TimeUnit.NANOSECONDS);
+                }
+                
+                if (key != null) {
+                    handleEvents(key);
+                }
+                processDuePaths();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // stop() was called
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+        }
+    }
+    
+    /**
+     * Records the events of one directory as pending paths
+     */
+    private void handleEvents(WatchKey key) {
+        Path directory = watchedDirectories.get(key);
+        long now = System.nanoTime();
+        
+        for (WatchEvent<?> event : key.pollEvents()) {
+            WatchEvent.Kind<?> kind = event.kind();
+            
+            if (kind == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost: check everything we know plus everything on disk
+                markAllPending(now);
+                continue;
+            }
+            if (directory == null) {
+                continue;
+            }
+            
+            Path child = directory.resolve((Path) event.context());
+            
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                if (includeSubdirs) {
+                    // Files may have been written before the new directory was registered
+                    register(child);
+                    markTreePending(child, now);
+                }
+            } else if (kind == StandardWatchEventKinds.ENTRY_DELETE && isKnownDirectory(child)) {
+                markKnownFilesPending(child, now);
+            } else if (fileDiscoverer.isTextFile(child)) {
+                pendingPaths.remove(child); // keep insertion order = order of last event
+                pendingPaths.put(child, now);
+            }
+        }
+        
+        if (!key.reset()) {
+            watchedDirectories.remove(key); // directory is gone
+        }
+    }
+    
+    /**
+     * Analyzes every pending path whose quiet period is over
+     */
+    private void processDuePaths() {
+        long now = System.nanoTime();
+        boolean changed = false;
+        
+        Iterator<Map.Entry<Path, Long>> iterator = pendingPaths.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < debounceNanos) {
+                continue;
+            }
+            iterator.remove();
+            changed |= applyChange(entry.getKey());
+        }
+        
+        if (changed && progressListener != null) {
+            progressListener.onGlobalStatsChanged(globalStats);
+        }
+    }
+    
+    /**
+     * Re-analyzes or retracts one file and applies the delta to GlobalStats
+     *
+     * @return True if anything changed
+     */
+    private boolean applyChange(Path filePath) {
+        Path key = keyOf(filePath);
+        
+        if (Files.isRegularFile(filePath)) {
+            FileStats newStats = fileProcessor.processFile(filePath);
+            if (newStats == null) {
+                return false;
+            }
+            FileStats oldStats = currentStats.put(key, newStats);
+            globalStats.replaceFileStats(oldStats, newStats);
+            
+            if (progressListener != null) {
+                progressListener.onFileUpdated(oldStats, newStats);
+            }
+            return true;
+        }
+        
+        FileStats oldStats = currentStats.remove(key);
+        if (oldStats == null) {
+            return false;
+        }
+        globalStats.removeFileStats(oldStats);
+        
+        if (progressListener != null) {
+            progressListener.onFileRemoved(oldStats);
+        }
+        return true;
+    }
+    
+    /**
+     * Registers a directory (and its subdirectories if recursive)
+     */
+    private void register(Path directory) {
+        try {
+            if (!includeSubdirs) {
+                registerOne(directory);
+                return;
+            }
+            Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    registerOne(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warning("Cannot watch directory: " + directory + " - " + e.getMessage());
+        }
+    }
+    
+    private void registerOne(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirectories.put(key, directory);
+    }
+    
+    /**
+     * Marks all text files under a directory as pending
+     */
+    private void markTreePending(Path directory, long now) {
+        // The discoverer may call the sink from several threads
+        fileDiscoverer.discoverTextFiles(directory.toString(), includeSubdirs, path -> {
+            synchronized (pendingPaths) {
+                pendingPaths.put(path, now);
+            }
+        });
+    }
+    
+    /**
+     * After an overflow: every known file and every file on disk is checked again
+     */
+    private void markAllPending(long now) {
+        for (Path known : currentStats.keySet()) {
+            pendingPaths.put(known, now);
+        }
+        markTreePending(rootPath, now);
+    }
+    
+    /**
+     * A watched directory was deleted: its known files must be retracted
+     */
+    private void markKnownFilesPending(Path directory, long now) {
+        Path prefix = keyOf(directory);
+        for (Path known : currentStats.keySet()) {
+            if (known.startsWith(prefix)) {
+                pendingPaths.put(known, now);
+            }
+        }
+    }
+    
+    private boolean isKnownDirectory(Path path) {
+        Path prefix = keyOf(path);
+        for (Path known : currentStats.keySet()) {
+            if (known.startsWith(prefix) && !known.equals(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Time at which the oldest pending path becomes due
+     */
+    private long nextDueTime() {
+        long earliest = Long.MAX_VALUE;
+        for (long eventTime : pendingPaths.values()) {
+            earliest = Math.min(earliest, eventTime);
+        }
+        return earliest + debounceNanos;
+    }
+    
+    private static Path keyOf(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
\ No newline at end of file
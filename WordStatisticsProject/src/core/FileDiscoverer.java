@@ -4,16 +4,29 @@
  */
 package core;
 
+import threading.DirectoryWalkTask;
 import java.io.*;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 import java.util.stream.*;
 
 /**
  * Discovers all text files in a directory and its subdirectories
+ * UPDATED: The walk stats every entry once and hands the attributes on (no
+ * second isRegularFile stat), matches the extension with one set lookup, and
+ * can list directories in parallel on a fork/join pool (setParallelism).
+ * Results are streamed to a sink as they are found.
  */
 public class FileDiscoverer {
     
+    private static final Logger LOGGER = Logger.getLogger(FileDiscoverer.class.getName());
+    
     // Supported text file extensions
     // FIX: Added explicit list. Only files with these extensions will be processed.
     private static final List<String> TEXT_FILE_EXTENSIONS = Arrays.asList(
@@ -21,6 +34,30 @@ public class FileDiscoverer {
         ".js", ".html", ".css", ".xml", ".json", ".csv"
     );
     
+    // The same extensions, for a single lookup of the lower-cased suffix
+    private static final Set<String> TEXT_FILE_SUFFIXES = new HashSet<>(TEXT_FILE_EXTENSIONS);
+    private static final int MAX_EXTENSION_LENGTH =
+        TEXT_FILE_EXTENSIONS.stream().mapToInt(String::length).max().getAsInt();
+    
+    // Threads listing directories at the same time (1 = sequential walk)
+    private volatile int parallelism = 1;
+    
+    /**
+     * Number of threads that list directories at the same time
+     * With more than one, the sinks of discoverTextFiles/walkTextFiles are
+     * called from several threads and must be thread-safe.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
     /**
      * Finds all text files in a directory (including subdirectories)
      * * @param directoryPath The path to the directory to search
@@ -38,38 +75,116 @@ public class FileDiscoverer {
      * @return List of Path objects for all found text files
      */
     public List<Path> findTextFiles(String directoryPath, boolean includeSubdirs) {
-        List<Path> textFiles = new ArrayList<>();
-        
+        List<Path> textFiles = Collections.synchronizedList(new ArrayList<>());
+        discoverTextFiles(directoryPath, includeSubdirs, textFiles::add);
+        return new ArrayList<>(textFiles);
+    }
+    
+    /**
+     * Streaming version of findTextFiles: every text file is handed to the sink
+     * as soon as the walk reaches it, so processing can start before the walk ends.
+     * 
+     * @param directoryPath The path to the directory to search
+     * @param includeSubdirs Whether to search subdirectories recursively
+     * @param sink Receives each text file found (called on the calling thread,
+     *             or on the pool threads if the parallelism is above 1)
+     * @return Number of text files found
+     */
+    public int discoverTextFiles(String directoryPath, boolean includeSubdirs, Consumer<Path> sink) {
+        return walkTextFiles(directoryPath, includeSubdirs, (path, attrs) -> sink.accept(path));
+    }
+    
+    /**
+     * Like discoverTextFiles, but the sink also gets the attributes read by
+     * the walk (size, modification time) so it need not stat the file again
+     * 
+     * @return Number of text files found
+     * @throws java.util.concurrent.CancellationException If the sink threw it to stop the walk
+     */
+    public int walkTextFiles(String directoryPath, boolean includeSubdirs,
+                             BiConsumer<Path, BasicFileAttributes> sink) {
         if (directoryPath == null || directoryPath.trim().isEmpty()) {
-            return textFiles;
+            return 0;
         }
         
         Path dirPath = Paths.get(directoryPath);
         
         if (!Files.exists(dirPath) || !Files.isDirectory(dirPath)) {
-            System.err.println("Directory does not exist or is not a directory: " + directoryPath);
-            return textFiles;
+            LOGGER.warning("Directory does not exist or is not a directory: " + directoryPath);
+            return 0;
         }
         
+        AtomicInteger found = new AtomicInteger();
+        // The name is checked first: it costs no system call
+        BiConsumer<Path, BasicFileAttributes> visitor = (path, attrs) -> {
+            if (isTextFile(path) && isRegularFile(path, attrs)) {
+                found.incrementAndGet();
+                sink.accept(path, attrs);
+            }
+        };
+        
         try {
             // Determine depth: Integer.MAX_VALUE for recursive, 1 for current directory only
             int maxDepth = includeSubdirs ? Integer.MAX_VALUE : 1;
-
-            // Use Java's Files.walk with depth control
-            try (Stream<Path> paths = Files.walk(dirPath, maxDepth)) {
-                paths
-                    .filter(Files::isRegularFile)          // Only regular files
-                    .filter(this::isTextFile)              // Only allowed text extensions
-                    .forEach(textFiles::add);              // Add to list
+            
+            if (parallelism > 1) {
+                walkParallel(dirPath, maxDepth, visitor);
+            } else {
+                walkSequential(dirPath, maxDepth, visitor);
             }
             
         } catch (IOException e) {
-            System.err.println("Error scanning directory: " + directoryPath + " - " + e.getMessage());
+            LOGGER.warning("Error scanning directory: " + directoryPath + " - " + e.getMessage());
         } catch (SecurityException e) {
-            System.err.println("Security exception (no permission): " + e.getMessage());
+            LOGGER.warning("Security exception (no permission): " + e.getMessage());
         }
         
-        return textFiles;
+        return found.get();
+    }
+    
+    /**
+     * Walks the tree on the calling thread; unreadable directories are skipped
+     */
+    private void walkSequential(Path root, int maxDepth, BiConsumer<Path, BasicFileAttributes> visitor)
+            throws IOException {
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                // Also called for the directories at maxDepth, which the visitor ignores
+                visitor.accept(file, attrs);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                LOGGER.warning("Error scanning directory: " + file + " - " + e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    /**
+     * Walks the tree on a fork/join pool, one task per directory
+     */
+    private void walkParallel(Path root, int maxDepth, BiConsumer<Path, BasicFileAttributes> visitor) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirectoryWalkTask(root, maxDepth, visitor));
+        } finally {
+            // Stops the remaining tasks if the sink cancelled the walk
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * True for regular files; links are followed (like Files.isRegularFile)
+     * so a link to a text file still counts, with an extra stat for links only
+     */
+    private static boolean isRegularFile(Path path, BasicFileAttributes attrs) {
+        if (attrs.isRegularFile()) {
+            return true;
+        }
+        return attrs.isSymbolicLink() && Files.isRegularFile(path);
     }
     
     /**
@@ -79,18 +194,22 @@ public class FileDiscoverer {
      * to be mistakenly identified as text files. Now, if the extension 
      * isn't in the allowed list, the file is rejected immediately.
      */
-    private boolean isTextFile(Path filePath) {
-        String fileName = filePath.getFileName().toString().toLowerCase();
-        
-        // Check if file has a text extension
-        for (String extension : TEXT_FILE_EXTENSIONS) {
-            if (fileName.endsWith(extension)) {
-                return true;
-            }
+    public boolean isTextFile(Path filePath) {
+        Path fileName = filePath.getFileName();
+        return fileName != null && isTextFileName(fileName.toString());
+    }
+    
+    /**
+     * Extension check on a bare file name: only the part from the last dot
+     * is lower-cased and looked up
+     */
+    public static boolean isTextFileName(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0 || fileName.length() - dot > MAX_EXTENSION_LENGTH) {
+            // Strict Mode: If extension doesn't match, it is NOT a text file.
+            return false;
         }
-        
-        // Strict Mode: If extension doesn't match, it is NOT a text file.
-        return false;
+        return TEXT_FILE_SUFFIXES.contains(fileName.substring(dot).toLowerCase(Locale.ROOT));
     }
     
     /**
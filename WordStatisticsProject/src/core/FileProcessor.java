@@ -5,20 +5,257 @@
 package core;
 
 import model.FileStats;
+import model.WordFrequencyTable;
+import model.WordSketches;
+import metrics.ProcessingMetrics;
+import threading.FileRangeTask;
 import java.io.*;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Handles file reading and text extraction
- * Works with WordAnalyzer to process file content
+ * Works with WordTokenizer to process file content
+ * UPDATED: Every worker thread keeps a ProcessingContext (read and char
+ * buffers, decoder, tokenizer, metrics timer) and reuses it for all its
+ * files, so a file allocates little more than its FileStats. The context is
+ * rebuilt when a setting it depends on changes.
+ * UPDATED: Optional per-file limits: files above a size limit are not read,
+ * and a file still being read after the time limit (or when its run is
+ * stopped) is given up with error statistics.
  */
 public class FileProcessor {
     
-    private WordAnalyzer wordAnalyzer;
+    private static final Logger LOGGER = Logger.getLogger(FileProcessor.class.getName());
+    
+    /**
+     * How file content is read before analysis
+     */
+    public enum ReadMode {
+        /** Read the whole file into one buffer, then analyze it (original behaviour) */
+        FULL_TEXT,
+        /** Feed fixed-size char buffers into the tokenizer; memory bounded by the buffer */
+        STREAMING,
+        /**
+         * Memory-map the file and classify letters directly on the bytes.
+         * Only used for ASCII-compatible charsets; other charsets fall back to STREAMING.
+         */
+        MAPPED
+    }
+    
+    // Default size of the streaming buffer (in chars)
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    
+    // MAPPED mode: files smaller than this are read into a heap buffer instead of mapped
+    private static final long MAP_THRESHOLD = 64 * 1024;
+    
+    // MAPPED mode: size of each ByteBuffer view handed to the tokenizer
+    // (the time limit is checked between views, so they are not too large)
+    private static final long MAP_WINDOW = 4L * 1024 * 1024;
+    
+    // FULL_TEXT mode: longest text held at once (larger files are analyzed in parts)
+    private static final int MAX_FULL_TEXT_CHARS = Integer.MAX_VALUE - 16;
+    
+    // preloadFile: larger files are not loaded into memory at once
+    private static final long PRELOAD_LIMIT = 16L * 1024 * 1024;
+    
+    // PartReader: bytes read per part of a file too large to preload
+    private static final int PART_SIZE = 1024 * 1024;
+    
+    // Intra-file parallel mode: default size of the byte ranges given to each worker
+    public static final long DEFAULT_RANGE_SIZE = 32L * 1024 * 1024;
+    
+    private ReadMode readMode;
+    private int bufferSize;
+    private Charset charset;
+    
+    // Intra-file parallel mode (disabled while rangePool is null)
+    private ForkJoinPool rangePool;
+    private long parallelThreshold;
+    private long rangeSize;
+    
+    // Count the frequency of every word (off by default: costs a table per file)
+    private boolean countWordFrequencies;
+    
+    // Configurable target terms (null = none)
+    private TermMatcher termMatcher;
+    
+    // Empty sketches with the configured error bounds, copied per file (null = off)
+    private WordSketches wordSketches;
+    
+    // Per-file limits: larger files and files taking longer become errors (0 = no limit)
+    private long maxFileBytes;
+    private long timeLimitNanos;
+    
+    // Read and analyze times of every file (null = not measured)
+    private volatile ProcessingMetrics metrics;
+    
+    // Buffers and tokenizer of each worker thread, rebuilt when configVersion changes
+    private final ThreadLocal<ProcessingContext> contexts;
+    private volatile int configVersion;
     
     // Constructor
     public FileProcessor() {
-        this.wordAnalyzer = new WordAnalyzer();
+        this.contexts = new ThreadLocal<>();
+        this.readMode = ReadMode.FULL_TEXT;
+        this.bufferSize = DEFAULT_BUFFER_SIZE;
+        this.charset = StandardCharsets.UTF_8;
+        this.rangeSize = DEFAULT_RANGE_SIZE;
+    }
+    
+    public ReadMode getReadMode() {
+        return readMode;
+    }
+    
+    /**
+     * Selects how files are read. Set it before processing starts.
+     */
+    public void setReadMode(ReadMode readMode) {
+        this.readMode = readMode != null ? readMode : ReadMode.FULL_TEXT;
+    }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    /**
+     * Size of the char buffer used in STREAMING mode
+     */
+    public void setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        configVersion++;
+    }
+    
+    public Charset getCharset() {
+        return charset;
+    }
+    
+    /**
+     * Charset used to decode files (UTF-8 by default)
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset != null ? charset : StandardCharsets.UTF_8;
+        configVersion++;
+    }
+    
+    /**
+     * Enables intra-file parallelism: files of at least thresholdBytes are cut
+     * into word-aligned ranges analyzed in parallel by the given pool.
+     * Only used for ASCII-compatible charsets. Pass a null pool to disable.
+     * 
+     * @param pool Fork/join pool running the ranges, or null
+     * @param thresholdBytes Minimum file size for splitting
+     * @param rangeBytes Target size of each range
+     */
+    public void setRangeParallelism(ForkJoinPool pool, long thresholdBytes, long rangeBytes) {
+        if (pool != null && (thresholdBytes <= 0 || rangeBytes <= 0)) {
+            throw new IllegalArgumentException("Threshold and range size must be positive");
+        }
+        this.rangePool = pool;
+        this.parallelThreshold = thresholdBytes;
+        this.rangeSize = rangeBytes;
+    }
+    
+    /**
+     * Enables the per-file word-frequency table (FileStats.getWordFrequencies)
+     */
+    public void setCountWordFrequencies(boolean countWordFrequencies) {
+        this.countWordFrequencies = countWordFrequencies;
+        configVersion++;
+    }
+    
+    public boolean isCountWordFrequencies() {
+        return countWordFrequencies;
+    }
+    
+    /**
+     * Sets the target terms counted in every file (null for none)
+     */
+    public void setTermMatcher(TermMatcher termMatcher) {
+        this.termMatcher = termMatcher;
+        configVersion++;
+    }
+    
+    public TermMatcher getTermMatcher() {
+        return termMatcher;
+    }
+    
+    /**
+     * Enables per-file word sketches (FileStats.getWordSketches)
+     * @param template Empty sketches whose error settings every file uses, or null to disable
+     */
+    public void setWordSketches(WordSketches template) {
+        this.wordSketches = template;
+        configVersion++;
+    }
+    
+    public WordSketches getWordSketches() {
+        return wordSketches;
+    }
+    
+    /**
+     * Files larger than this are not read; they get error statistics
+     * @param maxFileBytes Largest size in bytes, 0 for no limit
+     */
+    public void setMaxFileBytes(long maxFileBytes) {
+        if (maxFileBytes < 0) {
+            throw new IllegalArgumentException("Size limit must not be negative: " + maxFileBytes);
+        }
+        this.maxFileBytes = maxFileBytes;
+    }
+    
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+    
+    /**
+     * Files still being read after this time are given up with error statistics
+     * The limit is checked between the chunks of a file, so a file stops
+     * within one chunk of it (in FULL_TEXT mode the analysis of the whole
+     * text at the end is not interrupted).
+     * @param millis Time limit per file, 0 for no limit
+     */
+    public void setFileTimeLimit(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative: " + millis);
+        }
+        this.timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+    
+    public long getFileTimeLimit() {
+        return TimeUnit.NANOSECONDS.toMillis(timeLimitNanos);
+    }
+    
+    /**
+     * Records the read and analyze time, bytes and words of every file
+     * @param metrics Where to record, or null to measure nothing
+     */
+    public void setMetrics(ProcessingMetrics metrics) {
+        this.metrics = metrics;
+    }
+    
+    public ProcessingMetrics getMetrics() {
+        return metrics;
     }
     
     /**
@@ -28,61 +265,650 @@ public class FileProcessor {
      * @return FileStats object containing all statistics, or null if error
      */
     public FileStats processFile(Path filePath) {
-        if (filePath == null || !Files.exists(filePath)) {
+        ProcessingMetrics metrics = this.metrics;
+        ProcessingContext context = acquireContext();
+        try {
+            ProcessingMetrics.FileTimer timer = null;
+            if (metrics != null) {
+                timer = context.timer;
+                timer.restart();
+            }
+            FileStats stats = processFile(filePath, context, timer);
+            if (metrics != null) {
+                metrics.recordFile(timer, stats);
+            }
+            return stats;
+        } finally {
+            releaseContext(context);
+        }
+    }
+    
+    /**
+     * Processes a file with the buffers and tokenizer of the context,
+     * marking the read intervals on the timer (if not null)
+     */
+    private FileStats processFile(Path filePath, ProcessingContext context, ProcessingMetrics.FileTimer timer) {
+        if (filePath == null) {
             return null;
         }
         
         String fileName = filePath.getFileName().toString();
+        context.deadline = timeLimitNanos > 0 ? System.nanoTime() + timeLimitNanos : 0;
         
         try {
-            // Read file content
-            String content = readFileContent(filePath);
-            
-            // Analyze the content
-            java.util.Map<String, Object> results = wordAnalyzer.analyzeText(content);
+            long size = Files.size(filePath);
+            if (timer != null) {
+                timer.setBytes(size);
+            }
+            checkSize(size);
+            // A phrase could span two ranges, so files are not split when phrases are counted
+            if (rangePool != null && isAsciiCompatible(charset)
+                    && (termMatcher == null || !termMatcher.hasPhrases())
+                    && size >= parallelThreshold) {
+                return processFileInRanges(filePath, fileName, context.deadline);
+            }
             
-            // Create and populate FileStats object
-            FileStats fileStats = new FileStats(fileName, filePath.toString());
-            fileStats.setWordCount((Integer) results.get("wordCount"));
-            fileStats.setIsCount((Integer) results.get("isCount"));
-            fileStats.setAreCount((Integer) results.get("areCount"));
-            fileStats.setYouCount((Integer) results.get("youCount"));
-            fileStats.setLongestWord((String) results.get("longestWord"));
-            fileStats.setShortestWord((String) results.get("shortestWord"));
+            WordTokenizer tokenizer = context.tokenizer;
+            resetTokenizer(tokenizer);
+            if (readMode == ReadMode.MAPPED && isAsciiCompatible(charset)) {
+                readMapped(filePath, context, tokenizer, timer);
+            } else if (readMode == ReadMode.STREAMING || readMode == ReadMode.MAPPED) {
+                // MAPPED falls back here for charsets where bytes aren't chars (UTF-16, ...)
+                readDecoded(filePath, context, context.charBuffer, tokenizer, timer);
+            } else {
+                // Full text: the whole file is decoded into one buffer, then analyzed
+                CharBuffer text = context.textBuffer(fullTextLength(size, context));
+                readDecoded(filePath, context, text, tokenizer, timer);
+            }
+            tokenizer.finish();
             
-            return fileStats;
+            return createFileStats(fileName, filePath, tokenizer);
             
+        } catch (NoSuchFileException e) {
+            // Deleted since discovery
+            return null;
+        } catch (InterruptedIOException | ClosedByInterruptException e) {
+            // The run was stopped; its results are no longer recorded
+            Thread.currentThread().interrupt();
+            return null;
         } catch (IOException e) {
-            System.err.println("Error processing file: " + fileName + " - " + e.getMessage());
+            LOGGER.warning("Error processing file: " + fileName + " - " + e.getMessage());
             return createErrorFileStats(fileName, filePath.toString(), e.getMessage());
         } catch (Exception e) {
-            System.err.println("Unexpected error processing file: " + fileName + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "Unexpected error processing file: " + fileName, e);
             return createErrorFileStats(fileName, filePath.toString(), "Unexpected error");
         }
     }
     
     /**
-     * Reads the entire content of a file
+     * Reads a whole file into memory so that the I/O can be done on one thread
+     * (e.g. a virtual thread) and the analysis on another
+     * 
+     * @return The file bytes, or null if the file is larger than the preload limit
+     *         (read it with openParts instead)
+     */
+    public byte[] preloadFile(Path filePath) throws IOException {
+        long size = Files.size(filePath);
+        checkSize(size);
+        if (size > PRELOAD_LIMIT) {
+            return null;
+        }
+        return Files.readAllBytes(filePath);
+    }
+    
+    /**
+     * Analyzes a file whose bytes were loaded with preloadFile
+     * The bytes are decoded like processFile does (malformed input gives error
+     * statistics); only MAPPED mode with an ASCII-compatible charset uses the
+     * byte-level tokenizer.
+     * 
+     * @return FileStats object containing all statistics, or error statistics
+     */
+    public FileStats processPreloaded(Path filePath, byte[] content) {
+        return processPreloaded(filePath, content, 0);
+    }
+    
+    /**
+     * Analyzes a file whose bytes were loaded with preloadFile
+     * The per-file time limit covers the preloading and the analysis.
+     * @param readNanos How long preloading took, for the metrics and the time limit
+     * @return FileStats object containing all statistics, error statistics,
+     *         or null if the run was stopped
+     */
+    public FileStats processPreloaded(Path filePath, byte[] content, long readNanos) {
+        ProcessingMetrics metrics = this.metrics;
+        ProcessingContext context = acquireContext();
+        try {
+            context.deadline = timeLimitNanos > 0 ? System.nanoTime() - readNanos + timeLimitNanos : 0;
+            ProcessingMetrics.FileTimer timer = null;
+            if (metrics != null) {
+                timer = context.timer;
+                timer.restart();
+                timer.addEarlierRead(readNanos);
+                timer.setBytes(content.length);
+            }
+            FileStats stats = analyzePreloaded(filePath, content, context);
+            if (metrics != null) {
+                metrics.recordFile(timer, stats);
+            }
+            return stats;
+        } finally {
+            releaseContext(context);
+        }
+    }
+    
+    private FileStats analyzePreloaded(Path filePath, byte[] content, ProcessingContext context) {
+        String fileName = filePath.getFileName().toString();
+        WordTokenizer tokenizer = context.tokenizer;
+        resetTokenizer(tokenizer);
+        
+        try {
+            boolean bytesOnly = readMode == ReadMode.MAPPED && isAsciiCompatible(charset);
+            CharsetDecoder decoder = context.decoder.reset();
+            context.charBuffer.clear();
+            // In chunks of the read buffer's size, checking the limits in between like processFile
+            ByteBuffer bytes = ByteBuffer.wrap(content);
+            int chunkSize = context.byteBuffer.capacity();
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                checkLimits(context.deadline);
+                bytes.limit(Math.min(bytes.position() + chunkSize, content.length));
+                endOfInput = bytes.limit() == content.length;
+                if (bytesOnly) {
+                    tokenizer.feed(bytes.slice());
+                    bytes.position(bytes.limit());
+                } else {
+                    // An incomplete char at the end of the chunk stays for the next one
+                    decode(decoder, bytes, context.charBuffer, endOfInput, tokenizer);
+                }
+            }
+            tokenizer.finish();
+            return createFileStats(fileName, filePath, tokenizer);
+            
+        } catch (InterruptedIOException e) {
+            // The run was stopped; its results are no longer recorded
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (IOException e) {
+            LOGGER.warning("Error processing file: " + fileName + " - " + e.getMessage());
+            return createErrorFileStats(fileName, filePath.toString(), e.getMessage());
+        }
+    }
+    
+    /**
+     * Opens a file too large to preload, to be read and analyzed in parts
      */
-    private String readFileContent(Path filePath) throws IOException {
-        // Using Files.readString for Java 11+ (simpler)
-        // For compatibility with older Java, we can use BufferedReader
-        StringBuilder content = new StringBuilder();
+    public PartReader openParts(Path filePath) {
+        return new PartReader(filePath);
+    }
+    
+    /**
+     * A file read and analyzed one part at a time, possibly on two threads:
+     * readPart runs where the I/O is done (e.g. a virtual thread), analyzePart
+     * and finish where the analysis is done. The calls must alternate, never
+     * overlap: readPart, analyzePart, readPart, ..., then finish once readPart
+     * returns false. Decoding, limits and error statistics are those of processFile.
+     */
+    public final class PartReader implements Closeable {
+        
+        private final Path filePath;
+        private final String fileName;
+        private final ProcessingContext context; // its own: the thread changes between calls
+        private final ByteBuffer part;
+        private final boolean bytesOnly;
+        private final ProcessingMetrics metrics;
+        private final ProcessingMetrics.FileTimer timer;
+        private FileChannel channel;
+        private boolean endOfInput;
+        private Exception failure; // reported by finish
+        
+        /**
+         * Constructor
+         */
+        private PartReader(Path filePath) {
+            this.filePath = filePath;
+            this.fileName = filePath.getFileName().toString();
+            this.context = newContext();
+            this.part = ByteBuffer.allocate(PART_SIZE);
+            this.bytesOnly = readMode == ReadMode.MAPPED && isAsciiCompatible(charset);
+            this.metrics = FileProcessor.this.metrics;
+            this.timer = metrics != null ? context.timer : null;
+            if (timer != null) {
+                timer.restart();
+            }
+            resetTokenizer(context.tokenizer);
+            context.decoder.reset();
+            context.charBuffer.clear();
+            context.deadline = timeLimitNanos > 0 ? System.nanoTime() + timeLimitNanos : 0;
+        }
+        
+        /**
+         * Reads the next part of the file
+         * @return false once the whole file was read, or after an error
+         * @throws IOException only if the thread was interrupted (the run was stopped)
+         */
+        public boolean readPart() throws IOException {
+            if (endOfInput || failure != null) {
+                return false;
+            }
+            try {
+                checkLimits(context.deadline);
+                if (channel == null) {
+                    channel = FileChannel.open(filePath, StandardOpenOption.READ);
+                    long size = channel.size();
+                    if (timer != null) {
+                        timer.setBytes(size);
+                    }
+                    checkSize(size);
+                }
+                if (timer != null) {
+                    timer.startRead();
+                }
+                while (part.hasRemaining() && !endOfInput) {
+                    endOfInput = channel.read(part) < 0;
+                }
+                if (timer != null) {
+                    timer.endRead();
+                }
+                return true;
+            } catch (InterruptedIOException | ClosedByInterruptException e) {
+                throw e;
+            } catch (IOException e) {
+                failure = e;
+                return false;
+            }
+        }
+        
+        /**
+         * Analyzes the part read last
+         */
+        public void analyzePart() {
+            if (failure != null) {
+                return;
+            }
+            try {
+                checkLimits(context.deadline);
+                part.flip();
+                if (bytesOnly) {
+                    context.tokenizer.feed(part);
+                    part.clear();
+                } else {
+                    decode(context.decoder, part, context.charBuffer, endOfInput, context.tokenizer);
+                    // An incomplete char at the end of the part stays for the next one
+                    part.compact();
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+        
+        /**
+         * Statistics of the whole file
+         * @return FileStats, error statistics, or null if the file was deleted or the run stopped
+         */
+        public FileStats finish() {
+            FileStats stats;
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                context.tokenizer.finish();
+                stats = createFileStats(fileName, filePath, context.tokenizer);
+            } catch (NoSuchFileException e) {
+                // Deleted since discovery
+                stats = null;
+            } catch (InterruptedIOException | ClosedByInterruptException e) {
+                // The run was stopped; its results are no longer recorded
+                return null;
+            } catch (IOException e) {
+                LOGGER.warning("Error processing file: " + fileName + " - " + e.getMessage());
+                stats = createErrorFileStats(fileName, filePath.toString(), e.getMessage());
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Unexpected error processing file: " + fileName, e);
+                stats = createErrorFileStats(fileName, filePath.toString(), "Unexpected error");
+            }
+            if (metrics != null) {
+                metrics.recordFile(timer, stats);
+            }
+            return stats;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+    
+    /**
+     * Reads the file through the context's byte buffer and decodes it into target
+     * Whenever target is full, and at the end, its chars go to the tokenizer: a
+     * small target streams the file (memory bounded by the buffers), a target
+     * as large as the file holds the whole text before it is analyzed.
+     * Malformed input is reported as an IOException, like a decoding reader does.
+     */
+    private void readDecoded(Path filePath, ProcessingContext context, CharBuffer target,
+                             WordTokenizer tokenizer, ProcessingMetrics.FileTimer timer) throws IOException {
+        ByteBuffer bytes = context.byteBuffer;
+        CharsetDecoder decoder = context.decoder.reset();
+        bytes.clear();
+        target.clear();
+        
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                checkLimits(context.deadline);
+                if (timer != null) {
+                    timer.startRead();
+                }
+                endOfInput = channel.read(bytes) < 0;
+                if (timer != null) {
+                    timer.endRead();
+                }
+                bytes.flip();
+                decode(decoder, bytes, target, endOfInput, tokenizer);
+                // An incomplete char at the end of the chunk stays for the next read
+                bytes.compact();
+            }
+        }
+    }
+    
+    /**
+     * Decodes bytes into target, feeding target to the tokenizer whenever it fills up
+     * At the end of the input the decoder is flushed and the rest of target is fed.
+     */
+    private static void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer target,
+                               boolean endOfInput, WordTokenizer tokenizer) throws CharacterCodingException {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, target, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (!result.isOverflow()) {
+                break;
+            }
+            feed(target, tokenizer);
+        }
+        if (endOfInput) {
+            while (decoder.flush(target).isOverflow()) {
+                feed(target, tokenizer);
+            }
+            feed(target, tokenizer);
+        }
+    }
+    
+    /**
+     * Hands the chars decoded so far to the tokenizer and empties the buffer
+     */
+    private static void feed(CharBuffer chars, WordTokenizer tokenizer) {
+        chars.flip();
+        tokenizer.feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        chars.clear();
+    }
+    
+    /**
+     * Chars needed for the whole text of a file of the given size (a bit more is harmless:
+     * if the file grew meanwhile, readDecoded analyzes the text in parts)
+     */
+    private static int fullTextLength(long size, ProcessingContext context) {
+        double chars = Math.ceil(size * (double) context.decoder.maxCharsPerByte());
+        return (int) Math.min(MAX_FULL_TEXT_CHARS, chars + 1);
+    }
+    
+    /**
+     * Mapped mode: the bytes are tokenized without decoding to UTF-16.
+     * Large files are memory-mapped and unmapped as soon as the arena closes;
+     * small files are read through the context's buffer (mapping costs more
+     * than reading them).
+     */
+    private void readMapped(Path filePath, ProcessingContext context, WordTokenizer tokenizer,
+                            ProcessingMetrics.FileTimer timer) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            
+            if (size >= MAP_THRESHOLD) {
+                feedMapped(channel, 0, size, tokenizer, context.deadline, null);
+                return;
+            }
+            ByteBuffer buffer = context.byteBuffer;
+            while (true) {
+                checkLimits(context.deadline);
+                buffer.clear();
+                if (timer != null) {
+                    timer.startRead();
+                }
+                int read = channel.read(buffer);
+                if (timer != null) {
+                    timer.endRead();
+                }
+                if (read < 0) {
+                    break;
+                }
+                buffer.flip();
+                tokenizer.feed(buffer);
+            }
+        }
+    }
+    
+    /**
+     * Maps [start, end) of the channel and feeds it to the tokenizer.
+     * The mapping is released when the arena closes.
+     * @param cancelled Checked with the time limit between windows (null if the thread's interrupt is enough)
+     */
+    private void feedMapped(FileChannel channel, long start, long end, WordTokenizer tokenizer,
+                            long deadline, BooleanSupplier cancelled) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start, arena);
+            // Walk the mapping in windows (a ByteBuffer view is limited to 2 GB)
+            for (long offset = 0; offset < segment.byteSize(); offset += MAP_WINDOW) {
+                checkLimits(deadline);
+                if (cancelled != null && cancelled.getAsBoolean()) {
+                    throw new InterruptedIOException("Processing was stopped");
+                }
+                long length = Math.min(MAP_WINDOW, segment.byteSize() - offset);
+                tokenizer.feed(segment.asSlice(offset, length).asByteBuffer());
+            }
+        }
+    }
+    
+    /**
+     * Intra-file parallel mode: the file is cut into word-aligned byte ranges
+     * that are analyzed by the fork/join pool, then merged back into one FileStats
+     * The calling thread waits interruptibly: when it is interrupted (the run
+     * was stopped) the ranges are cancelled and give up at their next window.
+     */
+    private FileStats processFileInRanges(Path filePath, String fileName, long deadline) throws IOException {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            FileRangeTask task = new FileRangeTask(this, filePath, channel, 0, channel.size(), rangeSize,
+                deadline, cancelled::get);
+            FileStats fileStats = rangePool.submit(task).get();
+            fileStats.setFileName(fileName);
+            fileStats.setFilePath(filePath.toString());
+            return fileStats;
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            throw new InterruptedIOException("Processing was stopped");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+    
+    /**
+     * Analyzes the bytes [start, end) of a file on their own.
+     * The range must start and end on word boundaries (see findWordBoundary).
+     * 
+     * @return FileStats for that part of the file only
+     */
+    public FileStats processRange(Path filePath, FileChannel channel, long start, long end) throws IOException {
+        return processRange(filePath, channel, start, end, 0, null);
+    }
+    
+    /**
+     * Analyzes the bytes [start, end) of a file on their own, giving up at the
+     * deadline or once cancelled returns true
+     * @param deadline System.nanoTime() by which the whole file must be done, 0 for none
+     * @param cancelled Cancellation signal of the whole file, or null
+     */
+    public FileStats processRange(Path filePath, FileChannel channel, long start, long end,
+                                  long deadline, BooleanSupplier cancelled) throws IOException {
+        ProcessingContext context = acquireContext();
+        try {
+            WordTokenizer tokenizer = context.tokenizer;
+            resetTokenizer(tokenizer);
+            if (end > start) {
+                feedMapped(channel, start, end, tokenizer, deadline, cancelled);
+            }
+            tokenizer.finish();
+            
+            return createFileStats(filePath.getFileName().toString(), filePath, tokenizer);
+        } finally {
+            releaseContext(context);
+        }
+    }
+    
+    /**
+     * Moves a split position forward until it no longer falls inside a word
+     * 
+     * @return The first position >= position that is not a letter, or end
+     */
+    public long findWordBoundary(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
         
-        try (BufferedReader reader = Files.newBufferedReader(filePath)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append(" ");
+        while (position < end) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return end;
             }
+            for (int i = 0; i < read && position < end; i++, position++) {
+                if (!WordTokenizer.isLetter((char) (buffer.get(i) & 0xFF))) {
+                    return position;
+                }
+            }
+        }
+        return end;
+    }
+    
+    /**
+     * True if ASCII letters are single bytes and no other byte sequence contains them,
+     * which is what the byte-level tokenizer relies on
+     */
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+            || charset.equals(StandardCharsets.US_ASCII)
+            || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * Rejects files above the size limit
+     */
+    private void checkSize(long size) throws IOException {
+        if (maxFileBytes > 0 && size > maxFileBytes) {
+            throw new IOException("File exceeds the size limit (" + size + " > " + maxFileBytes + " bytes)");
+        }
+    }
+    
+    /**
+     * Gives up on a file whose time limit has passed, or whose run was
+     * stopped (the worker thread is interrupted)
+     * @param deadline System.nanoTime() by which the file must be done, 0 for none
+     */
+    private void checkLimits(long deadline) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Processing was stopped");
+        }
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            throw new IOException("Time limit exceeded ("
+                + TimeUnit.NANOSECONDS.toMillis(timeLimitNanos) + " ms)");
         }
+    }
+    
+    /**
+     * Copies the tokenizer results into a new FileStats object
+     */
+    private FileStats createFileStats(String fileName, Path filePath, WordTokenizer tokenizer) {
+        FileStats fileStats = new FileStats(fileName, filePath.toString());
+        fileStats.updateStats(tokenizer.getWordCount(), tokenizer.getIsCount(),
+            tokenizer.getAreCount(), tokenizer.getYouCount(),
+            tokenizer.getLongestWord(), tokenizer.getShortestWord());
+        fileStats.setWordLengths(tokenizer.getWordLengths());
         
-        return content.toString();
+        WordFrequencyTable frequencies = tokenizer.getFrequencyTable();
+        if (frequencies != null) {
+            frequencies.trimToSize(); // the table lives as long as the FileStats
+            fileStats.setWordFrequencies(frequencies);
+        }
+        if (tokenizer.getTermCounts() != null) {
+            fileStats.setTermCounts(tokenizer.getTermCounts().clone());
+        }
+        WordSketches sketches = tokenizer.getWordSketches();
+        if (sketches != null) {
+            sketches.trimToSize();
+            fileStats.setWordSketches(sketches);
+        }
+        return fileStats;
+    }
+    
+    /**
+     * The calling thread's context, created on first use and again after the settings changed
+     * Virtual threads (one per task, nothing to reuse) and nested calls on a
+     * thread whose context is busy get a temporary context.
+     */
+    private ProcessingContext acquireContext() {
+        if (Thread.currentThread().isVirtual()) {
+            return newContext();
+        }
+        ProcessingContext context = contexts.get();
+        if (context != null && context.inUse) {
+            return newContext();
+        }
+        if (context == null || context.configVersion != configVersion) {
+            context = newContext();
+            contexts.set(context);
+        }
+        context.inUse = true;
+        return context;
+    }
+    
+    private void releaseContext(ProcessingContext context) {
+        context.inUse = false;
+    }
+    
+    private ProcessingContext newContext() {
+        WordTokenizer tokenizer = new WordTokenizer();
+        tokenizer.setTermMatcher(termMatcher);
+        return new ProcessingContext(configVersion, bufferSize, charset, tokenizer);
+    }
+    
+    /**
+     * Clears a reused tokenizer and gives it new tables (the last file's FileStats keeps the old ones)
+     */
+    private void resetTokenizer(WordTokenizer tokenizer) {
+        tokenizer.reset();
+        if (countWordFrequencies) {
+            tokenizer.setFrequencyTable(new WordFrequencyTable());
+        }
+        if (wordSketches != null) {
+            tokenizer.setWordSketches(wordSketches.emptyCopy());
+        }
     }
     
     /**
      * Creates a FileStats object for files that couldn't be processed
      */
-    private FileStats createErrorFileStats(String fileName, String filePath, String error) {
+    public FileStats createErrorFileStats(String fileName, String filePath, String error) {
         FileStats errorStats = new FileStats(fileName, filePath);
         errorStats.setWordCount(0);
         errorStats.setIsCount(0);
@@ -90,6 +916,7 @@ public class FileProcessor {
         errorStats.setYouCount(0);
         errorStats.setLongestWord("ERROR: " + error);
         errorStats.setShortestWord("ERROR");
+        errorStats.setError(true);
         return errorStats;
     }
     
@@ -0,0 +1,71 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import metrics.ProcessingMetrics;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+
+/**
+ * Reusable state of one worker thread in FileProcessor
+ * Holds what used to be allocated for every file: the read buffer (direct,
+ * so channel reads need no extra copy), the char buffer and the decoder, the
+ * tokenizer and the metrics timer. FileProcessor keeps one context per
+ * thread; per file only the result (FileStats and what it holds) and the
+ * file channel are left to allocate.
+ * A context is used by one file at a time: inUse marks it while a file is
+ * processed, so a nested call on the same thread gets a temporary context.
+ */
+final class ProcessingContext {
+    
+    // Smallest buffers: a char or an encoded char must always fit
+    private static final int MIN_BUFFER_SIZE = 64;
+    
+    // FULL_TEXT: a text buffer up to this size is kept for the next file
+    private static final int MAX_RETAINED_TEXT_CHARS = 1024 * 1024;
+    
+    final int configVersion;
+    final ByteBuffer byteBuffer;
+    final CharBuffer charBuffer;
+    final CharsetDecoder decoder;
+    final WordTokenizer tokenizer;
+    final ProcessingMetrics.FileTimer timer;
+    boolean inUse;
+    long deadline; // time limit of the current file (System.nanoTime()), 0 = none
+    private CharBuffer text; // FULL_TEXT, grown to the largest file so far
+    
+    /**
+     * Constructor
+     *
+     * @param configVersion Settings the context was made for (see FileProcessor)
+     * @param bufferSize Size of the read buffer in bytes and of the char buffer in chars
+     * @param tokenizer Tokenizer with the configured terms (reset per file by the caller)
+     */
+    ProcessingContext(int configVersion, int bufferSize, Charset charset, WordTokenizer tokenizer) {
+        this.configVersion = configVersion;
+        this.byteBuffer = ByteBuffer.allocateDirect(Math.max(bufferSize, MIN_BUFFER_SIZE));
+        this.charBuffer = CharBuffer.allocate(Math.max(bufferSize, MIN_BUFFER_SIZE));
+        this.decoder = charset.newDecoder();
+        this.tokenizer = tokenizer;
+        this.timer = new ProcessingMetrics.FileTimer();
+    }
+    
+    /**
+     * A char buffer of at least the given length for the whole text of a file
+     * Kept for the next file unless it is larger than the retention limit.
+     */
+    CharBuffer textBuffer(int length) {
+        if (text != null && text.capacity() >= length) {
+            return text;
+        }
+        CharBuffer buffer = CharBuffer.allocate(Math.max(length, MIN_BUFFER_SIZE));
+        if (length <= MAX_RETAINED_TEXT_CHARS) {
+            text = buffer;
+        }
+        return buffer;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import model.GlobalStats;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Handle of one run of StatisticsManager
+ * The run ends exactly once: it completes, is cancelled, times out, finds
+ * no files or fails. Its result completes with the statistics of every file recorded
+ * until then, so a cancelled run still yields consistent partial totals:
+ * workers record a result only while the run is still running, and ending
+ * the run waits for the results being recorded at that moment.
+ * The run also holds its progress counters, so threads of an older run that
+ * are still winding down never touch the progress of the next one.
+ */
+public class ProcessingRun {
+    
+    /**
+     * Where the run stands
+     */
+    public enum State {
+        RUNNING,
+        /** Every file was processed */
+        COMPLETED,
+        /** Stopped by cancel() or StatisticsManager.stopProcessing() */
+        CANCELLED,
+        /** Stopped when the run time limit was reached */
+        TIMED_OUT,
+        /** Ended early: no text files found, or discovery failed (see getResult()) */
+        FAILED
+    }
+    
+    private final StatisticsManager manager;
+    private final String directoryPath;
+    private final long startTime;
+    private final AtomicReference<State> state;
+    private final CompletableFuture<GlobalStats> result;
+    
+    // Read side: a worker recording a result; write side: ending the run
+    private final StampedLock recording;
+    private final Lock recordLock;
+    
+    // Executors of the run (the analysis pool only with virtual threads)
+    private volatile ExecutorService executor;
+    private volatile ExecutorService cpuPool;
+    
+    // Progress, updated by the discovery thread and the workers of this run
+    private final AtomicInteger processedCount;
+    private final AtomicInteger discoveredCount;
+    private volatile int totalFiles;
+    private volatile boolean discoveryComplete;
+    private volatile boolean planned; // all files were known up front and scheduled
+    
+    /**
+     * Constructor
+     */
+    ProcessingRun(StatisticsManager manager, String directoryPath) {
+        this.manager = manager;
+        this.directoryPath = directoryPath;
+        this.startTime = System.nanoTime();
+        this.state = new AtomicReference<>(State.RUNNING);
+        this.result = new CompletableFuture<>();
+        this.recording = new StampedLock();
+        this.recordLock = recording.asReadLock();
+        this.processedCount = new AtomicInteger();
+        this.discoveredCount = new AtomicInteger();
+    }
+    
+    public String getDirectoryPath() {
+        return directoryPath;
+    }
+    
+    public State getState() {
+        return state.get();
+    }
+    
+    public boolean isDone() {
+        return state.get() != State.RUNNING;
+    }
+    
+    /**
+     * Files recorded so far (with or without statistics)
+     */
+    public int getProcessedFiles() {
+        return processedCount.get();
+    }
+    
+    /**
+     * Files to process: all of them once discovery is over, the ones found so far until then
+     */
+    public int getTotalFiles() {
+        return discoveryComplete ? totalFiles : discoveredCount.get();
+    }
+    
+    public boolean isDiscoveryComplete() {
+        return discoveryComplete;
+    }
+    
+    /**
+     * Time since the run started (until now, also after it ended)
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startTime) / 1_000_000;
+    }
+    
+    /**
+     * Completes with the final statistics, or the partial ones of a cancelled
+     * or timed-out run; completes exceptionally if the run failed
+     * Cancelling the returned future does not stop the run, cancel() does.
+     */
+    public CompletableFuture<GlobalStats> getResult() {
+        return result.copy();
+    }
+    
+    /**
+     * Stops the run: queued files are dropped, files being read are interrupted
+     * Returns once the statistics are final. Must not be called from the
+     * listener's onFileProcessed / onFilesProcessed (they run while a result
+     * is being recorded).
+     *
+     * @return false if the run had already ended
+     */
+    public boolean cancel() {
+        return manager.endRun(this, State.CANCELLED);
+    }
+    
+    /**
+     * Called by a worker before it records a result
+     * @return false if the run has ended (the result is dropped); otherwise
+     *         the run cannot end until endRecording is called
+     */
+    boolean beginRecording() {
+        recordLock.lock();
+        if (isDone()) {
+            recordLock.unlock();
+            return false;
+        }
+        return true;
+    }
+    
+    void endRecording() {
+        recordLock.unlock();
+    }
+    
+    /**
+     * Counts recorded files
+     * @return Files recorded so far, including these
+     */
+    int addProcessed(int count) {
+        return processedCount.addAndGet(count);
+    }
+    
+    /**
+     * Counts a file found while discovery is still running
+     */
+    void fileDiscovered() {
+        discoveredCount.incrementAndGet();
+    }
+    
+    int getDiscoveredFiles() {
+        return discoveredCount.get();
+    }
+    
+    /**
+     * Fixes the number of files once discovery is over
+     */
+    void discoveryFinished(int total) {
+        discoveredCount.set(total);
+        totalFiles = total;
+        discoveryComplete = true;
+    }
+    
+    /**
+     * True once discovery is over and every file it found was recorded
+     */
+    boolean isAllProcessed() {
+        return discoveryComplete && processedCount.get() >= totalFiles;
+    }
+    
+    void setPlanned() {
+        planned = true;
+    }
+    
+    boolean isPlanned() {
+        return planned;
+    }
+    
+    /**
+     * Moves the run to its final state once no result is being recorded
+     * @return false if it had already ended
+     */
+    boolean end(State finalState) {
+        long stamp = recording.writeLock();
+        try {
+            return state.compareAndSet(State.RUNNING, finalState);
+        } finally {
+            recording.unlockWrite(stamp);
+        }
+    }
+    
+    /**
+     * Attaches the executors of the run; if it already ended they are stopped right away
+     */
+    void setExecutors(ExecutorService executor, ExecutorService cpuPool) {
+        this.executor = executor;
+        this.cpuPool = cpuPool;
+        if (isDone()) {
+            shutdownExecutors(true);
+        }
+    }
+    
+    /**
+     * Stops the executors of the run, if attached
+     * @param now Also drop the queued tasks and interrupt the running ones (the run was stopped)
+     */
+    void shutdownExecutors(boolean now) {
+        for (ExecutorService service : new ExecutorService[] {executor, cpuPool}) {
+            if (service == null) {
+                continue;
+            }
+            if (now) {
+                service.shutdownNow();
+            } else {
+                service.shutdown();
+            }
+        }
+    }
+    
+    void complete(GlobalStats globalStats) {
+        result.complete(globalStats);
+    }
+    
+    void fail(Throwable cause) {
+        result.completeExceptionally(cause);
+    }
+}
\ No newline at end of file
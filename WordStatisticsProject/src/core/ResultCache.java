@@ -0,0 +1,355 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import model.FileStats;
+import model.LengthHistogram;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32C;
+
+/**
+ * Persistent cache of per-file results, used for incremental re-scans
+ * An entry is reused when the file still has the same size and modification
+ * time (and, if enabled, the same CRC32C of its content) as when it was read
+ * for the cached result. Only changed or new files are analyzed again; files
+ * that disappeared from the scanned directory are dropped at the end of the
+ * scan. Entries hold for one charset and read mode: the cache is emptied when
+ * they change.
+ *
+ * On-disk format (big-endian, written with DataOutputStream):
+ *   int magic "WSC1", short version, settings (charset and read mode),
+ *   int entry count, then per entry:
+ *   path, long size, long mtime, long hash, long word/is/are/you counts,
+ *   longest word, shortest word, byte bucket count + long per word-length
+ *   bucket, long total word length (version 2).
+ *   Strings are an int byte length followed by UTF-8 bytes.
+ *
+ * Thread-safe: lookups and puts can come from all worker threads.
+ */
+public class ResultCache {
+    
+    private static final Logger LOGGER = Logger.getLogger(ResultCache.class.getName());
+    
+    private static final int MAGIC = 0x57534331; // "WSC1"
+    private static final short VERSION = 3;
+    
+    // Hash value stored when content hashing is off
+    private static final long NO_HASH = 0;
+    
+    private final Map<String, Entry> entries;
+    private final Set<String> seenInScan;
+    private boolean hashContent;
+    private String settings;
+    
+    // Directory of the current scan (null = none) and whether its subdirectories are scanned
+    private Path scanRoot;
+    private boolean scanSubtree;
+    
+    /**
+     * One cached file: the key data it was computed for and the result
+     */
+    private static final class Entry {
+        final long size;
+        final long modifiedTime;
+        final long hash;
+        final FileStats stats;
+        
+        Entry(long size, long modifiedTime, long hash, FileStats stats) {
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.hash = hash;
+            this.stats = stats;
+        }
+    }
+    
+    /**
+     * Size, mtime and (if enabled) content hash of a file, read before it is analyzed
+     */
+    public static final class FileState {
+        private final long size;
+        private final long modifiedTime;
+        private final long hash;
+        
+        private FileState(long size, long modifiedTime, long hash) {
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.hash = hash;
+        }
+    }
+    
+    // Constructor: empty cache
+    public ResultCache() {
+        this.entries = new ConcurrentHashMap<>();
+        this.seenInScan = ConcurrentHashMap.newKeySet();
+        this.settings = "";
+    }
+    
+    /**
+     * Also compare a CRC32C of the content, not just size and mtime
+     * Catches edits that keep size and mtime, at the cost of reading every file.
+     */
+    public void setHashContent(boolean hashContent) {
+        this.hashContent = hashContent;
+    }
+    
+    public boolean isHashContent() {
+        return hashContent;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Settings the results depend on (charset and read mode)
+     * Entries computed with other settings are dropped.
+     */
+    public void setSettings(String settings) {
+        if (!settings.equals(this.settings)) {
+            entries.clear();
+            this.settings = settings;
+        }
+    }
+    
+    /**
+     * Starts a scan: files under root not looked up before endScan() count as deleted
+     * 
+     * @param root Directory being scanned (entries elsewhere are kept), or null to drop nothing
+     * @param includeSubdirs Whether the files of its subdirectories are scanned too
+     */
+    public void beginScan(Path root, boolean includeSubdirs) {
+        seenInScan.clear();
+        scanRoot = root != null ? root.toAbsolutePath().normalize() : null;
+        scanSubtree = includeSubdirs;
+    }
+    
+    /**
+     * Ends a scan and drops the entries of scanned files that were not seen
+     *
+     * @return Number of entries removed
+     */
+    public int endScan() {
+        int removed = 0;
+        for (String key : entries.keySet()) {
+            if (!seenInScan.contains(key) && isScanned(Paths.get(key))) {
+                entries.remove(key);
+                removed++;
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * True if the current scan walks the file at this (normalized) path
+     */
+    private boolean isScanned(Path path) {
+        if (scanRoot == null) {
+            return false;
+        }
+        return scanSubtree ? path.startsWith(scanRoot) : scanRoot.equals(path.getParent());
+    }
+    
+    /**
+     * Reads what a cached result of the file is checked against
+     * Read it before analyzing the file and pass it to put: a file changed
+     * during the analysis then no longer matches its entry.
+     * The content (if hashed) is read here once for both lookup and put.
+     */
+    public FileState readState(Path filePath) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        long hash = hashContent ? contentHash(filePath) : NO_HASH;
+        return new FileState(attributes.size(), attributes.lastModifiedTime().toMillis(), hash);
+    }
+    
+    /**
+     * Returns the cached result if the file is unchanged, or null
+     * If null is returned the caller should analyze the file and call put().
+     *
+     * @param state State of the file from readState
+     * @return A copy of the cached FileStats, or null on a miss
+     */
+    public FileStats lookup(Path filePath, FileState state) {
+        String key = keyOf(filePath);
+        seenInScan.add(key);
+        
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (state.size != entry.size || state.modifiedTime != entry.modifiedTime
+                || (hashContent && state.hash != entry.hash)) {
+            return null;
+        }
+        
+        // Name/path may differ if the tree was moved; keep the current ones
+        FileStats stats = entry.stats.copy();
+        stats.setFileName(filePath.getFileName().toString());
+        stats.setFilePath(filePath.toString());
+        return stats;
+    }
+    
+    /**
+     * Stores a freshly computed result (error results are not cached)
+     * @param state State of the file from readState, taken before the analysis
+     */
+    public void put(Path filePath, FileState state, FileStats stats) {
+        if (stats == null || stats.isError()) {
+            return;
+        }
+        
+        String key = keyOf(filePath);
+        
+        // Word frequencies and term counts are not cached (they depend on the settings)
+        FileStats cached = stats.copy();
+        cached.setWordFrequencies(null);
+        cached.setTermCounts(null);
+        cached.setWordSketches(null);
+        entries.put(key, new Entry(state.size, state.modifiedTime, state.hash, cached));
+        seenInScan.add(key);
+    }
+    
+    /**
+     * Loads a cache file. A missing or unreadable file gives an empty cache.
+     */
+    public static ResultCache load(Path cacheFile) {
+        ResultCache cache = new ResultCache();
+        if (cacheFile == null || !Files.exists(cacheFile)) {
+            return cache;
+        }
+        
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(cacheFile), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                LOGGER.warning("Ignoring cache file with unknown format: " + cacheFile);
+                return cache;
+            }
+            cache.settings = readString(in);
+            
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = readString(in);
+                long size = in.readLong();
+                long modifiedTime = in.readLong();
+                long hash = in.readLong();
+                
+                FileStats stats = new FileStats(Paths.get(path).getFileName().toString(), path);
+                stats.updateStats(in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                    readString(in), readString(in));
+                long[] lengthCounts = new long[in.readUnsignedByte()];
+                for (int length = 0; length < lengthCounts.length; length++) {
+                    lengthCounts[length] = in.readLong();
+                }
+                stats.setWordLengths(LengthHistogram.of(lengthCounts, in.readLong()));
+                
+                cache.entries.put(path, new Entry(size, modifiedTime, hash, stats));
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not read cache file: " + cacheFile + " - " + e.getMessage());
+            cache.entries.clear();
+        }
+        
+        return cache;
+    }
+    
+    /**
+     * Writes the cache to disk
+     * Written to a temporary file first, then moved over the old one, so a crash
+     * never leaves a half-written cache behind.
+     */
+    public void save(Path cacheFile) throws IOException {
+        Path parent = cacheFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tempFile = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tempFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            writeString(out, settings);
+            
+            // Snapshot so the count matches the entries written
+            Map<String, Entry> snapshot = Map.copyOf(entries);
+            out.writeInt(snapshot.size());
+            
+            for (Map.Entry<String, Entry> mapEntry : snapshot.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                writeString(out, mapEntry.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modifiedTime);
+                out.writeLong(entry.hash);
+                out.writeLong(entry.stats.getWordCount());
+                out.writeLong(entry.stats.getIsCount());
+                out.writeLong(entry.stats.getAreCount());
+                out.writeLong(entry.stats.getYouCount());
+                writeString(out, entry.stats.getLongestWord());
+                writeString(out, entry.stats.getShortestWord());
+                LengthHistogram lengths = entry.stats.getWordLengths() != null
+                    ? entry.stats.getWordLengths() : new LengthHistogram();
+                long[] lengthCounts = lengths.getCounts();
+                out.writeByte(lengthCounts.length);
+                for (long count : lengthCounts) {
+                    out.writeLong(count);
+                }
+                out.writeLong(lengths.getTotalLength());
+            }
+        }
+        
+        Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * CRC32C of the whole file content
+     */
+    public static long contentHash(Path filePath) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+        
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+    
+    /**
+     * Cache key: the absolute, normalized path
+     */
+    private static String keyOf(Path filePath) {
+        return filePath.toAbsolutePath().normalize().toString();
+    }
+    
+    /**
+     * Strings are written as length + UTF-8 bytes (writeUTF is limited to 64 KB)
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt cache entry (negative string length)");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -4,172 +4,1121 @@
  */
 package core;
 
+import model.BatchResult;
 import model.FileStats;
 import model.GlobalStats;
+import model.WordSketches;
 import gui.ProgressListener;
+import metrics.ProcessingMetrics;
+import threading.BatchProcessingTask;
+import threading.ExecutorStrategy;
 import threading.ProcessingTask;
+import threading.SplitIoCpuTask;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletionService; // Added for the efficient solution
-import java.util.concurrent.ExecutorCompletionService; // Added for the efficient solution
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.ExecutionException;// Added for the efficient solution
-import javax.swing.SwingUtilities;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Manages multi-threaded processing of files and coordinates between components
  * This is the brain of the application
- * UPDATED: Uses ExecutorCompletionService to avoid creating unnecessary threads.
+ * UPDATED: Workers add their results to GlobalStats directly (it is lock-free),
+ * so there is no single consumer thread that every result has to pass through.
+ * UPDATED: No GUI dependency; the listener is called directly and decides
+ * itself how events reach its thread (see gui.SwingEventDispatcher).
+ * UPDATED: Every run is measured in ProcessingMetrics (discovery, read and
+ * analyze time, throughput, queue depth, worker utilization); messages go
+ * through java.util.logging instead of stdout.
+ * UPDATED: When all files are found before processing (not pipelined), the
+ * TaskScheduler orders them largest first and batches small files; the run
+ * reports the predicted and the actual makespan.
+ * UPDATED: A batch of small files runs as one BatchProcessingTask (reused
+ * read buffer and tokenizer) and is merged into GlobalStats in one step.
+ * UPDATED: Every run has a ProcessingRun handle that ends exactly once
+ * (completed, cancelled, timed out); a stopped run drops its queued files,
+ * interrupts the ones being read and reports its partial statistics. Only a
+ * few tasks per worker are queued at a time, and files can be limited in
+ * size and time.
  */
 public class StatisticsManager {
     
+    private static final Logger LOGGER = Logger.getLogger(StatisticsManager.class.getName());
+    
     private ExecutorService executorService;
-    // New field for handling results efficiently
-    private CompletionService<FileStats> completionService;
+    // Pool for the ranges of large files (only created when intra-file parallelism is on)
+    private ForkJoinPool rangePool;
     
     private FileDiscoverer fileDiscoverer;
     private FileProcessor fileProcessor;
     private GlobalStats globalStats;
     private ProgressListener progressListener;
     
-    private volatile boolean isProcessing;
+    // The run in progress (null when idle); ends exactly once, see ProcessingRun
+    private final AtomicReference<ProcessingRun> activeRun;
+    
+    // Whole-run time limit in milliseconds (0 = none)
+    private volatile long runTimeoutMillis;
+    
+    // Tasks handed to the executor but not finished, per worker: bounds its queue
+    private static final int IN_FLIGHT_TASKS_PER_WORKER = 4;
+    
+    // Number of worker threads, 0 = one per available processor
+    private volatile int threadCount;
+    
+    // Threads listing directories in parallel, 0 = as many as worker threads
+    private volatile int discoveryThreads;
+    
+    // Pipelined mode: capacity of the queue between discovery and the workers
+    private static final int PIPELINE_QUEUE_CAPACITY = 1024;
+    
+    // Pipelined mode: marker telling a consumer that discovery is over
+    private static final Path END_OF_FILES = Paths.get("");
+    
+    private volatile boolean pipelined;
+    
+    // Default number of files read at the same time with virtual threads
+    public static final int DEFAULT_IO_CONCURRENCY = 64;
+    
+    private volatile ExecutorStrategy executorStrategy;
+    private volatile int ioConcurrency;
+    
+    // Incremental re-scan: results of unchanged files are taken from this cache
+    private volatile Path cacheFile;
+    private volatile boolean cacheContentHash;
+    private volatile ResultCache resultCache;
+    private final AtomicInteger cacheHits;
+    
+    // Watch mode: keeps the statistics current after a run (null when not watching)
+    private DirectoryWatcher directoryWatcher;
+    
+    // Virtual-thread strategy: analysis pool and read limit of the current run
+    private volatile ExecutorService cpuPool;
+    private Semaphore ioPermits;
+    
+    // Order of the work when all files are known up front
+    private final TaskScheduler taskScheduler;
+    
+    // Instrumentation of the runs (recorded while metricsEnabled)
+    private final ProcessingMetrics metrics;
+    private volatile boolean metricsEnabled;
     
     public StatisticsManager() {
         this.fileDiscoverer = new FileDiscoverer();
         this.fileProcessor = new FileProcessor();
         this.globalStats = new GlobalStats();
-        this.isProcessing = false;
+        this.activeRun = new AtomicReference<>();
+        this.executorStrategy = ExecutorStrategy.FIXED_POOL;
+        this.ioConcurrency = DEFAULT_IO_CONCURRENCY;
+        this.cacheHits = new AtomicInteger();
+        this.taskScheduler = new TaskScheduler();
+        this.metrics = new ProcessingMetrics();
+        // Metrics are on by default (see setMetricsEnabled)
+        this.metricsEnabled = true;
+        fileProcessor.setMetrics(metrics);
     }
     
+    /**
+     * Turns the per-file timing on or off (on by default; it costs a few
+     * clock reads and a file size lookup per file)
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        this.metricsEnabled = enabled;
+        fileProcessor.setMetrics(enabled ? metrics : null);
+    }
+    
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+    
+    /**
+     * Metrics of the current or last run; register it with JMX or hand it to
+     * a metrics.MetricsReporter for periodic dumps
+     */
+    public ProcessingMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Sets the listener for progress events
+     * It is called directly on the worker, discovery and watcher threads; a GUI
+     * wraps its listener in a dispatcher that hands the events to its own thread.
+     */
     public void setProgressListener(ProgressListener listener) {
         this.progressListener = listener;
     }
     
     /**
-     * Start processing files in a directory
+     * Sets the number of worker threads (0 = one per available processor)
+     */
+    public void setThreadCount(int threadCount) {
+        if (threadCount < 0) {
+            throw new IllegalArgumentException("Thread count must not be negative: " + threadCount);
+        }
+        this.threadCount = threadCount;
+    }
+    
+    public int getThreadCount() {
+        return threadCount;
+    }
+    
+    /**
+     * Sets the number of threads that walk the directory tree
+     * (0 = as many as worker threads, 1 = a sequential walk)
      */
-    public void processDirectory(String directoryPath, boolean includeSubdirs) {
-        if (isProcessing) {
-            System.out.println("Already processing files!");
+    public void setDiscoveryThreads(int discoveryThreads) {
+        if (discoveryThreads < 0) {
+            throw new IllegalArgumentException("Discovery thread count must not be negative: " + discoveryThreads);
+        }
+        this.discoveryThreads = discoveryThreads;
+    }
+    
+    public int getDiscoveryThreads() {
+        return discoveryThreads;
+    }
+    
+    /**
+     * Selects how files are read (full text, streaming or memory-mapped)
+     */
+    public void setReadMode(FileProcessor.ReadMode readMode) {
+        fileProcessor.setReadMode(readMode);
+    }
+    
+    /**
+     * Enables the full word-frequency table per file and per directory
+     * (GlobalStats.getTopWords). Results from the cache are not reused while
+     * it is on, since the cache only holds the counts.
+     * A file's own table is dropped once the listener got the file, unless
+     * setKeepFileFrequencies is on.
+     */
+    public void setCountWordFrequencies(boolean countWordFrequencies) {
+        fileProcessor.setCountWordFrequencies(countWordFrequencies);
+    }
+    
+    /**
+     * Keeps every file's word-frequency table in GlobalStats after it is merged
+     * Set it before a run that startWatching will follow, so changed and
+     * deleted files are subtracted from the directory table.
+     */
+    public void setKeepFileFrequencies(boolean keepFileFrequencies) {
+        globalStats.setKeepFileFrequencies(keepFileFrequencies);
+    }
+    
+    /**
+     * Enables bounded-memory top words and distinct-word count with the
+     * default error bounds (WordSketches.DEFAULT_TOP_K_ERROR and
+     * WordSketches.DEFAULT_DISTINCT_ERROR), or disables them
+     */
+    public void setWordSketches(boolean enabled) {
+        if (enabled) {
+            setWordSketches(WordSketches.DEFAULT_TOP_K_ERROR, WordSketches.DEFAULT_DISTINCT_ERROR);
+        } else {
+            fileProcessor.setWordSketches(null);
+        }
+    }
+    
+    /**
+     * Enables bounded-memory top words and distinct-word count
+     * Every file is summarized in sketches that are merged into
+     * GlobalStats.getApproximateTopWords / getApproximateDistinctWordCount.
+     * Memory stays bounded by the error settings, whatever the vocabulary.
+     * Cached results are not reused while sketches are on.
+     *
+     * @param topKError Top-word counts are at most this fraction of all words too low
+     * @param distinctError Relative standard error of the distinct-word count
+     * @throws IllegalArgumentException If an error is not between 0 and 1
+     */
+    public void setWordSketches(double topKError, double distinctError) {
+        fileProcessor.setWordSketches(new WordSketches(topKError, distinctError));
+    }
+    
+    /**
+     * Sets the target terms (words or phrases) counted in every file
+     * The terms are compiled once into an automaton shared by all workers. The
+     * counts appear in FileStats.getTermCounts() and GlobalStats.getTermTotals(),
+     * in the order of GlobalStats.getTermNames(). Cached results are not reused
+     * while terms are set.
+     *
+     * @param terms The terms, or null/empty for none
+     * @throws IllegalArgumentException If a term contains no letters
+     */
+    public void setTargetTerms(List<String> terms) {
+        if (isProcessing()) {
+            throw new IllegalStateException("Cannot change the terms while processing");
+        }
+        // Watched statistics were counted with the old terms
+        stopWatching();
+        if (terms == null || terms.isEmpty()) {
+            fileProcessor.setTermMatcher(null);
+            globalStats.setTermNames(List.of());
+            return;
+        }
+        TermMatcher matcher = TermMatcher.compile(terms);
+        fileProcessor.setTermMatcher(matcher);
+        globalStats.setTermNames(matcher.getTerms());
+    }
+    
+    /**
+     * The normalized target terms (empty if none are set)
+     */
+    public List<String> getTargetTerms() {
+        return globalStats.getTermNames();
+    }
+    
+    /**
+     * Enables intra-file parallelism for large files
+     * Files of at least thresholdBytes are split into word-aligned ranges that
+     * are analyzed in parallel, so one huge file no longer runs on a single core.
+     * 
+     * @param thresholdBytes Minimum file size to split, or 0 to disable (and release the pool)
+     */
+    public synchronized void setIntraFileThreshold(long thresholdBytes) {
+        if (thresholdBytes <= 0) {
+            fileProcessor.setRangeParallelism(null, 0, FileProcessor.DEFAULT_RANGE_SIZE);
+            if (rangePool != null) {
+                rangePool.shutdown(); // files already split still finish
+                rangePool = null;
+            }
             return;
         }
+        if (rangePool == null) {
+            rangePool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        fileProcessor.setRangeParallelism(rangePool, thresholdBytes, FileProcessor.DEFAULT_RANGE_SIZE);
+    }
+    
+    /**
+     * Enables the pipelined mode: discovery feeds a bounded queue that the
+     * workers drain while the walk is still running
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+    
+    public boolean isPipelined() {
+        return pipelined;
+    }
+    
+    /**
+     * Selects the order of the work in the non-pipelined mode: LPT (largest
+     * first, small files batched; the default) or FIFO (discovery order)
+     */
+    public void setSchedulingPolicy(TaskScheduler.Policy policy) {
+        taskScheduler.setPolicy(policy);
+    }
+    
+    public TaskScheduler.Policy getSchedulingPolicy() {
+        return taskScheduler.getPolicy();
+    }
+    
+    /**
+     * Most files and bytes per batch of small files (LPT policy)
+     */
+    public void setBatchLimits(int maxFiles, long maxBytes) {
+        taskScheduler.setBatchLimits(maxFiles, maxBytes);
+    }
+    
+    /**
+     * Selects how the per-file work is run (fixed pool by default)
+     */
+    public void setExecutorStrategy(ExecutorStrategy executorStrategy) {
+        this.executorStrategy = executorStrategy != null ? executorStrategy : ExecutorStrategy.FIXED_POOL;
+    }
+    
+    public ExecutorStrategy getExecutorStrategy() {
+        return executorStrategy;
+    }
+    
+    /**
+     * Maximum number of files read at the same time (virtual-thread strategy only)
+     */
+    public void setIoConcurrency(int ioConcurrency) {
+        if (ioConcurrency <= 0) {
+            throw new IllegalArgumentException("I/O concurrency must be positive: " + ioConcurrency);
+        }
+        this.ioConcurrency = ioConcurrency;
+    }
+    
+    public int getIoConcurrency() {
+        return ioConcurrency;
+    }
+    
+    /**
+     * Enables incremental re-scans backed by a cache file
+     * Unchanged files (same size and mtime) are not read again; the cache is
+     * loaded on the next run and saved when the run completes. Results are
+     * kept per charset and read mode (changing them empties the cache).
+     * 
+     * @param cacheFile Where the cache is stored, or null to disable caching
+     */
+    public void setCacheFile(Path cacheFile) {
+        if (cacheFile == null || !cacheFile.equals(this.cacheFile)) {
+            resultCache = null; // (re)loaded on the next run
+        }
+        this.cacheFile = cacheFile;
+    }
+    
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+    
+    /**
+     * Also compare a content hash before reusing a cached result
+     */
+    public void setCacheContentHash(boolean cacheContentHash) {
+        this.cacheContentHash = cacheContentHash;
+    }
+    
+    /**
+     * Files larger than this get error statistics instead of being read (0 = no limit)
+     */
+    public void setMaxFileBytes(long maxFileBytes) {
+        fileProcessor.setMaxFileBytes(maxFileBytes);
+    }
+    
+    /**
+     * Files taking longer than this are given up with error statistics (0 = no limit)
+     */
+    public void setFileTimeLimit(long millis) {
+        fileProcessor.setFileTimeLimit(millis);
+    }
+    
+    /**
+     * Runs taking longer than this are stopped with their partial statistics
+     * (state TIMED_OUT); the time counts from the start of the directory walk
+     * @param millis Time limit per run, 0 for none
+     */
+    public void setRunTimeout(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Time limit must not be negative: " + millis);
+        }
+        this.runTimeoutMillis = millis;
+    }
+    
+    public long getRunTimeout() {
+        return runTimeoutMillis;
+    }
+    
+    /**
+     * Start processing files in a directory
+     * Discovery (and in pipelined mode the whole walk) runs on the calling
+     * thread; the call returns once all files are handed to the workers.
+     * 
+     * @return Handle of the run, to cancel it or wait for its statistics
+     *         (the run in progress if there already is one; the call is then ignored)
+     */
+    public ProcessingRun processDirectory(String directoryPath, boolean includeSubdirs) {
+        ProcessingRun run = beginRun(directoryPath, includeSubdirs);
+        if (run == null) {
+            return activeRun.get();
+        }
+        runDirectory(run, directoryPath, includeSubdirs);
+        return run;
+    }
+    
+    /**
+     * Like processDirectory, but discovery runs on a new thread and the
+     * handle is returned at once
+     */
+    public ProcessingRun startProcessing(String directoryPath, boolean includeSubdirs) {
+        ProcessingRun run = beginRun(directoryPath, includeSubdirs);
+        if (run == null) {
+            return activeRun.get();
+        }
+        Thread discovery = new Thread(() -> runDirectory(run, directoryPath, includeSubdirs),
+            "statistics-discovery");
+        discovery.start();
+        return run;
+    }
+    
+    /**
+     * Makes a new run the active one and resets the state of the last run
+     * @return The new run, or null if another run is in progress
+     */
+    private ProcessingRun beginRun(String directoryPath, boolean includeSubdirs) {
+        ProcessingRun run = new ProcessingRun(this, directoryPath);
+        if (!activeRun.compareAndSet(null, run)) {
+            LOGGER.warning("Already processing files!");
+            return null;
+        }
         
-        // Reset state
+        // A new run replaces the watched statistics
+        stopWatching();
+        
+        // Reset state (the progress counters are the run's own)
         globalStats.reset();
-        isProcessing = true;
+        prepareCache(directoryPath, includeSubdirs);
+        fileDiscoverer.setParallelism(discoveryThreads > 0 ? discoveryThreads : workerThreads());
         
+        long timeout = runTimeoutMillis;
+        if (timeout > 0) {
+            CompletableFuture.delayedExecutor(timeout, TimeUnit.MILLISECONDS)
+                .execute(() -> endRun(run, ProcessingRun.State.TIMED_OUT));
+        }
+        return run;
+    }
+    
+    /**
+     * Finds the files of a run and hands them to the workers
+     * Whatever goes wrong on the way (a bad path, a pool that rejects work)
+     * fails the run, so it never stays active without anyone to end it.
+     */
+    private void runDirectory(ProcessingRun run, String directoryPath, boolean includeSubdirs) {
+        try {
+            if (pipelined) {
+                processDirectoryPipelined(run, directoryPath, includeSubdirs);
+            } else {
+                processDirectoryPlanned(run, directoryPath, includeSubdirs);
+            }
+        } catch (Throwable e) {
+            LOGGER.log(Level.SEVERE, "Processing failed: " + directoryPath, e);
+            failRun(run, "Processing Failed", e);
+        }
+    }
+    
+    /**
+     * All files are found first, then submitted in the order the scheduler planned
+     */
+    private void processDirectoryPlanned(ProcessingRun run, String directoryPath, boolean includeSubdirs) {
         // 1. Initialize Thread Pool
-        int availableProcessors = Runtime.getRuntime().availableProcessors();
-        executorService = Executors.newFixedThreadPool(availableProcessors);
-        
-        // 2. Initialize CompletionService
-        // This acts as a queue for finished tasks so we don't need to wait for them one by one
-        completionService = new ExecutorCompletionService<>(executorService);
+        int availableProcessors = workerThreads();
+        ExecutorService executor = createExecutor(availableProcessors);
+        run.setExecutors(executor, cpuPool);
+        startMetrics(run, availableProcessors, null);
         
-        // 3. Find Files
-        List<Path> textFiles = fileDiscoverer.findTextFiles(directoryPath, includeSubdirs);
+        // 2. Find Files, with the sizes the walk already read
+        List<TaskScheduler.FileEntry> textFiles = Collections.synchronizedList(new ArrayList<>());
+        try {
+            fileDiscoverer.walkTextFiles(directoryPath, includeSubdirs, (path, attrs) -> {
+                if (run.isDone()) {
+                    throw new CancellationException("Processing was stopped");
+                }
+                textFiles.add(new TaskScheduler.FileEntry(path, attrs.size()));
+            });
+        } catch (CancellationException e) {
+            // stopProcessing() was called during the walk
+            return;
+        }
+        metrics.discoveryFinished();
         
         if (textFiles.isEmpty()) {
-            notifyError("No Files", "No text files found in the selected directory");
-            isProcessing = false;
-            executorService.shutdown();
+            failRun(run, "No text files found in the selected directory");
             return;
         }
         
-        notifyProcessingStarted(textFiles.size());
-        System.out.println("Found " + textFiles.size() + " files. Using " + availableProcessors + " threads.");
+        run.discoveryFinished(textFiles.size());
+        notifyProcessingStarted(run, textFiles.size());
+        LOGGER.info("Found " + textFiles.size() + " files. Using " + describeThreads(availableProcessors) + ".");
         
-        // 4. Submit Tasks
-        for (Path filePath : textFiles) {
-            // ProcessingTask must implement Callable<FileStats>
-            ProcessingTask task = new ProcessingTask(filePath, fileProcessor);
-            completionService.submit(task);
+        // 3. Submit Tasks, in the planned order (the pool takes them first in, first out)
+        // Each worker records its own result, so no consumer thread is needed.
+        // Only a few tasks per worker are queued at a time, so the queue (and
+        // the virtual threads) stay small however many files there are.
+        TaskScheduler.Plan plan = taskScheduler.plan(textFiles, availableProcessors);
+        run.setPlanned();
+        metrics.scheduleStarted(plan.getItems().size(), plan.getBatchedFiles(),
+            plan.getExpectedMakespanNanos(), plan.getLowerBoundNanos());
+        int slots = executorStrategy == ExecutorStrategy.VIRTUAL_THREADS ? ioConcurrency : availableProcessors;
+        Semaphore inFlight = new Semaphore(slots * IN_FLIGHT_TASKS_PER_WORKER);
+        try {
+            for (TaskScheduler.WorkItem item : plan.getItems()) {
+                acquire(run, inFlight);
+                List<Path> files = item.getFiles();
+                Runnable work;
+                if (files.size() == 1) {
+                    Callable<FileStats> task = createTask(files.get(0));
+                    work = () -> runTask(run, task);
+                } else {
+                    work = () -> runBatch(run, files);
+                }
+                executor.execute(() -> {
+                    try {
+                        work.run();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (CancellationException | RejectedExecutionException e) {
+            // The run was stopped while tasks were submitted
+        } finally {
+            // We can shutdown the executor now (it will still finish submitted tasks)
+            executor.shutdown();
         }
+    }
+    
+    /**
+     * Takes an in-flight slot, waiting while the workers are busy
+     * Gives up with a CancellationException if the run ended meanwhile.
+     */
+    private static void acquire(ProcessingRun run, Semaphore inFlight) {
+        try {
+            while (!inFlight.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                if (run.isDone()) {
+                    throw new CancellationException("Processing was stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while submitting files");
+        }
+    }
+    
+    /**
+     * Pipelined mode: files are processed while the directory walk is still running
+     * The walk (on the calling thread) puts paths into a bounded queue; one consumer
+     * per worker thread takes them out. The consumers block on the queue and never
+     * fork, so a plain fixed pool runs them (a work-stealing pool would have nothing
+     * to steal). The queue bound keeps memory flat on huge trees: the walk simply
+     * waits when the workers fall behind.
+     */
+    private void processDirectoryPipelined(ProcessingRun run, String directoryPath, boolean includeSubdirs) {
+        int availableProcessors = workerThreads();
+        ExecutorService executor = createExecutor(availableProcessors);
+        // With virtual threads: one virtual consumer per allowed concurrent read
+        int consumers = executorStrategy == ExecutorStrategy.VIRTUAL_THREADS ? ioConcurrency : availableProcessors;
+        run.setExecutors(executor, cpuPool);
+        BlockingQueue<Path> queue = new ArrayBlockingQueue<>(PIPELINE_QUEUE_CAPACITY);
+        startMetrics(run, availableProcessors, queue);
+        
+        // Total is unknown until the walk ends; progress uses the running count until then
+        notifyProcessingStarted(run, 0);
+        
+        try {
+            for (int i = 0; i < consumers; i++) {
+                executor.execute(() -> consumeQueue(run, queue));
+            }
+        } catch (RejectedExecutionException e) {
+            return; // stopped already
+        }
+        
+        int found;
+        try {
+            found = fileDiscoverer.discoverTextFiles(directoryPath, includeSubdirs, path -> {
+                run.fileDiscovered();
+                enqueue(run, queue, path);
+            });
+            // One end marker per consumer so every one of them stops
+            for (int i = 0; i < consumers; i++) {
+                enqueue(run, queue, END_OF_FILES);
+            }
+        } catch (CancellationException e) {
+            // stopProcessing() was called during the walk
+            return;
+        } finally {
+            executor.shutdown();
+        }
+        metrics.discoveryFinished();
+        
+        LOGGER.info("Found " + found + " files. Using " + describeThreads(availableProcessors) + " (pipelined).");
         
-        // We can shutdown the executor immediately (it will still finish submitted tasks)
-        executorService.shutdown();
+        if (found == 0) {
+            failRun(run, "No text files found in the selected directory");
+            return;
+        }
         
-        // 5. Start Single Result Consumer
-        // Instead of creating a thread per file, we create ONE thread to handle ALL results
-        startResultConsumer(textFiles.size());
+        // Firm up the total; the last worker (or this thread) reports completion
+        run.discoveryFinished(found);
+        if (progressListener != null && !run.isDone()) {
+            progressListener.onDiscoveryComplete(found);
+        }
+        checkCompletion(run);
     }
     
     /**
-     * Efficiently consumes results on a SINGLE thread as they complete.
+     * Consumer loop of the pipelined mode: processes paths until the end marker
      */
-    private void startResultConsumer(int totalFiles) {
-        new Thread(() -> {
-            int processedCount = 0;
-            
-            try {
-                for (int i = 0; i < totalFiles; i++) {
-                    // .take() blocks until the NEXT task is finished
-                    // This is much more efficient than checking futures in a loop
-                    Future<FileStats> future = completionService.take();
-                    
-                    try {
-                        FileStats stats = future.get();
-                        
-                        // Update Shared Data
-                        globalStats.addFileStats(stats);
-                        processedCount++;
-                        
-                        // Update GUI
-                        int currentCount = processedCount;
-                        SwingUtilities.invokeLater(() -> {
-                            if (progressListener != null) {
-                                progressListener.onFileProcessed(stats, currentCount, totalFiles);
-                                int progress = (int) ((currentCount / (double) totalFiles) * 100);
-                                progressListener.onProgressUpdate(progress);
-                            }
-                        });
-                        
-                    } catch (ExecutionException e) {
-                        System.err.println("Task execution failed: " + e.getMessage());
-                    }
+    private void consumeQueue(ProcessingRun run, BlockingQueue<Path> queue) {
+        try {
+            while (!run.isDone()) {
+                Path filePath = queue.take();
+                if (filePath == END_OF_FILES) {
+                    return;
                 }
-                
-                // All tasks finished, updates gui and prevents crash
-                SwingUtilities.invokeLater(() -> {
-                    isProcessing = false;
-                    if (progressListener != null) {
-                        progressListener.onProcessingComplete(globalStats);
-                    }
-                });
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                notifyError("Interrupted", "Processing was interrupted.");
+                runTask(run, createTask(filePath));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Puts into the queue, waiting while the workers are busy
+     * Gives up with a CancellationException if processing was stopped meanwhile.
+     */
+    private static void enqueue(ProcessingRun run, BlockingQueue<Path> queue, Path path) {
+        if (run.isDone()) {
+            throw new CancellationException("Processing was stopped");
+        }
+        try {
+            while (!queue.offer(path, 100, TimeUnit.MILLISECONDS)) {
+                if (run.isDone()) {
+                    throw new CancellationException("Processing was stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while queueing files");
+        }
+    }
+    
+    /**
+     * Starts the metrics of a run, with the queue-depth gauge of the current mode
+     * @param queue The pipeline queue, or null when all files are submitted up front
+     */
+    private void startMetrics(ProcessingRun run, int availableProcessors, BlockingQueue<Path> queue) {
+        boolean virtual = executorStrategy == ExecutorStrategy.VIRTUAL_THREADS;
+        IntSupplier queueDepth;
+        if (queue != null) {
+            queueDepth = queue::size;
+        } else if (virtual) {
+            // Virtual threads don't queue; they wait for a read permit
+            Semaphore permits = ioPermits;
+            queueDepth = permits::getQueueLength;
+        } else if (executorService instanceof ThreadPoolExecutor pool) {
+            queueDepth = () -> pool.getQueue().size();
+        } else {
+            queueDepth = () -> 0;
+        }
+        // With virtual threads a slot is a concurrent read, not a core
+        metrics.startRun(virtual ? ioConcurrency : availableProcessors, run::getDiscoveredFiles, queueDepth);
+    }
+    
+    /**
+     * Creates the executor for the selected strategy
+     * For virtual threads this also sets up the CPU pool and the read limit.
+     */
+    private ExecutorService createExecutor(int availableProcessors) {
+        if (executorStrategy == ExecutorStrategy.VIRTUAL_THREADS) {
+            cpuPool = Executors.newFixedThreadPool(availableProcessors);
+            ioPermits = new Semaphore(ioConcurrency);
+            executorService = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            cpuPool = null;
+            executorService = Executors.newFixedThreadPool(availableProcessors);
+        }
+        return executorService;
+    }
+    
+    /**
+     * Creates the per-file task for the selected strategy
+     */
+    private Callable<FileStats> createTask(Path filePath) {
+        Callable<FileStats> task;
+        if (executorStrategy == ExecutorStrategy.VIRTUAL_THREADS) {
+            task = new SplitIoCpuTask(filePath, fileProcessor, ioPermits, cpuPool);
+        } else {
+            task = new ProcessingTask(filePath, fileProcessor);
+        }
+        
+        ResultCache cache = resultCache;
+        if (cache == null) {
+            return task;
+        }
+        return () -> processWithCache(filePath, task, cache);
+    }
+    
+    /**
+     * Returns the cached result of an unchanged file, or runs the task and caches it
+     */
+    private FileStats processWithCache(Path filePath, Callable<FileStats> task, ResultCache cache) throws Exception {
+        // Read before the analysis, so an edit made meanwhile misses the cache next time
+        ResultCache.FileState state;
+        try {
+            state = cache.readState(filePath);
+        } catch (IOException e) {
+            // Can't stat the file: not cached, the task reports the real error
+            return task.call();
+        }
+        FileStats cached = cache.lookup(filePath, state);
+        if (cached != null && cacheHoldsAllCounts()) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        
+        FileStats stats = task.call();
+        cache.put(filePath, state, stats);
+        return stats;
+    }
+    
+    /**
+     * The cache only stores the basic counts, not frequencies, term counts or sketches
+     */
+    private boolean cacheHoldsAllCounts() {
+        return !fileProcessor.isCountWordFrequencies() && fileProcessor.getTermMatcher() == null
+            && fileProcessor.getWordSketches() == null;
+    }
+    
+    /**
+     * Loads the cache (first run or after the cache file changed) and starts a scan of the directory
+     */
+    private void prepareCache(String directoryPath, boolean includeSubdirs) {
+        cacheHits.set(0);
+        if (cacheFile == null) {
+            resultCache = null;
+            return;
+        }
+        if (resultCache == null) {
+            resultCache = ResultCache.load(cacheFile);
+        }
+        resultCache.setHashContent(cacheContentHash);
+        resultCache.setSettings(fileProcessor.getCharset().name() + "," + fileProcessor.getReadMode());
+        Path root;
+        try {
+            root = Paths.get(directoryPath);
+        } catch (InvalidPathException e) {
+            root = null; // the walk reports it; nothing is dropped
+        }
+        resultCache.beginScan(root, includeSubdirs);
+    }
+    
+    /**
+     * Drops deleted files from the cache and writes it to disk
+     */
+    private void saveCache(ProcessingRun run) {
+        ResultCache cache = resultCache;
+        if (cache == null) {
+            return;
+        }
+        int removed = cache.endScan();
+        try {
+            cache.save(cacheFile);
+            LOGGER.info("Cache: " + cacheHits.get() + " files reused, "
+                + (run.getTotalFiles() - cacheHits.get()) + " analyzed, " + removed + " removed.");
+        } catch (IOException e) {
+            LOGGER.warning("Could not save cache: " + cacheFile + " - " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Describes the threads in use, for the log
+     */
+    private String describeThreads(int availableProcessors) {
+        if (executorStrategy == ExecutorStrategy.VIRTUAL_THREADS) {
+            return "virtual threads (" + ioConcurrency + " concurrent reads, "
+                + availableProcessors + " analysis threads)";
+        }
+        return availableProcessors + " threads";
+    }
+    
+    /**
+     * Number of worker threads for a run
+     */
+    private int workerThreads() {
+        return threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors();
+    }
+    
+    /**
+     * Runs one task on a worker thread and records its result
+     * The file is counted whatever happens: a task that fails (even with an
+     * Error such as OutOfMemoryError) is recorded without statistics, or the
+     * run would wait for it forever.
+     */
+    private void runTask(ProcessingRun run, Callable<FileStats> task) {
+        boolean measured = metricsEnabled;
+        long startTime = measured ? metrics.taskStarted() : 0;
+        FileStats stats = null;
+        try {
+            stats = task.call();
+        } catch (Exception e) {
+            // A stopped run interrupts its tasks; only real failures are worth a warning
+            if (!run.isDone()) {
+                LOGGER.warning("Task execution failed: " + e.getMessage());
+            }
+        } catch (Throwable e) {
+            LOGGER.log(Level.SEVERE, "Task execution failed", e);
+        } finally {
+            if (measured) {
+                metrics.taskFinished(startTime);
+            }
+        }
+        onFileDone(run, stats);
+    }
+    
+    /**
+     * Runs a batch of small files on one worker and merges the result in one step
+     * With the cache or virtual threads every file still needs its own lookup
+     * or read permit, so there the files run one after the other as single tasks.
+     * Like a single task, a batch that fails is still counted: its files are
+     * recorded without statistics.
+     */
+    private void runBatch(ProcessingRun run, List<Path> files) {
+        if (resultCache != null || executorStrategy == ExecutorStrategy.VIRTUAL_THREADS) {
+            for (Path filePath : files) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return; // stopProcessing()
+                }
+                runTask(run, createTask(filePath));
+            }
+            return;
+        }
+        
+        boolean measured = metricsEnabled;
+        long startTime = measured ? metrics.taskStarted(files.size()) : 0;
+        BatchResult result = null;
+        try {
+            result = new BatchProcessingTask(files, fileProcessor).call();
+        } catch (Exception e) {
+            if (!run.isDone()) {
+                LOGGER.warning("Batch execution failed: " + e.getMessage());
+            }
+        } catch (Throwable e) {
+            LOGGER.log(Level.SEVERE, "Batch execution failed", e);
+        } finally {
+            if (measured) {
+                metrics.taskFinished(startTime);
+            }
+            if (result == null) {
+                // Otherwise the run would wait for these files forever
+                result = new BatchResult(0);
+                for (int i = 0; i < files.size(); i++) {
+                    result.add(null);
+                }
+            }
+        }
+        onBatchDone(run, result);
+    }
+    
+    /**
+     * Called by the worker thread that finished a file
+     * Updates the shared totals directly and notifies the GUI. The worker that
+     * finishes the last file also reports completion. Results that arrive
+     * after the run ended (cancelled or timed out) are dropped.
+     */
+    private void onFileDone(ProcessingRun run, FileStats stats) {
+        if (!run.beginRecording()) {
+            return;
+        }
+        try {
+            // Update Shared Data (GlobalStats is lock-free, no consumer thread needed)
+            globalStats.addFileStats(stats);
+            int currentCount = run.addProcessed(1);
+            // While discovery runs the total is the number of files found so far
+            int total = run.getTotalFiles();
+            
+            // Notify the listener (from this worker thread)
+            if (stats != null && progressListener != null) {
+                progressListener.onFileProcessed(stats, currentCount, total);
+                int progress = (int) ((currentCount / (double) total) * 100);
+                progressListener.onProgressUpdate(progress);
+            }
+            // The directory table holds the file's words now
+            globalStats.releaseFileFrequencies(stats);
+        } finally {
+            run.endRecording();
+        }
+        
+        checkCompletion(run);
+    }
+    
+    /**
+     * Called by the worker thread that finished a batch
+     * Like onFileDone, with one update of the totals and one listener call for the batch.
+     */
+    private void onBatchDone(ProcessingRun run, BatchResult result) {
+        if (!run.beginRecording()) {
+            return;
+        }
+        try {
+            globalStats.addBatchResult(result);
+            int currentCount = run.addProcessed(result.getProcessedCount());
+            int total = run.getTotalFiles();
+            
+            if (!result.getFileStats().isEmpty() && progressListener != null) {
+                progressListener.onFilesProcessed(result.getFileStats(), currentCount, total);
+                int progress = (int) ((currentCount / (double) total) * 100);
+                progressListener.onProgressUpdate(progress);
+            }
+            for (FileStats stats : result.getFileStats()) {
+                globalStats.releaseFileFrequencies(stats);
+            }
+        } finally {
+            run.endRecording();
+        }
+        
+        checkCompletion(run);
+    }
+    
+    /**
+     * Reports completion, when discovery is over and every file is done
+     * Called by the workers and by the discovery thread, whichever comes last wins.
+     */
+    private void checkCompletion(ProcessingRun run) {
+        if (run.isAllProcessed()) {
+            endRun(run, ProcessingRun.State.COMPLETED);
+        }
+    }
+    
+    /**
+     * Ends a run exactly once: completed, cancelled or timed out
+     * Once the run has its final state no worker records a result any more,
+     * so the listener and the run's result get final (or partial) statistics.
+     * 
+     * @return false if the run had already ended
+     */
+    boolean endRun(ProcessingRun run, ProcessingRun.State state) {
+        if (!run.end(state)) {
+            return false;
+        }
+        
+        // A stopped run drops its queued tasks and interrupts the files being read
+        boolean completed = state == ProcessingRun.State.COMPLETED;
+        run.shutdownExecutors(!completed);
+        metrics.endRun();
+        if (completed) {
+            // A stopped run hasn't seen every file: its cache would drop the rest
+            saveCache(run);
+            if (run.isPlanned()) {
+                reportMakespan();
             }
-        }).start();
+        } else {
+            LOGGER.info("Processing " + (state == ProcessingRun.State.TIMED_OUT ? "timed out" : "stopped")
+                + " after " + run.getElapsedMillis() + " ms: " + run.getProcessedFiles() + " of "
+                + run.getTotalFiles() + " files processed.");
+        }
+        
+        // All tasks finished (or dropped)
+        activeRun.compareAndSet(run, null);
+        if (progressListener != null) {
+            progressListener.onProcessingComplete(globalStats);
+        }
+        run.complete(globalStats);
+        return true;
+    }
+    
+    /**
+     * Ends a run that found nothing to process
+     */
+    private void failRun(ProcessingRun run, String message) {
+        failRun(run, "No Files", new IllegalStateException(message));
+    }
+    
+    /**
+     * Ends a run that cannot go on; its result completes with the cause
+     */
+    private void failRun(ProcessingRun run, String title, Throwable cause) {
+        if (!run.end(ProcessingRun.State.FAILED)) {
+            return; // stopped meanwhile
+        }
+        metrics.endRun();
+        notifyError(title, String.valueOf(cause.getMessage()));
+        run.shutdownExecutors(true);
+        activeRun.compareAndSet(run, null);
+        run.fail(cause);
+    }
+    
+    /**
+     * Logs the predicted vs the actual makespan and refits the cost model
+     */
+    private void reportMakespan() {
+        LOGGER.info(String.format(Locale.ROOT,
+            "Makespan: expected %.0f ms (lower bound %.0f ms), actual %.0f ms; %d tasks, %d files batched.",
+            metrics.getExpectedMakespanMillis(), metrics.getMakespanLowerBoundMillis(),
+            metrics.getActualMakespanMillis(), metrics.getScheduledTasks(), metrics.getBatchedFiles()));
+        // Only real work says something about the cost per byte: no cache hits, no read-permit waits
+        if (metricsEnabled && resultCache == null && executorStrategy == ExecutorStrategy.FIXED_POOL) {
+            taskScheduler.calibrate(metrics.getFilesProcessed(), metrics.getBytesRead(), metrics.getBusyNanos());
+        }
+    }
+    
+    /**
+     * Starts watch mode on the directory of the last run
+     * Created/modified files are analyzed again and deleted files retracted;
+     * the listener gets onFileUpdated / onFileRemoved / onGlobalStatsChanged.
+     * Call it after processing completed, so GlobalStats holds the initial scan.
+     */
+    public synchronized void startWatching(String directoryPath, boolean includeSubdirs) throws IOException {
+        stopWatching();
+        directoryWatcher = new DirectoryWatcher(directoryPath, includeSubdirs, fileDiscoverer,
+            fileProcessor, globalStats, progressListener,
+            DirectoryWatcher.DEFAULT_DEBOUNCE_MILLIS);
+        directoryWatcher.start();
+        LOGGER.info("Watching for changes: " + directoryPath);
     }
     
+    /**
+     * Stops watch mode (no-op if not watching)
+     */
+    public synchronized void stopWatching() {
+        if (directoryWatcher != null) {
+            directoryWatcher.stop();
+            directoryWatcher = null;
+        }
+    }
+    
+    public synchronized boolean isWatching() {
+        return directoryWatcher != null && directoryWatcher.isRunning();
+    }
+    
+    /**
+     * Stops the run in progress (no-op if there is none)
+     * The listener gets onProcessingComplete with the partial statistics.
+     */
     public void stopProcessing() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdownNow();
-            isProcessing = false;
+        ProcessingRun run = activeRun.get();
+        if (run != null) {
+            endRun(run, ProcessingRun.State.CANCELLED);
         }
     }
     
+    /**
+     * Releases the threads of the manager: stops the run in progress and
+     * watch mode, and shuts down the pool for file ranges
+     * Call it when the manager is no longer needed.
+     */
+    public void shutdown() {
+        stopProcessing();
+        stopWatching();
+        setIntraFileThreshold(0);
+    }
+    
     public boolean isProcessing() {
-        return isProcessing;
+        return activeRun.get() != null;
+    }
+    
+    /**
+     * The run in progress, or null
+     */
+    public ProcessingRun getCurrentRun() {
+        return activeRun.get();
     }
     
     public GlobalStats getGlobalStats() {
         return globalStats;
     }
     
-    private void notifyProcessingStarted(int totalFiles) {
-        if (progressListener != null) {
-            SwingUtilities.invokeLater(() -> progressListener.onProcessingStarted(totalFiles));
+    /**
+     * Not for a run that ended meanwhile: the listener may have moved on to the next one
+     */
+    private void notifyProcessingStarted(ProcessingRun run, int totalFiles) {
+        if (progressListener != null && !run.isDone()) {
+            progressListener.onProcessingStarted(totalFiles);
         }
     }
     
     private void notifyError(String fileName, String errorMessage) {
         if (progressListener != null) {
-            SwingUtilities.invokeLater(() -> progressListener.onError(fileName, errorMessage));
+            progressListener.onError(fileName, errorMessage);
         }
     }
 }
\ No newline at end of file
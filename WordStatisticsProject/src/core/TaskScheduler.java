@@ -0,0 +1,332 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Plans the order in which files are handed to the workers
+ * Every file gets an estimated cost (a fixed per-file overhead plus a cost
+ * per byte). With the LPT policy the most expensive work goes first (longest
+ * processing time first), so a huge file found last no longer becomes a long
+ * tail on one core while the others idle. Small files are packed into batches
+ * that run as one task, which amortizes the per-task overhead on trees with
+ * millions of tiny files.
+ *
+ * The plan also predicts the makespan (time until the last worker is done)
+ * by simulating greedy list scheduling on the workers; the cost per byte is
+ * recalibrated from every finished run.
+ */
+public class TaskScheduler {
+    
+    /**
+     * Order of the work
+     */
+    public enum Policy {
+        /** One task per file, in discovery order (the original behaviour) */
+        FIFO,
+        /** Largest estimated cost first, small files batched */
+        LPT
+    }
+    
+    // Default cost model: open/stat/close and bookkeeping, then reading and
+    // tokenizing at about 50 MB/s per core (recalibrated after every run)
+    public static final long DEFAULT_PER_FILE_NANOS = 50_000;
+    public static final double DEFAULT_PER_BYTE_NANOS = 20.0;
+    
+    // Files below this size are batched (LPT policy)
+    public static final long DEFAULT_SMALL_FILE_BYTES = 64 * 1024;
+    
+    // Upper limits of one batch (the estimated time is not configurable)
+    private static final long MAX_BATCH_NANOS = 20_000_000;
+    public static final int DEFAULT_MAX_BATCH_FILES = 1024;
+    public static final long DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+    
+    /**
+     * A file found by discovery, with its size
+     */
+    public static final class FileEntry {
+        final Path path;
+        final long size;
+        
+        public FileEntry(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+        
+        public Path getPath() {
+            return path;
+        }
+        
+        public long getSize() {
+            return size;
+        }
+    }
+    
+    /**
+     * One task: a single file or a batch of small files
+     */
+    public static final class WorkItem {
+        final List<Path> files;
+        final long bytes;
+        final long costNanos;
+        
+        WorkItem(List<Path> files, long bytes, long costNanos) {
+            this.files = files;
+            this.bytes = bytes;
+            this.costNanos = costNanos;
+        }
+        
+        public List<Path> getFiles() {
+            return files;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+        
+        public long getCostNanos() {
+            return costNanos;
+        }
+    }
+    
+    /**
+     * The ordered tasks and the predicted makespan
+     */
+    public static final class Plan {
+        final List<WorkItem> items;
+        final int workers;
+        final int batches;
+        final int batchedFiles;
+        final long expectedMakespanNanos;
+        final long lowerBoundNanos;
+        
+        Plan(List<WorkItem> items, int workers, int batches, int batchedFiles,
+             long expectedMakespanNanos, long lowerBoundNanos) {
+            this.items = items;
+            this.workers = workers;
+            this.batches = batches;
+            this.batchedFiles = batchedFiles;
+            this.expectedMakespanNanos = expectedMakespanNanos;
+            this.lowerBoundNanos = lowerBoundNanos;
+        }
+        
+        /**
+         * The tasks, in dispatch order
+         */
+        public List<WorkItem> getItems() {
+            return items;
+        }
+        
+        public int getWorkers() {
+            return workers;
+        }
+        
+        public int getBatches() {
+            return batches;
+        }
+        
+        public int getBatchedFiles() {
+            return batchedFiles;
+        }
+        
+        /**
+         * Predicted time until the last worker finishes, with this order
+         */
+        public long getExpectedMakespanNanos() {
+            return expectedMakespanNanos;
+        }
+        
+        /**
+         * No order can finish sooner: max(total cost / workers, largest task)
+         */
+        public long getLowerBoundNanos() {
+            return lowerBoundNanos;
+        }
+    }
+    
+    private volatile Policy policy;
+    private volatile long perFileNanos;
+    private volatile double perByteNanos;
+    private volatile long smallFileBytes;
+    private volatile int maxBatchFiles;
+    private volatile long maxBatchBytes;
+    
+    // Constructor
+    public TaskScheduler() {
+        this.policy = Policy.LPT;
+        this.perFileNanos = DEFAULT_PER_FILE_NANOS;
+        this.perByteNanos = DEFAULT_PER_BYTE_NANOS;
+        this.smallFileBytes = DEFAULT_SMALL_FILE_BYTES;
+        this.maxBatchFiles = DEFAULT_MAX_BATCH_FILES;
+        this.maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+    }
+    
+    public Policy getPolicy() {
+        return policy;
+    }
+    
+    public void setPolicy(Policy policy) {
+        this.policy = policy != null ? policy : Policy.LPT;
+    }
+    
+    /**
+     * Files below this size are batched with the LPT policy (0 = no batching)
+     */
+    public void setSmallFileBytes(long smallFileBytes) {
+        if (smallFileBytes < 0) {
+            throw new IllegalArgumentException("Size must not be negative: " + smallFileBytes);
+        }
+        this.smallFileBytes = smallFileBytes;
+    }
+    
+    public long getSmallFileBytes() {
+        return smallFileBytes;
+    }
+    
+    /**
+     * A batch is closed when it holds maxFiles files or maxBytes bytes
+     * (or its estimated time reaches the batch time limit, whichever comes first)
+     */
+    public void setBatchLimits(int maxFiles, long maxBytes) {
+        if (maxFiles <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Batch limits must be positive: " + maxFiles + ", " + maxBytes);
+        }
+        this.maxBatchFiles = maxFiles;
+        this.maxBatchBytes = maxBytes;
+    }
+    
+    public int getMaxBatchFiles() {
+        return maxBatchFiles;
+    }
+    
+    public long getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+    
+    public double getPerByteNanos() {
+        return perByteNanos;
+    }
+    
+    /**
+     * Estimated processing time of one file
+     */
+    public long estimateNanos(long bytes) {
+        return perFileNanos + (long) (bytes * perByteNanos);
+    }
+    
+    /**
+     * Orders (and with LPT batches) the files for the given number of workers
+     */
+    public Plan plan(List<FileEntry> files, int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workers);
+        }
+        
+        List<WorkItem> items = new ArrayList<>();
+        int batches = 0;
+        int batchedFiles = 0;
+        long totalCost = 0;
+        
+        if (policy == Policy.FIFO) {
+            for (FileEntry file : files) {
+                items.add(new WorkItem(Collections.singletonList(file.path), file.size, estimateNanos(file.size)));
+            }
+        } else {
+            for (FileEntry file : files) {
+                totalCost += estimateNanos(file.size);
+            }
+            // Batches stay small next to a worker's share, or they become the tail themselves
+            long batchLimit = Math.max(perFileNanos, Math.min(MAX_BATCH_NANOS, totalCost / (workers * 16L)));
+            int fileLimit = maxBatchFiles;
+            long byteLimit = maxBatchBytes;
+            
+            // Small files are packed in discovery order (neighbours share a directory)
+            List<Path> batch = new ArrayList<>();
+            long batchBytes = 0;
+            long batchCost = 0;
+            for (FileEntry file : files) {
+                long cost = estimateNanos(file.size);
+                if (file.size >= smallFileBytes) {
+                    items.add(new WorkItem(Collections.singletonList(file.path), file.size, cost));
+                    continue;
+                }
+                batch.add(file.path);
+                batchBytes += file.size;
+                batchCost += cost;
+                if (batchCost >= batchLimit || batch.size() >= fileLimit || batchBytes >= byteLimit) {
+                    items.add(new WorkItem(batch, batchBytes, batchCost));
+                    batches += batch.size() > 1 ? 1 : 0;
+                    batchedFiles += batch.size() > 1 ? batch.size() : 0;
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                    batchCost = 0;
+                }
+            }
+            if (!batch.isEmpty()) {
+                items.add(new WorkItem(batch, batchBytes, batchCost));
+                batches += batch.size() > 1 ? 1 : 0;
+                batchedFiles += batch.size() > 1 ? batch.size() : 0;
+            }
+            
+            // Longest processing time first (stable: equal costs keep discovery order)
+            items.sort(Comparator.comparingLong(WorkItem::getCostNanos).reversed());
+        }
+        
+        return new Plan(items, workers, batches, batchedFiles,
+            simulateMakespan(items, workers), lowerBound(items, workers));
+    }
+    
+    /**
+     * Greedy list scheduling, as the pool does it: every task goes to the
+     * worker that becomes free first
+     */
+    static long simulateMakespan(List<WorkItem> items, int workers) {
+        PriorityQueue<Long> loads = new PriorityQueue<>();
+        for (int i = 0; i < workers; i++) {
+            loads.add(0L);
+        }
+        long makespan = 0;
+        for (WorkItem item : items) {
+            long load = loads.poll() + item.costNanos;
+            makespan = Math.max(makespan, load);
+            loads.add(load);
+        }
+        return makespan;
+    }
+    
+    private static long lowerBound(List<WorkItem> items, int workers) {
+        long total = 0;
+        long largest = 0;
+        for (WorkItem item : items) {
+            total += item.costNanos;
+            largest = Math.max(largest, item.costNanos);
+        }
+        return Math.max((total + workers - 1) / workers, largest);
+    }
+    
+    /**
+     * Refits the cost per byte from a finished run, keeping the per-file overhead
+     *
+     * @param files Files processed
+     * @param bytes Their total size
+     * @param busyNanos Time the workers spent on them, summed over all workers
+     */
+    public void calibrate(long files, long bytes, long busyNanos) {
+        if (files <= 0 || bytes <= 0) {
+            return;
+        }
+        double fitted = (busyNanos - files * (double) perFileNanos) / bytes;
+        if (fitted > 0) {
+            // Halfway towards the new value, so one odd run (cold cache) doesn't dominate
+            perByteNanos = (perByteNanos + fitted) / 2;
+        }
+    }
+}
\ No newline at end of file
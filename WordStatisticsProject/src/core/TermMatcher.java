@@ -0,0 +1,266 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts a configurable set of target terms (words and multi-word phrases)
+ * The terms are compiled into an Aho-Corasick automaton over 27 symbols: the
+ * letters a-z (case-insensitive) and a word separator. The text is seen as
+ * "separator word separator word ...", and every term as
+ * "separator word [separator word ...] separator", so a term only matches
+ * whole words ("is" does not match inside "this") and phrases match across
+ * any non-letter characters between their words.
+ *
+ * The failure links are folded into a full transition table, so matching is
+ * one array lookup per character; counts are only checked after a separator,
+ * because every term ends with one. WordTokenizer drives it word by word.
+ *
+ * Immutable once built: one instance is shared by all worker threads, each
+ * keeping its own state and counts.
+ */
+public class TermMatcher {
+    
+    private static final int ALPHABET = 27;
+    private static final int SEPARATOR = 26;
+    private static final int ROOT = 0;
+    
+    private final List<String> terms;
+    private final boolean hasPhrases;
+    
+    // State after a separator: where every text starts
+    private final int startState;
+    // transitions[state * ALPHABET + symbol] = next state
+    private final int[] transitions;
+    // Terms ending in each state (own and inherited through failure links)
+    private final int[] outputStart;
+    private final int[] outputTerms;
+    
+    private TermMatcher(List<String> terms, boolean hasPhrases, int startState,
+                        int[] transitions, int[] outputStart, int[] outputTerms) {
+        this.terms = terms;
+        this.hasPhrases = hasPhrases;
+        this.startState = startState;
+        this.transitions = transitions;
+        this.outputStart = outputStart;
+        this.outputTerms = outputTerms;
+    }
+    
+    /**
+     * Compiles a list of terms
+     * Each term is lowercased and split into words at non-letter characters;
+     * "You are", "you-are" and "YOU  ARE" are the same phrase. Duplicates are
+     * counted once.
+     *
+     * @throws IllegalArgumentException If a term contains no letters
+     */
+    public static TermMatcher compile(List<String> rawTerms) {
+        // Normalized term -> its words
+        Map<String, List<String>> normalized = new LinkedHashMap<>();
+        for (String raw : rawTerms) {
+            List<String> words = splitWords(raw);
+            if (words.isEmpty()) {
+                throw new IllegalArgumentException("Term contains no letters: \"" + raw + "\"");
+            }
+            normalized.putIfAbsent(String.join(" ", words), words);
+        }
+        
+        // Trie of "_w1_w2_" patterns (_ = separator), grown as needed
+        int capacity = 1;
+        for (String term : normalized.keySet()) {
+            capacity += term.length() + 2;
+        }
+        int[] trie = new int[capacity * ALPHABET];
+        Arrays.fill(trie, -1);
+        List<List<Integer>> ownOutputs = new ArrayList<>();
+        ownOutputs.add(null);
+        int stateCount = 1;
+        boolean hasPhrases = false;
+        
+        int termId = 0;
+        for (List<String> words : normalized.values()) {
+            hasPhrases |= words.size() > 1;
+            int state = ROOT;
+            for (String word : words) {
+                state = child(trie, state, SEPARATOR, stateCount);
+                if (state == stateCount) {
+                    stateCount++;
+                    ownOutputs.add(null);
+                }
+                for (int i = 0; i < word.length(); i++) {
+                    state = child(trie, state, word.charAt(i) - 'a', stateCount);
+                    if (state == stateCount) {
+                        stateCount++;
+                        ownOutputs.add(null);
+                    }
+                }
+            }
+            state = child(trie, state, SEPARATOR, stateCount);
+            if (state == stateCount) {
+                stateCount++;
+                ownOutputs.add(null);
+            }
+            if (ownOutputs.get(state) == null) {
+                ownOutputs.set(state, new ArrayList<>(1));
+            }
+            ownOutputs.get(state).add(termId++);
+        }
+        
+        // Breadth-first: failure links, full transition table and output lists
+        int[] transitions = Arrays.copyOf(trie, stateCount * ALPHABET);
+        int[] fail = new int[stateCount];
+        int[] order = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int next = transitions[ROOT * ALPHABET + symbol];
+            if (next < 0) {
+                transitions[ROOT * ALPHABET + symbol] = ROOT;
+            } else {
+                fail[next] = ROOT;
+                order[tail++] = next;
+            }
+        }
+        while (head < tail) {
+            int state = order[head++];
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int next = transitions[state * ALPHABET + symbol];
+                int fallback = transitions[fail[state] * ALPHABET + symbol];
+                if (next < 0) {
+                    transitions[state * ALPHABET + symbol] = fallback;
+                } else {
+                    fail[next] = fallback;
+                    order[tail++] = next;
+                }
+            }
+        }
+        
+        // Outputs in BFS order: a state's failure target is always complete first
+        int[][] outputs = new int[stateCount][];
+        outputs[ROOT] = new int[0];
+        int total = 0;
+        for (int i = 0; i < tail; i++) {
+            int state = order[i];
+            int[] inherited = outputs[fail[state]];
+            List<Integer> own = ownOutputs.get(state);
+            int ownCount = own != null ? own.size() : 0;
+            int[] all = Arrays.copyOf(inherited, inherited.length + ownCount);
+            for (int j = 0; j < ownCount; j++) {
+                all[inherited.length + j] = own.get(j);
+            }
+            outputs[state] = all;
+            total += all.length;
+        }
+        int[] outputStart = new int[stateCount + 1];
+        int[] outputTerms = new int[total];
+        int position = 0;
+        for (int state = 0; state < stateCount; state++) {
+            outputStart[state] = position;
+            int[] all = outputs[state] != null ? outputs[state] : new int[0];
+            System.arraycopy(all, 0, outputTerms, position, all.length);
+            position += all.length;
+        }
+        outputStart[stateCount] = position;
+        
+        int startState = transitions[ROOT * ALPHABET + SEPARATOR];
+        return new TermMatcher(Collections.unmodifiableList(new ArrayList<>(normalized.keySet())),
+            hasPhrases, startState, transitions, outputStart, outputTerms);
+    }
+    
+    /**
+     * Parses a comma- or newline-separated list of terms (blank entries are skipped)
+     */
+    public static List<String> parseTerms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String part : text.split("[,\\r\\n]")) {
+            if (!part.isBlank()) {
+                terms.add(part.trim());
+            }
+        }
+        return terms;
+    }
+    
+    /**
+     * The normalized terms; term i is counted in counts[i]
+     */
+    public List<String> getTerms() {
+        return terms;
+    }
+    
+    public int getTermCount() {
+        return terms.size();
+    }
+    
+    /**
+     * True if a term has several words (such a term can span a range boundary)
+     */
+    public boolean hasPhrases() {
+        return hasPhrases;
+    }
+    
+    /**
+     * State to start a text in
+     */
+    public int getStartState() {
+        return startState;
+    }
+    
+    /**
+     * Advances over one word and the separator after it
+     *
+     * @param state Current state (getStartState() for a new text)
+     * @param buffer Characters of the word; must be ASCII letters
+     * @param counts Per-term counters, incremented for every term that ends here
+     * @return The new state
+     */
+    public int matchWord(int state, char[] buffer, int start, int end, long[] counts) {
+        int[] table = transitions;
+        for (int i = start; i < end; i++) {
+            state = table[state * ALPHABET + ((buffer[i] | 0x20) - 'a')];
+        }
+        state = table[state * ALPHABET + SEPARATOR];
+        
+        for (int i = outputStart[state]; i < outputStart[state + 1]; i++) {
+            counts[outputTerms[i]]++;
+        }
+        return state;
+    }
+    
+    /**
+     * Lowercase ASCII-letter words of a term
+     */
+    private static List<String> splitWords(String term) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= term.length(); i++) {
+            char c = i < term.length() ? term.charAt(i) : ' ';
+            if (WordTokenizer.isLetter(c)) {
+                word.append((char) (c | 0x20));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+    
+    /**
+     * Returns the child of a trie state, creating it (as newState) if missing
+     */
+    private static int child(int[] trie, int state, int symbol, int newState) {
+        int index = state * ALPHABET + symbol;
+        if (trie[index] < 0) {
+            trie[index] = newState;
+        }
+        return trie[index];
+    }
+}
\ No newline at end of file
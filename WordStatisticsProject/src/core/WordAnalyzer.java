@@ -4,8 +4,8 @@
  */
 package core;
 
+import model.FileStats;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * Analyzes text content and generates statistics
@@ -13,108 +13,90 @@ import java.util.regex.Pattern;
  */
 public class WordAnalyzer {
     
-    // Pattern to split text into words (handles punctuation, numbers, etc.)
-    private static final Pattern WORD_PATTERN = Pattern.compile("[^a-zA-Z]+");
+    /**
+     * Analyzes text and returns a typed result
+     * Uses WordTokenizer to scan the text once (no regex split, no re-searching).
+     * The word list is not collected; use analyze(text, true) if you need it.
+     * 
+     * @param text The text content to analyze
+     * @return The statistics with primitive counters
+     */
+    public AnalysisResult analyze(String text) {
+        return analyze(text, false);
+    }
     
-    // Words we're specifically counting (case-insensitive)
-    private static final String TARGET_WORD_IS = "is";
-    private static final String TARGET_WORD_ARE = "are";
-    private static final String TARGET_WORD_YOU = "you";
+    /**
+     * Analyzes text and returns a typed result
+     * 
+     * @param text The text content to analyze
+     * @param collectWords True to also return every word (one String per word)
+     * @return The statistics, plus the words if requested
+     */
+    public AnalysisResult analyze(String text, boolean collectWords) {
+        if (text == null || text.isEmpty()) {
+            return collectWords ? AnalysisResult.of(new WordTokenizer(), new String[0]) : AnalysisResult.EMPTY;
+        }
+        
+        WordTokenizer tokenizer = new WordTokenizer();
+        List<String> words = null;
+        if (collectWords) {
+            words = new ArrayList<>();
+            tokenizer.setWordCollector(words);
+        }
+        tokenizer.scan(text);
+        
+        return AnalysisResult.of(tokenizer, words != null ? words.toArray(new String[0]) : null);
+    }
     
     /**
-     * Analyzes text and returns statistics
+     * Analyzes text and writes the statistics straight into a FileStats object
+     * Nothing but the tokenizer is allocated.
+     * 
+     * @param text The text content to analyze
+     * @param fileStats The object to fill
+     */
+    public void analyzeInto(String text, FileStats fileStats) {
+        WordTokenizer tokenizer = new WordTokenizer();
+        tokenizer.scan(text);
+        fileStats.updateStats(tokenizer.getWordCount(), tokenizer.getIsCount(),
+            tokenizer.getAreCount(), tokenizer.getYouCount(),
+            tokenizer.getLongestWord(), tokenizer.getShortestWord());
+        fileStats.setWordLengths(tokenizer.getWordLengths());
+    }
+    
+    /**
+     * Analyzes text and returns statistics as a map
+     * Kept for older callers: boxes every counter and always includes the
+     * full "words" array. New code should use analyze() or analyzeInto().
      * 
      * @param text The text content to analyze
      * @return A map containing all statistics
      */
+    @Deprecated
     public Map<String, Object> analyzeText(String text) {
         if (text == null || text.trim().isEmpty()) {
             return createEmptyResults();
         }
         
-        String[] words = splitIntoWords(text);
+        AnalysisResult result = analyze(text, true);
         
-        if (words.length == 0) {
+        if (result.getWordCount() == 0) {
             return createEmptyResults();
         }
         
-        int totalWords = words.length;
-        int isCount = 0;
-        int areCount = 0;
-        int youCount = 0;
-        String longestWord = "";
-        String shortestWord = "";
-        
-        // Process each word
-        for (String word : words) {
-            String lowerWord = word.toLowerCase();
-            
-            // Count target words
-            if (lowerWord.equals(TARGET_WORD_IS)) {
-                isCount++;
-            } else if (lowerWord.equals(TARGET_WORD_ARE)) {
-                areCount++;
-            } else if (lowerWord.equals(TARGET_WORD_YOU)) {
-                youCount++;
-            }
-            
-            // Find longest word
-            if (word.length() > longestWord.length()) {
-                longestWord = word;
-            }
-            
-            // Find shortest word (skip if we haven't set it yet)
-            if (shortestWord.isEmpty() || 
-                (word.length() < shortestWord.length() && word.length() > 0)) {
-                shortestWord = word;
-            }
-        }
-        
         // Create and return results map
         Map<String, Object> results = new HashMap<>();
-        results.put("wordCount", totalWords);
-        results.put("isCount", isCount);
-        results.put("areCount", areCount);
-        results.put("youCount", youCount);
-        results.put("longestWord", longestWord);
-        results.put("shortestWord", shortestWord);
-        results.put("words", words);
+        results.put("wordCount", (int) result.getWordCount());
+        results.put("isCount", (int) result.getIsCount());
+        results.put("areCount", (int) result.getAreCount());
+        results.put("youCount", (int) result.getYouCount());
+        results.put("longestWord", result.getLongestWord());
+        results.put("shortestWord", result.getShortestWord());
+        results.put("words", result.getWords());
         
         return results;
     }
     
-    /**
-     * Splits text into individual words
-     * Removes punctuation, numbers, and extra spaces
-     */
-    private String[] splitIntoWords(String text) {
-        // Convert to lowercase and split by non-letter characters
-        String[] words = WORD_PATTERN.split(text.toLowerCase());
-        
-        // Filter out empty strings that might result from split
-        List<String> validWords = new ArrayList<>();
-        for (String word : words) {
-            if (word != null && !word.trim().isEmpty() && word.matches("[a-zA-Z]+")) {
-                // Preserve original case from text for display
-                validWords.add(extractOriginalWord(text, word));
-            }
-        }
-        
-        return validWords.toArray(new String[0]);
-    }
-    
-    /**
-     * Extracts the original word from text (preserving case)
-     */
-    private String extractOriginalWord(String text, String lowerWord) {
-        // Simple approach: find the word in original text (case-insensitive)
-        int index = text.toLowerCase().indexOf(lowerWord);
-        if (index >= 0) {
-            return text.substring(index, index + lowerWord.length());
-        }
-        return lowerWord; // Fallback
-    }
-    
     /**
      * Creates empty results for empty text
      */
@@ -134,16 +116,16 @@ public class WordAnalyzer {
      * For testing or direct use - analyzes text and returns readable summary
      */
     public String analyzeAndSummarize(String text) {
-        Map<String, Object> results = analyzeText(text);
+        AnalysisResult result = analyze(text);
         
         return String.format(
             "Words: %d, 'is': %d, 'are': %d, 'you': %d, Longest: '%s', Shortest: '%s'",
-            results.get("wordCount"),
-            results.get("isCount"),
-            results.get("areCount"),
-            results.get("youCount"),
-            results.get("longestWord"),
-            results.get("shortestWord")
+            result.getWordCount(),
+            result.getIsCount(),
+            result.getAreCount(),
+            result.getYouCount(),
+            result.getLongestWord(),
+            result.getShortestWord()
         );
     }
 }
\ No newline at end of file
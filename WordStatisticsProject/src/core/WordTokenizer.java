@@ -0,0 +1,373 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package core;
+
+import model.LengthHistogram;
+import model.WordFrequencyTable;
+import model.WordSketches;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single-pass tokenizer engine used by WordAnalyzer
+ * A word is a run of ASCII letters [a-zA-Z]; everything else is a separator.
+ * The text is scanned once and word boundaries are tracked by offset, so no
+ * lowercase copy, split array or per-word String is created. Strings are only
+ * built for the words that are kept (longest / shortest).
+ *
+ * Text can be given at once (scan) or in chunks of chars or bytes
+ * (feed + finish); a word that straddles two chunks is carried over, so
+ * results don't depend on the chunk size.
+ *
+ * Not thread-safe: use one instance per thread or per analysis.
+ */
+public class WordTokenizer {
+    
+    // Chunk size used by scan() to walk a complete text
+    private static final int SCAN_CHUNK_SIZE = 8192;
+    
+    // Lookup table for the byte path: true for 'a'-'z' and 'A'-'Z'
+    private static final boolean[] ASCII_LETTER = new boolean[256];
+    
+    static {
+        for (int c = 0; c < 256; c++) {
+            ASCII_LETTER[c] = isLetter((char) c);
+        }
+    }
+    
+    private long wordCount;
+    private long isCount;
+    private long areCount;
+    private long youCount;
+    private String longestWord;
+    private String shortestWord;
+    private int longestLength;
+    private int shortestLength;
+    
+    // Words per length (last bucket: MAX_LENGTH and longer) and the exact sum of lengths
+    private final long[] lengthCounts = new long[LengthHistogram.MAX_LENGTH + 1];
+    private long totalLength;
+    
+    // Partial word carried over from the end of the previous chunk
+    private char[] pending = new char[32];
+    private int pendingLength;
+    
+    // Optional: receives every word (original case). Null means "don't collect".
+    private List<String> wordCollector;
+    
+    // Optional: counts every word (case-insensitive). Null means "don't count".
+    private WordFrequencyTable frequencyTable;
+    
+    // Optional: bounded-memory top-word and distinct-word sketches. Null means "don't build".
+    private WordSketches wordSketches;
+    
+    // Optional: configurable target terms, matched word by word
+    private TermMatcher termMatcher;
+    private int termState;
+    private long[] termCounts;
+    
+    // Constructor
+    public WordTokenizer() {
+        reset();
+    }
+    
+    /**
+     * Clears all counters so the tokenizer can be reused
+     */
+    public void reset() {
+        wordCount = 0;
+        isCount = 0;
+        areCount = 0;
+        youCount = 0;
+        longestWord = "";
+        shortestWord = "";
+        longestLength = 0;
+        shortestLength = 0;
+        pendingLength = 0;
+        Arrays.fill(lengthCounts, 0);
+        totalLength = 0;
+        if (termMatcher != null) {
+            termState = termMatcher.getStartState();
+            Arrays.fill(termCounts, 0);
+        }
+    }
+    
+    /**
+     * Sets a list that receives every word found (original case)
+     * Only needed by callers that want the full word list; costs one String per word.
+     */
+    public void setWordCollector(List<String> wordCollector) {
+        this.wordCollector = wordCollector;
+    }
+    
+    /**
+     * Sets a table that counts the frequency of every word
+     * Counting works on the word's characters in place, no String is created.
+     */
+    public void setFrequencyTable(WordFrequencyTable frequencyTable) {
+        this.frequencyTable = frequencyTable;
+    }
+    
+    public WordFrequencyTable getFrequencyTable() {
+        return frequencyTable;
+    }
+    
+    /**
+     * Sets sketches that receive every word (null for none)
+     */
+    public void setWordSketches(WordSketches wordSketches) {
+        this.wordSketches = wordSketches;
+    }
+    
+    public WordSketches getWordSketches() {
+        return wordSketches;
+    }
+    
+    /**
+     * Sets the target terms to count (null to count none)
+     * Matching runs on the word's characters as they are tokenized.
+     */
+    public void setTermMatcher(TermMatcher termMatcher) {
+        this.termMatcher = termMatcher;
+        if (termMatcher != null) {
+            termState = termMatcher.getStartState();
+            termCounts = new long[termMatcher.getTermCount()];
+        } else {
+            termCounts = null;
+        }
+    }
+    
+    /**
+     * Count of each target term, in TermMatcher.getTerms() order (null without terms)
+     */
+    public long[] getTermCounts() {
+        return termCounts;
+    }
+    
+    /**
+     * Scans a complete text once and updates the statistics
+     * Equivalent to feeding the whole text and calling finish().
+     *
+     * @param text The text to tokenize
+     */
+    public void scan(CharSequence text) {
+        if (text == null) {
+            return;
+        }
+        
+        // Copy through a small chunk buffer so the same loop handles every input
+        char[] chunk = new char[Math.min(text.length(), SCAN_CHUNK_SIZE)];
+        int length = text.length();
+        for (int pos = 0; pos < length; pos += chunk.length) {
+            int count = Math.min(chunk.length, length - pos);
+            if (text instanceof String string) {
+                string.getChars(pos, pos + count, chunk, 0);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    chunk[i] = text.charAt(pos + i);
+                }
+            }
+            feed(chunk, 0, count);
+        }
+        finish();
+    }
+    
+    /**
+     * Feeds the next chunk of a larger text
+     * A word cut at the end of the chunk is carried over and completed by the
+     * next call (or by finish()), so chunk boundaries never split a word.
+     *
+     * @param buffer The characters to scan
+     * @param offset Index of the first character
+     * @param length Number of characters to scan
+     */
+    public void feed(char[] buffer, int offset, int length) {
+        int end = offset + length;
+        
+        // A carried-over word continues at the start of this chunk
+        int wordStart = pendingLength > 0 ? offset : -1;
+        
+        for (int i = offset; i < end; i++) {
+            if (isLetter(buffer[i])) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                endWord(buffer, wordStart, i);
+                wordStart = -1;
+            }
+        }
+        
+        // Word running until the end of the chunk: keep it for the next one
+        if (wordStart >= 0) {
+            appendPending(buffer, wordStart, end);
+        }
+    }
+    
+    /**
+     * Feeds the next chunk of a byte-encoded text (from position to limit)
+     * Only valid for ASCII-compatible encodings (UTF-8, ISO-8859-1, US-ASCII):
+     * letters are classified directly on the bytes with a lookup table and a
+     * multi-byte UTF-8 sequence never contains an ASCII letter byte, so it acts
+     * as a separator exactly like the decoded char would. Words are gathered in
+     * the carry-over buffer, so nothing is decoded unless it is kept.
+     *
+     * @param buffer The bytes to scan; its position is moved to the limit
+     */
+    public void feed(ByteBuffer buffer) {
+        int end = buffer.limit();
+        
+        for (int i = buffer.position(); i < end; i++) {
+            byte b = buffer.get(i);
+            if (ASCII_LETTER[b & 0xFF]) {
+                if (pendingLength == pending.length) {
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                }
+                pending[pendingLength++] = (char) b;
+            } else if (pendingLength > 0) {
+                onWord(pending, 0, pendingLength);
+                pendingLength = 0;
+            }
+        }
+        
+        buffer.position(end);
+    }
+    
+    /**
+     * Completes the text: the carried-over word (if any) is counted
+     */
+    public void finish() {
+        if (pendingLength > 0) {
+            onWord(pending, 0, pendingLength);
+            pendingLength = 0;
+        }
+    }
+    
+    /**
+     * Ends the word at [start, end) of the buffer, joining it to the carried-over part
+     */
+    private void endWord(char[] buffer, int start, int end) {
+        if (pendingLength > 0) {
+            appendPending(buffer, start, end);
+            onWord(pending, 0, pendingLength);
+            pendingLength = 0;
+        } else {
+            onWord(buffer, start, end);
+        }
+    }
+    
+    /**
+     * Stores part of a word that straddles a chunk boundary
+     */
+    private void appendPending(char[] buffer, int start, int end) {
+        int count = end - start;
+        if (pendingLength + count > pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + count));
+        }
+        System.arraycopy(buffer, start, pending, pendingLength, count);
+        pendingLength += count;
+    }
+    
+    /**
+     * Handles one word found at [start, end) of the buffer
+     */
+    private void onWord(char[] buffer, int start, int end) {
+        int length = end - start;
+        wordCount++;
+        lengthCounts[length < LengthHistogram.MAX_LENGTH ? length : LengthHistogram.MAX_LENGTH]++;
+        totalLength += length;
+        
+        // Count target words (case-insensitive, only the 2 and 3 letter ones can match)
+        if (length == 2) {
+            if (lower(buffer[start]) == 'i' && lower(buffer[start + 1]) == 's') {
+                isCount++;
+            }
+        } else if (length == 3) {
+            char c0 = lower(buffer[start]);
+            char c1 = lower(buffer[start + 1]);
+            char c2 = lower(buffer[start + 2]);
+            if (c0 == 'a' && c1 == 'r' && c2 == 'e') {
+                areCount++;
+            } else if (c0 == 'y' && c1 == 'o' && c2 == 'u') {
+                youCount++;
+            }
+        }
+        
+        // Longest word: first word with the maximum length wins
+        if (length > longestLength) {
+            longestLength = length;
+            longestWord = new String(buffer, start, length);
+        }
+        
+        // Shortest word: first word with the minimum length wins
+        if (shortestLength == 0 || length < shortestLength) {
+            shortestLength = length;
+            shortestWord = new String(buffer, start, length);
+        }
+        
+        if (frequencyTable != null) {
+            frequencyTable.add(buffer, start, end);
+        }
+        
+        if (wordSketches != null) {
+            wordSketches.add(buffer, start, end);
+        }
+        
+        if (termMatcher != null) {
+            termState = termMatcher.matchWord(termState, buffer, start, end, termCounts);
+        }
+        
+        if (wordCollector != null) {
+            wordCollector.add(new String(buffer, start, length));
+        }
+    }
+    
+    /**
+     * True for ASCII letters only (same as the old [a-zA-Z] pattern)
+     */
+    static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    
+    /**
+     * Lowercases an ASCII letter
+     */
+    private static char lower(char c) {
+        return (char) (c | 0x20);
+    }
+    
+    // Getters
+    public long getWordCount() {
+        return wordCount;
+    }
+    
+    /**
+     * Histogram of the word lengths seen so far (a copy)
+     */
+    public LengthHistogram getWordLengths() {
+        return LengthHistogram.of(lengthCounts, totalLength);
+    }
+    
+    public long getIsCount() {
+        return isCount;
+    }
+    
+    public long getAreCount() {
+        return areCount;
+    }
+    
+    public long getYouCount() {
+        return youCount;
+    }
+    
+    public String getLongestWord() {
+        return longestWord;
+    }
+    
+    public String getShortestWord() {
+        return shortestWord;
+    }
+}
\ No newline at end of file
@@ -4,9 +4,13 @@
  */
 package gui;
 
+import core.ProcessingRun;
 import core.StatisticsManager;
+import core.TermMatcher;
+import metrics.ProcessingMetrics;
 import model.FileStats;
 import model.GlobalStats;
+import threading.ExecutorStrategy;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
@@ -14,27 +18,43 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Logger;
+import javax.management.JMException;
 
 /**
  * Main GUI window for the Word Statistics application
  */
 public class MainWindow extends JFrame implements ProgressListener {
     
+    private static final Logger LOGGER = Logger.getLogger(MainWindow.class.getName());
+    
     // Components
     private JTextField directoryField;
     private JButton browseButton;
     private JButton startButton;
     private JCheckBox subdirCheckbox;
+    private JComboBox<ExecutorStrategy> strategyCombo;
+    private JCheckBox watchCheckbox;
+    private JTextField termsField;
     private JTable resultsTable;
     private StatisticsTableModel tableModel;
     private JLabel totalFilesLabel;
     private JLabel totalWordsLabel;
     private JLabel longestWordLabel;
     private JLabel shortestWordLabel;
+    private JLabel wordLengthLabel;
     
     // Core components
     private StatisticsManager statisticsManager;
     
+    // Directory of the current run (watch mode starts on it when the run completes)
+    private String runDirectory;
+    private boolean runIncludeSubdirs;
+    private ProcessingRun currentRun; // the last run started (event thread only)
+    
     // Purple colors
     private final Color PURPLE_BG = new Color(230, 220, 255);
     private final Color LIGHT_PURPLE = new Color(245, 240, 255);
@@ -46,7 +66,14 @@ public class MainWindow extends JFrame implements ProgressListener {
      */
     public MainWindow() {
         statisticsManager = new StatisticsManager();
-        statisticsManager.setProgressListener(this);
+        // Events reach this window on the event thread, coalesced into batches
+        statisticsManager.setProgressListener(new SwingEventDispatcher(this));
+        // Live metrics for jconsole / VisualVM (wordstatistics:type=ProcessingMetrics)
+        try {
+            statisticsManager.getMetrics().registerMBean("gui");
+        } catch (JMException e) {
+            LOGGER.warning("Could not register the metrics MBean: " + e.getMessage());
+        }
         
         initUI();
         setWindowProperties();
@@ -112,7 +139,31 @@ public class MainWindow extends JFrame implements ProgressListener {
         startButton.setFont(new Font("Arial", Font.BOLD, 14));
         startButton.setFocusPainted(false);
         
+        // Executor strategy (virtual threads help on slow network/disk storage)
+        JLabel strategyLabel = new JLabel("Threads:");
+        strategyLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        strategyCombo = new JComboBox<>(ExecutorStrategy.values());
+        strategyCombo.setFont(new Font("Arial", Font.PLAIN, 12));
+        strategyCombo.setSelectedItem(statisticsManager.getExecutorStrategy());
+        
+        // Watch mode: keep the results current after the first scan
+        watchCheckbox = new JCheckBox("Watch for changes", false);
+        watchCheckbox.setFont(new Font("Arial", Font.PLAIN, 12));
+        watchCheckbox.setBackground(LIGHT_PURPLE);
+        
+        // Extra target terms (words or phrases), each gets its own column
+        JLabel termsLabel = new JLabel("Terms:");
+        termsLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        termsField = new JTextField(15);
+        termsField.setFont(new Font("Arial", Font.PLAIN, 12));
+        termsField.setToolTipText("Comma-separated words or phrases to count, e.g. the, thank you");
+        
         optionsPanel.add(subdirCheckbox);
+        optionsPanel.add(watchCheckbox);
+        optionsPanel.add(strategyLabel);
+        optionsPanel.add(strategyCombo);
+        optionsPanel.add(termsLabel);
+        optionsPanel.add(termsField);
         optionsPanel.add(startButton);
         
         // Add to main panel
@@ -200,11 +251,25 @@ public class MainWindow extends JFrame implements ProgressListener {
         shortestPanel.add(shortestTitle);
         shortestPanel.add(shortestWordLabel);
         
-        // Combine both panels
-        JPanel combinedPanel = new JPanel(new GridLayout(1, 2, 20, 0));
+        // Word length section (mean / median / p95)
+        JPanel lengthPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        lengthPanel.setBackground(LIGHT_PURPLE);
+        JLabel lengthTitle = new JLabel("Word length");
+        lengthTitle.setFont(new Font("Arial", Font.BOLD, 14));
+        lengthTitle.setForeground(DARK_PURPLE);
+        wordLengthLabel = new JLabel("");
+        wordLengthLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        wordLengthLabel.setForeground(DARK_PURPLE);
+        
+        lengthPanel.add(lengthTitle);
+        lengthPanel.add(wordLengthLabel);
+        
+        // Combine the panels
+        JPanel combinedPanel = new JPanel(new GridLayout(1, 3, 20, 0));
         combinedPanel.setBackground(LIGHT_PURPLE);
         combinedPanel.add(longestPanel);
         combinedPanel.add(shortestPanel);
+        combinedPanel.add(lengthPanel);
         
         // Add to main panel
         panel.add(combinedPanel, BorderLayout.CENTER);
@@ -247,6 +312,14 @@ public class MainWindow extends JFrame implements ProgressListener {
     private class StartAction implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
+            // While a run is in progress the button stops it
+            if (currentRun != null && !currentRun.isDone()) {
+                startButton.setEnabled(false);
+                startButton.setText("Stopping...");
+                currentRun.cancel(); // onProcessingComplete follows with the partial statistics
+                return;
+            }
+            
             String directoryPath = directoryField.getText().trim();
             
             if (directoryPath.isEmpty()) {
@@ -266,23 +339,37 @@ public class MainWindow extends JFrame implements ProgressListener {
                 return;
             }
             
+            // Compile the target terms (one column per term)
+            try {
+                statisticsManager.setTargetTerms(TermMatcher.parseTerms(termsField.getText()));
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(MainWindow.this,
+                    ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            if (!statisticsManager.getTargetTerms().equals(tableModel.getTermNames())) {
+                tableModel.setTermNames(statisticsManager.getTargetTerms());
+            }
+            
             // Clear previous results
             tableModel.clear();
             clearOverallStats();
             
-            // Disable start button during processing
-            startButton.setEnabled(false);
+            // The start button becomes the stop button during processing
             browseButton.setEnabled(false);
-            startButton.setText("Processing...");
+            startButton.setText("Stop Processing");
             startButton.setBackground(Color.GRAY);
             
             // Get checkbox state
             boolean includeSubdirs = subdirCheckbox.isSelected();
+            statisticsManager.setExecutorStrategy((ExecutorStrategy) strategyCombo.getSelectedItem());
+            runDirectory = directoryPath;
+            runIncludeSubdirs = includeSubdirs;
             
             // Start processing in a separate thread to keep GUI responsive
-            new Thread(() -> {
-                statisticsManager.processDirectory(directoryPath, includeSubdirs);
-            }).start();
+            currentRun = statisticsManager.startProcessing(directoryPath, includeSubdirs);
         }
     }
     
@@ -292,6 +379,7 @@ public class MainWindow extends JFrame implements ProgressListener {
     private void clearOverallStats() {
         longestWordLabel.setText("");
         shortestWordLabel.setText("");
+        wordLengthLabel.setText("");
     }
     
     // ProgressListener implementation methods
@@ -301,49 +389,60 @@ public class MainWindow extends JFrame implements ProgressListener {
         // Not used - no status display
     }
     
+    // All callbacks run on the event thread (see SwingEventDispatcher)
+    
     @Override
     public void onFileProcessed(FileStats fileStats, int filesProcessedSoFar, int totalFiles) {
-        SwingUtilities.invokeLater(() -> {
-            // Add to table in real-time
-            tableModel.addFileStats(fileStats);
-        });
+        // Add to table in real-time
+        tableModel.addFileStats(fileStats);
+    }
+    
+    @Override
+    public void onFilesProcessed(List<FileStats> batch, int filesProcessedSoFar, int totalFiles) {
+        // One insert event for the whole batch
+        tableModel.addFileStats(batch);
     }
     
     @Override
     public void onProcessingComplete(GlobalStats globalStats) {
-        SwingUtilities.invokeLater(() -> {
-            // Update overall statistics
-            updateOverallStats(globalStats);
-            
-            // Re-enable buttons
-            startButton.setEnabled(true);
-            browseButton.setEnabled(true);
-            startButton.setText("Start Processing");
-            startButton.setBackground(DARK_PURPLE);
-            
-            // Show completion message
-            JOptionPane.showMessageDialog(MainWindow.this,
-                "Processing complete!\n" +
-                "Processed " + globalStats.getTotalFilesProcessed() + " files.",
-                "Complete",
-                JOptionPane.INFORMATION_MESSAGE);
-        });
+        // Update overall statistics
+        updateOverallStats(globalStats);
+        
+        // Re-enable buttons
+        startButton.setEnabled(true);
+        browseButton.setEnabled(true);
+        startButton.setText("Start Processing");
+        startButton.setBackground(DARK_PURPLE);
+        
+        // Keep watching the directory if requested (not after a stopped run: its statistics are partial)
+        boolean stopped = currentRun != null && currentRun.getState() != ProcessingRun.State.COMPLETED;
+        if (watchCheckbox.isSelected() && !stopped) {
+            startWatching();
+        }
+        
+        // Show completion message
+        ProcessingMetrics metrics = statisticsManager.getMetrics();
+        JOptionPane.showMessageDialog(MainWindow.this,
+            (stopped ? "Processing stopped!\n" : "Processing complete!\n") +
+            "Processed " + globalStats.getTotalFilesProcessed() + " files.\n" +
+            String.format(Locale.ROOT, "%.2f s, %.1f MB/s, %.0f words/s", metrics.getElapsedSeconds(),
+                metrics.getBytesPerSecond() / (1024 * 1024), metrics.getWordsPerSecond()),
+            stopped ? "Stopped" : "Complete",
+            JOptionPane.INFORMATION_MESSAGE);
     }
     
     @Override
     public void onError(String fileName, String errorMessage) {
-        SwingUtilities.invokeLater(() -> {
-            // Re-enable buttons on error
-            startButton.setEnabled(true);
-            browseButton.setEnabled(true);
-            startButton.setText("Start Processing");
-            startButton.setBackground(DARK_PURPLE);
-            
-            JOptionPane.showMessageDialog(MainWindow.this,
-                "Error processing file: " + fileName + "\n" + errorMessage,
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
-        });
+        // Re-enable buttons on error
+        startButton.setEnabled(true);
+        browseButton.setEnabled(true);
+        startButton.setText("Start Processing");
+        startButton.setBackground(DARK_PURPLE);
+        
+        JOptionPane.showMessageDialog(MainWindow.this,
+            "Error processing file: " + fileName + "\n" + errorMessage,
+            "Error",
+            JOptionPane.ERROR_MESSAGE);
     }
     
     @Override
@@ -351,12 +450,51 @@ public class MainWindow extends JFrame implements ProgressListener {
         // Not used - no progress bar
     }
     
+    @Override
+    public void onFileUpdated(FileStats oldStats, FileStats newStats) {
+        // Watch mode: replace the file's row, or add it if the file is new
+        int row = oldStats != null ? tableModel.indexOfFilePath(oldStats.getFilePath()) : -1;
+        if (row >= 0) {
+            tableModel.updateFileStats(row, newStats);
+        } else {
+            tableModel.addFileStats(newStats);
+        }
+    }
+    
+    @Override
+    public void onFileRemoved(FileStats oldStats) {
+        int row = tableModel.indexOfFilePath(oldStats.getFilePath());
+        if (row >= 0) {
+            tableModel.removeFileStats(row);
+        }
+    }
+    
+    @Override
+    public void onGlobalStatsChanged(GlobalStats globalStats) {
+        updateOverallStats(globalStats);
+    }
+    
+    /**
+     * Start watch mode on the directory of the run that just completed
+     */
+    private void startWatching() {
+        try {
+            statisticsManager.startWatching(runDirectory, runIncludeSubdirs);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(MainWindow.this,
+                "Cannot watch directory: " + runDirectory + "\n" + ex.getMessage(),
+                "Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
     /**
      * Update the overall statistics display
      */
     private void updateOverallStats(GlobalStats globalStats) {
         longestWordLabel.setText(globalStats.getLongestWordInDirectory());
         shortestWordLabel.setText(globalStats.getShortestWordInDirectory());
+        wordLengthLabel.setText(globalStats.getTotalWordCount() > 0 ? globalStats.getWordLengths().toString() : "");
     }
     
     /**
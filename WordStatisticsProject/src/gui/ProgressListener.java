@@ -6,10 +6,14 @@ package gui;
 
 import model.FileStats;
 import model.GlobalStats;
+import java.util.List;
 
 /**
  * Interface for receiving real-time updates during file processing
  * This enables communication between worker threads and the GUI
+ * The engine calls these methods directly on the thread that produced the
+ * event (worker, discovery or watcher thread). The GUI wraps its listener in a
+ * SwingEventDispatcher, which moves the calls to the event thread in batches.
  */
 public interface ProgressListener {
     
@@ -21,6 +25,20 @@ public interface ProgressListener {
      */
     void onFileProcessed(FileStats fileStats, int filesProcessedSoFar, int totalFiles);
     
+    /**
+     * Called with several processed files at once (used by batching dispatchers)
+     * The default delivers them one by one to onFileProcessed.
+     * @param batch The statistics of the processed files, in completion order
+     * @param filesProcessedSoFar How many files have been processed so far (including the batch)
+     * @param totalFiles Total number of files to process
+     */
+    default void onFilesProcessed(List<FileStats> batch, int filesProcessedSoFar, int totalFiles) {
+        int first = filesProcessedSoFar - batch.size() + 1;
+        for (int i = 0; i < batch.size(); i++) {
+            onFileProcessed(batch.get(i), first + i, totalFiles);
+        }
+    }
+    
     /**
      * Called when all files have been processed
      * @param globalStats The combined statistics for all files
@@ -33,6 +51,36 @@ public interface ProgressListener {
      */
     void onProcessingStarted(int totalFiles);
     
+    /**
+     * Called when the directory walk has finished (pipelined mode only)
+     * Until then totalFiles in onFileProcessed is the number of files found so far.
+     * @param totalFiles Final number of files that will be processed
+     */
+    default void onDiscoveryComplete(int totalFiles) {
+    }
+    
+    /**
+     * Watch mode: a file was created or modified and analyzed again
+     * @param oldStats The previous statistics, or null for a new file
+     * @param newStats The new statistics
+     */
+    default void onFileUpdated(FileStats oldStats, FileStats newStats) {
+    }
+    
+    /**
+     * Watch mode: a file was deleted
+     * @param oldStats The statistics the file had
+     */
+    default void onFileRemoved(FileStats oldStats) {
+    }
+    
+    /**
+     * Watch mode: the totals changed after a batch of file updates
+     * @param globalStats The updated combined statistics
+     */
+    default void onGlobalStatsChanged(GlobalStats globalStats) {
+    }
+    
     /**
      * Called if an error occurs during processing
      * @param fileName The name of the file that caused the error
@@ -7,48 +7,176 @@ package gui;
 import model.FileStats;
 import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Custom TableModel for displaying file statistics in real-time
+ * UPDATED: Rows are kept in a columnar store instead of a list of FileStats:
+ * one primitive array per count, and the strings are deduplicated (a file
+ * name or word that appears in many rows is stored once; a path is stored as
+ * a shared directory prefix plus the file name). Rows can be appended in bulk
+ * with a single insert event, so a million-row result stays small and cheap
+ * to display.
+ * The configured target terms get one extra count column each (setTermNames).
  */
 public class StatisticsTableModel extends AbstractTableModel {
     
+    private static final int INITIAL_CAPACITY = 1024;
+    
     private final String[] columnNames = {
         "File", "Words", "is", "are", "you", "Longest", "Shortest"
     };
     
-    private final List<FileStats> data;
+    // Target-term columns, after the fixed ones
+    private List<String> termNames;
+    
+    // Column storage; only the first rowCount entries are used
+    private int rowCount;
+    private String[] fileNames;
+    private int[] directoryIds;
+    private long[] wordCounts;
+    private long[] isCounts;
+    private long[] areCounts;
+    private long[] youCounts;
+    private String[] longestWords;
+    private String[] shortestWords;
+    private long[][] termCounts; // [term][row]
+    private final BitSet errors;
+    
+    // Deduplicated strings (file names and words)
+    private final Map<String, String> stringPool;
+    // Directory prefixes of the file paths, referenced by directoryIds
+    private final List<String> directories;
+    private final Map<String, Integer> directoryIdByPrefix;
+    
+    // Row of each file, by file path (built on first use, for watch-mode updates)
+    private Map<String, Integer> rowByPath;
     
     public StatisticsTableModel() {
-        this.data = new ArrayList<>();
+        this.errors = new BitSet();
+        this.stringPool = new HashMap<>();
+        this.directories = new ArrayList<>();
+        this.directoryIdByPrefix = new HashMap<>();
+        this.termNames = List.of();
+        allocate(INITIAL_CAPACITY);
+    }
+    
+    public List<String> getTermNames() {
+        return termNames;
+    }
+    
+    /**
+     * Sets the target terms shown as extra columns (clears the table)
+     */
+    public void setTermNames(List<String> termNames) {
+        this.termNames = List.copyOf(termNames);
+        clear();
+        fireTableStructureChanged();
     }
     
     /**
      * Add a new file's statistics to the table
      */
     public void addFileStats(FileStats fileStats) {
-        data.add(fileStats);
+        ensureCapacity(rowCount + 1);
+        setRow(rowCount, fileStats);
+        rowCount++;
         // Notify table that a new row has been added
-        fireTableRowsInserted(data.size() - 1, data.size() - 1);
+        fireTableRowsInserted(rowCount - 1, rowCount - 1);
+    }
+    
+    /**
+     * Add several files at once with a single insert event
+     */
+    public void addFileStats(List<FileStats> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int firstRow = rowCount;
+        ensureCapacity(rowCount + batch.size());
+        for (FileStats fileStats : batch) {
+            setRow(rowCount, fileStats);
+            rowCount++;
+        }
+        fireTableRowsInserted(firstRow, rowCount - 1);
     }
     
     /**
      * Update existing file statistics
      */
     public void updateFileStats(int row, FileStats fileStats) {
-        if (row >= 0 && row < data.size()) {
-            data.set(row, fileStats);
+        if (row >= 0 && row < rowCount) {
+            if (rowByPath != null) {
+                rowByPath.remove(filePathAt(row));
+            }
+            setRow(row, fileStats);
             fireTableRowsUpdated(row, row);
         }
     }
     
+    /**
+     * Remove a file's row (e.g. file deleted while watching)
+     */
+    public void removeFileStats(int row) {
+        if (row >= 0 && row < rowCount) {
+            int moved = rowCount - row - 1;
+            System.arraycopy(fileNames, row + 1, fileNames, row, moved);
+            System.arraycopy(directoryIds, row + 1, directoryIds, row, moved);
+            System.arraycopy(wordCounts, row + 1, wordCounts, row, moved);
+            System.arraycopy(isCounts, row + 1, isCounts, row, moved);
+            System.arraycopy(areCounts, row + 1, areCounts, row, moved);
+            System.arraycopy(youCounts, row + 1, youCounts, row, moved);
+            System.arraycopy(longestWords, row + 1, longestWords, row, moved);
+            System.arraycopy(shortestWords, row + 1, shortestWords, row, moved);
+            for (long[] column : termCounts) {
+                System.arraycopy(column, row + 1, column, row, moved);
+            }
+            for (int i = row; i < rowCount - 1; i++) {
+                errors.set(i, errors.get(i + 1));
+            }
+            rowCount--;
+            errors.clear(rowCount);
+            fileNames[rowCount] = null;
+            longestWords[rowCount] = null;
+            shortestWords[rowCount] = null;
+            
+            // Rows after the removed one moved up; rebuilt when needed
+            rowByPath = null;
+            fireTableRowsDeleted(row, row);
+        }
+    }
+    
+    /**
+     * Find the row of a file
+     * @return The row index, or -1 if the file is not in the table
+     */
+    public int indexOfFilePath(String filePath) {
+        if (rowByPath == null) {
+            rowByPath = new HashMap<>(Math.max(16, rowCount * 2));
+            for (int row = 0; row < rowCount; row++) {
+                rowByPath.put(filePathAt(row), row);
+            }
+        }
+        Integer row = rowByPath.get(filePath);
+        return row != null ? row : -1;
+    }
+    
     /**
      * Clear all data from the table
      */
     public void clear() {
-        int oldSize = data.size();
-        data.clear();
+        int oldSize = rowCount;
+        rowCount = 0;
+        allocate(INITIAL_CAPACITY);
+        errors.clear();
+        stringPool.clear();
+        directories.clear();
+        directoryIdByPrefix.clear();
+        rowByPath = null;
         if (oldSize > 0) {
             fireTableRowsDeleted(0, oldSize - 1);
         }
@@ -56,10 +184,22 @@ public class StatisticsTableModel extends AbstractTableModel {
     
     /**
      * Get FileStats at specific row
+     * The row is stored in columns, so a new FileStats is built for it.
      */
     public FileStats getFileStatsAt(int row) {
-        if (row >= 0 && row < data.size()) {
-            return data.get(row);
+        if (row >= 0 && row < rowCount) {
+            FileStats stats = new FileStats(fileNames[row], filePathAt(row));
+            stats.updateStats(wordCounts[row], isCounts[row], areCounts[row], youCounts[row],
+                longestWords[row], shortestWords[row]);
+            stats.setError(errors.get(row));
+            if (!termNames.isEmpty()) {
+                long[] counts = new long[termNames.size()];
+                for (int term = 0; term < counts.length; term++) {
+                    counts[term] = termCounts[term][row];
+                }
+                stats.setTermCounts(counts);
+            }
+            return stats;
         }
         return null;
     }
@@ -68,54 +208,162 @@ public class StatisticsTableModel extends AbstractTableModel {
      * Get all file statistics
      */
     public List<FileStats> getAllFileStats() {
-        return new ArrayList<>(data);
+        List<FileStats> all = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            all.add(getFileStatsAt(row));
+        }
+        return all;
+    }
+    
+    /**
+     * Writes one FileStats into the columns of a row
+     */
+    private void setRow(int row, FileStats fileStats) {
+        String fileName = pooled(fileStats.getFileName());
+        String filePath = fileStats.getFilePath() != null ? fileStats.getFilePath() : "";
+        
+        fileNames[row] = fileName;
+        directoryIds[row] = directoryIdOf(filePath, fileName);
+        wordCounts[row] = fileStats.getWordCount();
+        isCounts[row] = fileStats.getIsCount();
+        areCounts[row] = fileStats.getAreCount();
+        youCounts[row] = fileStats.getYouCount();
+        longestWords[row] = pooled(fileStats.getLongestWord());
+        shortestWords[row] = pooled(fileStats.getShortestWord());
+        errors.set(row, fileStats.isError());
+        
+        long[] counts = fileStats.getTermCounts();
+        for (int term = 0; term < termCounts.length; term++) {
+            termCounts[term][row] = counts != null && term < counts.length ? counts[term] : 0;
+        }
+        
+        if (rowByPath != null) {
+            rowByPath.put(filePath, row);
+        }
+    }
+    
+    /**
+     * Id of the directory prefix of a path
+     * The path is normally the prefix followed by the file name; if not, the
+     * whole path is stored as the "prefix" and the id is negated (-id - 1).
+     */
+    private int directoryIdOf(String filePath, String fileName) {
+        boolean endsWithName = fileName != null && filePath.endsWith(fileName);
+        String prefix = endsWithName ? filePath.substring(0, filePath.length() - fileName.length()) : filePath;
+        
+        Integer id = directoryIdByPrefix.get(prefix);
+        if (id == null) {
+            id = directories.size();
+            directories.add(prefix);
+            directoryIdByPrefix.put(prefix, id);
+        }
+        return endsWithName ? id : -id - 1;
+    }
+    
+    private String filePathAt(int row) {
+        int id = directoryIds[row];
+        if (id < 0) {
+            return directories.get(-id - 1);
+        }
+        return directories.get(id) + fileNames[row];
+    }
+    
+    /**
+     * Returns the shared instance of a string (the pool is cleared with the table)
+     */
+    private String pooled(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = stringPool.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+    
+    private void allocate(int capacity) {
+        fileNames = new String[capacity];
+        directoryIds = new int[capacity];
+        wordCounts = new long[capacity];
+        isCounts = new long[capacity];
+        areCounts = new long[capacity];
+        youCounts = new long[capacity];
+        longestWords = new String[capacity];
+        shortestWords = new String[capacity];
+        termCounts = new long[termNames.size()][capacity];
+    }
+    
+    /**
+     * Grows the columns (by half) so at least minCapacity rows fit
+     */
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity <= wordCounts.length) {
+            return;
+        }
+        int capacity = Math.max(minCapacity, wordCounts.length + (wordCounts.length >> 1));
+        fileNames = Arrays.copyOf(fileNames, capacity);
+        directoryIds = Arrays.copyOf(directoryIds, capacity);
+        wordCounts = Arrays.copyOf(wordCounts, capacity);
+        isCounts = Arrays.copyOf(isCounts, capacity);
+        areCounts = Arrays.copyOf(areCounts, capacity);
+        youCounts = Arrays.copyOf(youCounts, capacity);
+        longestWords = Arrays.copyOf(longestWords, capacity);
+        shortestWords = Arrays.copyOf(shortestWords, capacity);
+        for (int term = 0; term < termCounts.length; term++) {
+            termCounts[term] = Arrays.copyOf(termCounts[term], capacity);
+        }
     }
     
     // Required TableModel methods
     
     @Override
     public int getRowCount() {
-        return data.size();
+        return rowCount;
     }
     
     @Override
     public int getColumnCount() {
-        return columnNames.length;
+        return columnNames.length + termNames.size();
     }
     
     @Override
     public String getColumnName(int column) {
+        if (column >= columnNames.length) {
+            return termNames.get(column - columnNames.length);
+        }
         return columnNames[column];
     }
     
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        if (rowIndex >= data.size()) {
+        if (rowIndex >= rowCount) {
             return null;
         }
-        
-        FileStats stats = data.get(rowIndex);
+        if (columnIndex >= columnNames.length) {
+            return termCounts[columnIndex - columnNames.length][rowIndex];
+        }
         
         switch (columnIndex) {
-            case 0: return stats.getFileName();
-            case 1: return stats.getWordCount();
-            case 2: return stats.getIsCount();
-            case 3: return stats.getAreCount();
-            case 4: return stats.getYouCount();
-            case 5: return stats.getLongestWord();
-            case 6: return stats.getShortestWord();
+            case 0: return fileNames[rowIndex];
+            case 1: return wordCounts[rowIndex];
+            case 2: return isCounts[rowIndex];
+            case 3: return areCounts[rowIndex];
+            case 4: return youCounts[rowIndex];
+            case 5: return longestWords[rowIndex];
+            case 6: return shortestWords[rowIndex];
             default: return null;
         }
     }
     
     @Override
     public Class<?> getColumnClass(int columnIndex) {
+        if (columnIndex >= columnNames.length) {
+            return Long.class;
+        }
         switch (columnIndex) {
             case 0: return String.class;
-            case 1: return Integer.class;
-            case 2: return Integer.class;
-            case 3: return Integer.class;
-            case 4: return Integer.class;
+            case 1: return Long.class;
+            case 2: return Long.class;
+            case 3: return Long.class;
+            case 4: return Long.class;
             case 5: return String.class;
             case 6: return String.class;
             default: return Object.class;
@@ -0,0 +1,186 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package gui;
+
+import model.FileStats;
+import model.GlobalStats;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javax.swing.Timer;
+
+/**
+ * Delivers progress events to a listener on the Swing event thread, in batches
+ * The engine calls its listener directly from the worker threads. Wrapping the
+ * GUI listener in this dispatcher queues those calls and flushes them at most
+ * once per interval (50 ms by default): consecutive onFileProcessed events
+ * become one onFilesProcessed batch and only the last progress value is kept.
+ * So the event queue gets one entry per interval instead of one per file, and
+ * the GUI is up to date as soon as the workers are done.
+ *
+ * Events keep their order; the other callbacks are delivered one by one.
+ */
+public class SwingEventDispatcher implements ProgressListener {
+    
+    // Default time between two flushes to the event thread
+    public static final int DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    
+    private final ProgressListener target;
+    private final Queue<Object> pendingEvents;
+    private final AtomicBoolean flushScheduled;
+    private final Timer flushTimer;
+    
+    /**
+     * A processed file waiting to be delivered
+     */
+    private static final class FileEvent {
+        final FileStats stats;
+        final int processedCount;
+        final int totalFiles;
+        
+        FileEvent(FileStats stats, int processedCount, int totalFiles) {
+            this.stats = stats;
+            this.processedCount = processedCount;
+            this.totalFiles = totalFiles;
+        }
+    }
+    
+    /**
+     * A progress value waiting to be delivered (only the last one of a batch is)
+     */
+    private static final class ProgressEvent {
+        final int progress;
+        
+        ProgressEvent(int progress) {
+            this.progress = progress;
+        }
+    }
+    
+    // Constructor
+    public SwingEventDispatcher(ProgressListener target) {
+        this(target, DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Constructor
+     *
+     * @param target The listener that receives the events on the event thread
+     * @param flushIntervalMillis Delay between the first queued event and its flush
+     */
+    public SwingEventDispatcher(ProgressListener target, int flushIntervalMillis) {
+        this.target = target;
+        this.pendingEvents = new ConcurrentLinkedQueue<>();
+        this.flushScheduled = new AtomicBoolean();
+        this.flushTimer = new Timer(flushIntervalMillis, e -> flush());
+        this.flushTimer.setRepeats(false);
+    }
+    
+    // ProgressListener implementation methods (called from any thread)
+    
+    @Override
+    public void onFileProcessed(FileStats fileStats, int filesProcessedSoFar, int totalFiles) {
+        enqueue(new FileEvent(fileStats, filesProcessedSoFar, totalFiles));
+    }
+    
+    @Override
+    public void onFilesProcessed(List<FileStats> batch, int filesProcessedSoFar, int totalFiles) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onFilesProcessed(batch, filesProcessedSoFar, totalFiles));
+    }
+    
+    @Override
+    public void onProgressUpdate(int progress) {
+        enqueue(new ProgressEvent(progress));
+    }
+    
+    @Override
+    public void onProcessingStarted(int totalFiles) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onProcessingStarted(totalFiles));
+    }
+    
+    @Override
+    public void onDiscoveryComplete(int totalFiles) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onDiscoveryComplete(totalFiles));
+    }
+    
+    @Override
+    public void onProcessingComplete(GlobalStats globalStats) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onProcessingComplete(globalStats));
+    }
+    
+    @Override
+    public void onError(String fileName, String errorMessage) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onError(fileName, errorMessage));
+    }
+    
+    @Override
+    public void onFileUpdated(FileStats oldStats, FileStats newStats) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onFileUpdated(oldStats, newStats));
+    }
+    
+    @Override
+    public void onFileRemoved(FileStats oldStats) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onFileRemoved(oldStats));
+    }
+    
+    @Override
+    public void onGlobalStatsChanged(GlobalStats globalStats) {
+        enqueue((Consumer<ProgressListener>) listener -> listener.onGlobalStatsChanged(globalStats));
+    }
+    
+    /**
+     * Queues an event; the first event after a flush schedules the next one
+     */
+    private void enqueue(Object event) {
+        pendingEvents.add(event);
+        if (flushScheduled.compareAndSet(false, true)) {
+            flushTimer.restart();
+        }
+    }
+    
+    /**
+     * Delivers everything queued so far (runs on the event thread)
+     */
+    @SuppressWarnings("unchecked")
+    private void flush() {
+        // Cleared first: events queued during the flush schedule a new one
+        flushScheduled.set(false);
+        
+        List<FileStats> batch = new ArrayList<>();
+        int processedCount = 0;
+        int totalFiles = 0;
+        int progress = -1;
+        
+        Object event;
+        while ((event = pendingEvents.poll()) != null) {
+            if (event instanceof FileEvent fileEvent) {
+                batch.add(fileEvent.stats);
+                // Workers finish out of order: keep the highest count
+                processedCount = Math.max(processedCount, fileEvent.processedCount);
+                totalFiles = fileEvent.totalFiles;
+            } else if (event instanceof ProgressEvent progressEvent) {
+                progress = progressEvent.progress;
+            } else {
+                // Anything else must see the files queued before it
+                deliverBatch(batch, processedCount, totalFiles, progress);
+                batch = new ArrayList<>();
+                progress = -1;
+                ((Consumer<ProgressListener>) event).accept(target);
+            }
+        }
+        deliverBatch(batch, processedCount, totalFiles, progress);
+    }
+    
+    private void deliverBatch(List<FileStats> batch, int processedCount, int totalFiles, int progress) {
+        if (!batch.isEmpty()) {
+            target.onFilesProcessed(batch, processedCount, totalFiles);
+        }
+        if (progress >= 0) {
+            target.onProgressUpdate(progress);
+        }
+    }
+}
\ No newline at end of file
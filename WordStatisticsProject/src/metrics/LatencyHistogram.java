@@ -0,0 +1,144 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds
+ * Buckets are log-linear: values below 16 ns get one bucket each, above that
+ * every power of two is split into 8 buckets, so a percentile is never off by
+ * more than 12.5% whatever the range (nanoseconds to hours). Recording is one
+ * atomic increment plus two adders; workers never wait for each other.
+ */
+public class LatencyHistogram {
+    
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS; // values below get their own bucket
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - 4) * SUB_BUCKETS;
+    
+    private final AtomicLongArray buckets;
+    private final LongAdder count;
+    private final LongAdder total;
+    private final AtomicLong max;
+    
+    // Constructor
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new LongAdder();
+        this.total = new LongAdder();
+        this.max = new AtomicLong();
+    }
+    
+    /**
+     * Records one duration (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+    
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Sum of all recorded durations
+     */
+    public long getTotalNanos() {
+        return total.sum();
+    }
+    
+    public long getMaxNanos() {
+        return max.get();
+    }
+    
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : total.sum() / (double) n;
+    }
+    
+    /**
+     * Nearest-rank percentile (the middle of its bucket, at most the maximum)
+     * @param percentile Between 0 and 100
+     * @return The duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        // Bucket counts, not count.sum(): a concurrent record may be half done
+        long n = 0;
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long low = lowerBound(i);
+                return Math.min(low + (lowerBound(i + 1) - low) / 2, max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    /**
+     * Forgets everything (not atomic with concurrent records)
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+    
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= 4
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+    
+    /**
+     * Smallest value of a bucket
+     */
+    static long lowerBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        if (bucket >= BUCKET_COUNT) {
+            return Long.MAX_VALUE;
+        }
+        int exponent = 4 + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        long sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        return (1L << exponent) | (sub << (exponent - SUB_BUCKET_BITS));
+    }
+    
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "n %d, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+            getCount(), getPercentileNanos(50) / 1e6, getPercentileNanos(99) / 1e6, getMaxNanos() / 1e6);
+    }
+}
\ No newline at end of file
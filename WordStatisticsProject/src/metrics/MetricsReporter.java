@@ -0,0 +1,81 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the metrics to a stream at a fixed interval, as text or JSON lines
+ * Runs on its own daemon thread, so it never keeps the JVM alive and never
+ * slows down the workers (reading the metrics takes no lock).
+ */
+public class MetricsReporter {
+    
+    /**
+     * Output format of a dump
+     */
+    public enum Format {
+        /** One summary line (ProcessingMetrics.getSummary) */
+        TEXT,
+        /** One JSON object per line (ProcessingMetrics.toJson) */
+        JSON
+    }
+    
+    private final ProcessingMetrics metrics;
+    private final PrintStream out;
+    private final Format format;
+    private ScheduledExecutorService scheduler;
+    
+    /**
+     * Constructor
+     *
+     * @param out Where the dumps go (e.g. System.err)
+     */
+    public MetricsReporter(ProcessingMetrics metrics, PrintStream out, Format format) {
+        this.metrics = metrics;
+        this.out = out;
+        this.format = format != null ? format : Format.TEXT;
+    }
+    
+    /**
+     * Starts dumping every intervalMillis
+     */
+    public synchronized void start(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: " + intervalMillis);
+        }
+        stop();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stops the periodic dumps (no-op if not started)
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+    /**
+     * Writes one dump now
+     */
+    public void report() {
+        String dump = format == Format.JSON ? metrics.toJson() : "Metrics: " + metrics.getSummary();
+        synchronized (out) {
+            out.println(dump);
+            out.flush();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,521 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package metrics;
+
+import model.FileStats;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters, gauges and latency histograms of the processing pipeline
+ * Workers record into LongAdders and lock-free histograms, so recording costs
+ * a few nanoseconds and never makes two workers wait for each other. Readers
+ * (JMX, the periodic MetricsReporter, the GUI) see totals that may lag behind
+ * by the files currently being recorded.
+ *
+ * Per file the time is split into read (I/O: opening, reading, decoding) and
+ * analyze (tokenizing). For memory-mapped files pages are faulted in while
+ * tokenizing, so their read time is only the mapping itself.
+ *
+ * Runs that are planned up front (core.TaskScheduler) also report the
+ * predicted makespan next to the actual one, measured from the dispatch of
+ * the first task to the end of the last.
+ */
+public class ProcessingMetrics implements ProcessingMetricsMBean {
+    
+    // JMX domain of the registered MBeans
+    public static final String JMX_DOMAIN = "wordstatistics";
+    
+    private final LongAdder filesProcessed;
+    private final LongAdder filesFailed;
+    private final LongAdder bytesRead;
+    private final LongAdder wordsCounted;
+    private final LongAdder filesStarted;
+    private final LongAdder busyNanos;
+    private final AtomicInteger activeWorkers;
+    
+    private final LatencyHistogram readLatency;
+    private final LatencyHistogram analyzeLatency;
+    private final LatencyHistogram fileLatency;
+    
+    // Run state, written by the thread that starts and completes the run
+    private volatile long runStartNanos;
+    private volatile long runEndNanos;
+    private volatile long discoveryNanos;
+    private volatile int workerSlots;
+    private volatile IntSupplier discoveredFiles;
+    private volatile IntSupplier queueDepth;
+    
+    // Plan of the run (scheduledTasks = 0 when the run was not planned)
+    private volatile long dispatchStartNanos;
+    private volatile long expectedMakespanNanos;
+    private volatile long makespanLowerBoundNanos;
+    private volatile int scheduledTasks;
+    private volatile int batchedFiles;
+    
+    private ObjectName objectName;
+    
+    /**
+     * Times one file: everything between construction and recordFile, of
+     * which the startRead/endRead intervals count as read time
+     * Used by a single thread.
+     */
+    public static final class FileTimer {
+        private long startTime;
+        private long readNanos;
+        private long readStart;
+        private long bytes;
+        
+        // Constructor
+        public FileTimer() {
+            this.startTime = System.nanoTime();
+        }
+        
+        /**
+         * Starts timing the next file (a worker reuses its timer)
+         */
+        public void restart() {
+            startTime = System.nanoTime();
+            readNanos = 0;
+            bytes = 0;
+        }
+        
+        public void startRead() {
+            readStart = System.nanoTime();
+        }
+        
+        public void endRead() {
+            readNanos += System.nanoTime() - readStart;
+        }
+        
+        /**
+         * Adds a read that happened before the timer was created (e.g. on another thread)
+         */
+        public void addEarlierRead(long nanos) {
+            readNanos += nanos;
+            startTime -= nanos;
+        }
+        
+        public void setBytes(long bytes) {
+            this.bytes = bytes;
+        }
+    }
+    
+    // Constructor
+    public ProcessingMetrics() {
+        this.filesProcessed = new LongAdder();
+        this.filesFailed = new LongAdder();
+        this.bytesRead = new LongAdder();
+        this.wordsCounted = new LongAdder();
+        this.filesStarted = new LongAdder();
+        this.busyNanos = new LongAdder();
+        this.activeWorkers = new AtomicInteger();
+        this.readLatency = new LatencyHistogram();
+        this.analyzeLatency = new LatencyHistogram();
+        this.fileLatency = new LatencyHistogram();
+    }
+    
+    // Recording (worker threads)
+    
+    /**
+     * Records a processed file
+     * @param stats The result, or null if the file could not be processed
+     */
+    public void recordFile(FileTimer timer, FileStats stats) {
+        long totalNanos = System.nanoTime() - timer.startTime;
+        long readNanos = Math.min(timer.readNanos, totalNanos);
+        readLatency.record(readNanos);
+        analyzeLatency.record(totalNanos - readNanos);
+        fileLatency.record(totalNanos);
+        bytesRead.add(timer.bytes);
+        if (stats == null || stats.isError()) {
+            filesFailed.increment();
+        } else {
+            wordsCounted.add(stats.getWordCount());
+        }
+        filesProcessed.increment();
+    }
+    
+    /**
+     * A worker picked up a file; returns the start time for taskFinished
+     */
+    public long taskStarted() {
+        return taskStarted(1);
+    }
+    
+    /**
+     * A worker picked up a batch of files; returns the start time for taskFinished
+     */
+    public long taskStarted(int files) {
+        filesStarted.add(files);
+        activeWorkers.incrementAndGet();
+        return System.nanoTime();
+    }
+    
+    /**
+     * A worker is done with the file (or batch) it picked up at startTime
+     */
+    public void taskFinished(long startTime) {
+        busyNanos.add(System.nanoTime() - startTime);
+        activeWorkers.decrementAndGet();
+    }
+    
+    // Run lifecycle (the thread that runs discovery)
+    
+    /**
+     * Clears the counters and starts the clock for a new run
+     *
+     * @param workerSlots Number of files that can be processed at the same time
+     * @param discoveredFiles Files found so far by the walk
+     * @param queueDepth Entries waiting in the work queue
+     */
+    public void startRun(int workerSlots, IntSupplier discoveredFiles, IntSupplier queueDepth) {
+        reset();
+        this.workerSlots = workerSlots;
+        this.discoveredFiles = discoveredFiles;
+        this.queueDepth = queueDepth;
+        this.runStartNanos = System.nanoTime();
+        this.runEndNanos = 0;
+    }
+    
+    /**
+     * The walk is over (in pipelined mode it overlapped with processing)
+     */
+    public void discoveryFinished() {
+        discoveryNanos = System.nanoTime() - runStartNanos;
+    }
+    
+    /**
+     * The planned tasks are being dispatched now
+     *
+     * @param tasks Number of tasks (a batch of small files is one task)
+     * @param batchedFiles Files that run inside batches
+     * @param expectedMakespanNanos Predicted time until the last task is done
+     * @param lowerBoundNanos Shortest possible makespan for the estimated costs
+     */
+    public void scheduleStarted(int tasks, int batchedFiles, long expectedMakespanNanos, long lowerBoundNanos) {
+        this.scheduledTasks = tasks;
+        this.batchedFiles = batchedFiles;
+        this.expectedMakespanNanos = expectedMakespanNanos;
+        this.makespanLowerBoundNanos = lowerBoundNanos;
+        this.dispatchStartNanos = System.nanoTime();
+    }
+    
+    /**
+     * Stops the clock; the rates stay those of the finished run
+     */
+    public void endRun() {
+        if (runStartNanos != 0 && runEndNanos == 0) {
+            runEndNanos = System.nanoTime();
+        }
+    }
+    
+    // Read access (any thread, JMX)
+    
+    @Override
+    public long getFilesProcessed() {
+        return filesProcessed.sum();
+    }
+    
+    @Override
+    public long getFilesFailed() {
+        return filesFailed.sum();
+    }
+    
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+    
+    @Override
+    public long getWordsCounted() {
+        return wordsCounted.sum();
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return runStartNanos != 0 && runEndNanos == 0;
+    }
+    
+    @Override
+    public double getElapsedSeconds() {
+        long start = runStartNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long end = runEndNanos;
+        return ((end != 0 ? end : System.nanoTime()) - start) / 1e9;
+    }
+    
+    @Override
+    public double getDiscoveryMillis() {
+        return discoveryNanos / 1e6;
+    }
+    
+    @Override
+    public double getFilesPerSecond() {
+        return perSecond(getFilesProcessed());
+    }
+    
+    @Override
+    public double getBytesPerSecond() {
+        return perSecond(getBytesRead());
+    }
+    
+    @Override
+    public double getWordsPerSecond() {
+        return perSecond(getWordsCounted());
+    }
+    
+    @Override
+    public long getPendingFiles() {
+        IntSupplier discovered = discoveredFiles;
+        return discovered == null || !isRunning() ? 0 : Math.max(0, discovered.getAsInt() - filesStarted.sum());
+    }
+    
+    @Override
+    public int getQueueDepth() {
+        IntSupplier depth = queueDepth;
+        return depth == null || !isRunning() ? 0 : depth.getAsInt();
+    }
+    
+    @Override
+    public int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+    
+    @Override
+    public int getWorkerSlots() {
+        return workerSlots;
+    }
+    
+    @Override
+    public double getWorkerUtilization() {
+        double available = getElapsedSeconds() * 1e9 * workerSlots;
+        return available <= 0 ? 0 : Math.min(1, busyNanos.sum() / available);
+    }
+    
+    @Override
+    public double getTotalReadMillis() {
+        return readLatency.getTotalNanos() / 1e6;
+    }
+    
+    @Override
+    public double getTotalAnalyzeMillis() {
+        return analyzeLatency.getTotalNanos() / 1e6;
+    }
+    
+    @Override
+    public double getFileLatencyP50Millis() {
+        return fileLatency.getPercentileNanos(50) / 1e6;
+    }
+    
+    @Override
+    public double getFileLatencyP99Millis() {
+        return fileLatency.getPercentileNanos(99) / 1e6;
+    }
+    
+    @Override
+    public double getFileLatencyMaxMillis() {
+        return fileLatency.getMaxNanos() / 1e6;
+    }
+    
+    @Override
+    public double getReadLatencyP99Millis() {
+        return readLatency.getPercentileNanos(99) / 1e6;
+    }
+    
+    @Override
+    public double getAnalyzeLatencyP99Millis() {
+        return analyzeLatency.getPercentileNanos(99) / 1e6;
+    }
+    
+    @Override
+    public int getScheduledTasks() {
+        return scheduledTasks;
+    }
+    
+    @Override
+    public int getBatchedFiles() {
+        return batchedFiles;
+    }
+    
+    @Override
+    public double getExpectedMakespanMillis() {
+        return expectedMakespanNanos / 1e6;
+    }
+    
+    @Override
+    public double getMakespanLowerBoundMillis() {
+        return makespanLowerBoundNanos / 1e6;
+    }
+    
+    @Override
+    public double getActualMakespanMillis() {
+        long start = dispatchStartNanos;
+        if (start == 0) {
+            return 0;
+        }
+        long end = runEndNanos;
+        return ((end != 0 ? end : System.nanoTime()) - start) / 1e6;
+    }
+    
+    /**
+     * Time the workers spent on files, summed over all workers
+     */
+    public long getBusyNanos() {
+        return busyNanos.sum();
+    }
+    
+    public LatencyHistogram getReadLatency() {
+        return readLatency;
+    }
+    
+    public LatencyHistogram getAnalyzeLatency() {
+        return analyzeLatency;
+    }
+    
+    public LatencyHistogram getFileLatency() {
+        return fileLatency;
+    }
+    
+    @Override
+    public void reset() {
+        filesProcessed.reset();
+        filesFailed.reset();
+        bytesRead.reset();
+        wordsCounted.reset();
+        filesStarted.reset();
+        busyNanos.reset();
+        readLatency.reset();
+        analyzeLatency.reset();
+        fileLatency.reset();
+        discoveryNanos = 0;
+        dispatchStartNanos = 0;
+        expectedMakespanNanos = 0;
+        makespanLowerBoundNanos = 0;
+        scheduledTasks = 0;
+        batchedFiles = 0;
+    }
+    
+    private double perSecond(long value) {
+        double seconds = getElapsedSeconds();
+        return seconds <= 0 ? 0 : value / seconds;
+    }
+    
+    // Export
+    
+    /**
+     * Registers this object with the platform MBean server
+     * @param name Value of the "name" key, e.g. the directory being processed
+     * @throws JMException If the name is taken or invalid
+     */
+    public synchronized void registerMBean(String name) throws JMException {
+        unregisterMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ProcessingMetrics,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        this.objectName = objectName;
+    }
+    
+    /**
+     * Removes the MBean again (no-op if not registered)
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        }
+    }
+    
+    /**
+     * One-line text form, for logs
+     */
+    @Override
+    public String getSummary() {
+        String summary = String.format(Locale.ROOT,
+            "files %d (%d failed, %d pending, queue %d), %.1f MB/s, %.0f words/s, %.0f files/s, "
+            + "workers %d/%d (%.0f%% busy), discovery %.0f ms, read %.0f ms, analyze %.0f ms, "
+            + "file latency p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+            getFilesProcessed(), getFilesFailed(), getPendingFiles(), getQueueDepth(),
+            getBytesPerSecond() / (1024 * 1024), getWordsPerSecond(), getFilesPerSecond(),
+            getActiveWorkers(), getWorkerSlots(), getWorkerUtilization() * 100,
+            getDiscoveryMillis(), getTotalReadMillis(), getTotalAnalyzeMillis(),
+            getFileLatencyP50Millis(), getFileLatencyP99Millis(), getFileLatencyMaxMillis());
+        if (scheduledTasks > 0) {
+            summary += String.format(Locale.ROOT, ", makespan expected %.0f ms (bound %.0f ms), actual %.0f ms",
+                getExpectedMakespanMillis(), getMakespanLowerBoundMillis(), getActualMakespanMillis());
+        }
+        return summary;
+    }
+    
+    /**
+     * JSON object with all values (one line, record type "metrics")
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(640);
+        json.append("{\"type\":\"metrics\"");
+        json.append(",\"running\":").append(isRunning());
+        json.append(",\"elapsedSeconds\":").append(format(getElapsedSeconds()));
+        json.append(",\"filesProcessed\":").append(getFilesProcessed());
+        json.append(",\"filesFailed\":").append(getFilesFailed());
+        json.append(",\"bytesRead\":").append(getBytesRead());
+        json.append(",\"wordsCounted\":").append(getWordsCounted());
+        json.append(",\"filesPerSecond\":").append(format(getFilesPerSecond()));
+        json.append(",\"bytesPerSecond\":").append(format(getBytesPerSecond()));
+        json.append(",\"wordsPerSecond\":").append(format(getWordsPerSecond()));
+        json.append(",\"pendingFiles\":").append(getPendingFiles());
+        json.append(",\"queueDepth\":").append(getQueueDepth());
+        json.append(",\"activeWorkers\":").append(getActiveWorkers());
+        json.append(",\"workerSlots\":").append(getWorkerSlots());
+        json.append(",\"workerUtilization\":").append(format(getWorkerUtilization()));
+        json.append(",\"discoveryMillis\":").append(format(getDiscoveryMillis()));
+        appendJsonLatency(json, "readMillis", readLatency);
+        appendJsonLatency(json, "analyzeMillis", analyzeLatency);
+        appendJsonLatency(json, "fileMillis", fileLatency);
+        if (scheduledTasks > 0) {
+            appendJsonMakespan(json);
+        }
+        json.append('}');
+        return json.toString();
+    }
+    
+    /**
+     * The "makespan" object (also used in the batch-mode summary)
+     */
+    public void appendJsonMakespan(StringBuilder json) {
+        json.append(",\"makespan\":{\"tasks\":").append(scheduledTasks);
+        json.append(",\"batchedFiles\":").append(batchedFiles);
+        json.append(",\"expectedMillis\":").append(format(getExpectedMakespanMillis()));
+        json.append(",\"lowerBoundMillis\":").append(format(getMakespanLowerBoundMillis()));
+        json.append(",\"actualMillis\":").append(format(getActualMakespanMillis()));
+        json.append('}');
+    }
+    
+    private static void appendJsonLatency(StringBuilder json, String name, LatencyHistogram histogram) {
+        json.append(",\"").append(name).append("\":{\"total\":").append(format(histogram.getTotalNanos() / 1e6));
+        json.append(",\"mean\":").append(format(histogram.getMeanNanos() / 1e6));
+        json.append(",\"p50\":").append(format(histogram.getPercentileNanos(50) / 1e6));
+        json.append(",\"p90\":").append(format(histogram.getPercentileNanos(90) / 1e6));
+        json.append(",\"p99\":").append(format(histogram.getPercentileNanos(99) / 1e6));
+        json.append(",\"max\":").append(format(histogram.getMaxNanos() / 1e6));
+        json.append('}');
+    }
+    
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+    
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package metrics;
+
+/**
+ * JMX view of ProcessingMetrics (standard MBean: every getter is an attribute)
+ * Times are in milliseconds, rates per second of the current or last run.
+ */
+public interface ProcessingMetricsMBean {
+    
+    long getFilesProcessed();
+    
+    long getFilesFailed();
+    
+    long getBytesRead();
+    
+    long getWordsCounted();
+    
+    boolean isRunning();
+    
+    double getElapsedSeconds();
+    
+    double getDiscoveryMillis();
+    
+    double getFilesPerSecond();
+    
+    double getBytesPerSecond();
+    
+    double getWordsPerSecond();
+    
+    /**
+     * Files found but not started yet
+     */
+    long getPendingFiles();
+    
+    /**
+     * Entries in the work queue of the current strategy
+     */
+    int getQueueDepth();
+    
+    int getActiveWorkers();
+    
+    int getWorkerSlots();
+    
+    /**
+     * Share of the worker slots that was busy during the run (0 to 1)
+     * A slot is a thread, or a concurrent read with virtual threads; there a
+     * task waiting for its read permit already counts as busy.
+     */
+    double getWorkerUtilization();
+    
+    double getTotalReadMillis();
+    
+    double getTotalAnalyzeMillis();
+    
+    double getFileLatencyP50Millis();
+    
+    double getFileLatencyP99Millis();
+    
+    double getFileLatencyMaxMillis();
+    
+    double getReadLatencyP99Millis();
+    
+    double getAnalyzeLatencyP99Millis();
+    
+    /**
+     * Tasks of the planned run (0 if the run was not planned, e.g. pipelined)
+     */
+    int getScheduledTasks();
+    
+    int getBatchedFiles();
+    
+    double getExpectedMakespanMillis();
+    
+    double getMakespanLowerBoundMillis();
+    
+    /**
+     * From the dispatch of the first task to the end of the last
+     */
+    double getActualMakespanMillis();
+    
+    String getSummary();
+    
+    /**
+     * Clears all counters and histograms
+     */
+    void reset();
+}
\ No newline at end of file
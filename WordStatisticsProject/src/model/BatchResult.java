@@ -0,0 +1,177 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a batch of files processed by one worker
+ * Keeps every file's FileStats (for the report and the GUI table) and their
+ * totals, summed on the worker without any synchronization. GlobalStats
+ * merges the whole batch in one step (addBatchResult): one update per total,
+ * one lock for the word frequencies and one for the sketches, instead of one
+ * of each per file.
+ * Filled by a single thread; hand it over only when it is complete.
+ */
+public class BatchResult {
+    
+    private final List<FileStats> fileStats;
+    private int processedCount;
+    private long wordCount;
+    private long isCount;
+    private long areCount;
+    private long youCount;
+    private String longestWord;
+    private String shortestWord;
+    private final long[] wordLengthCounts;
+    private long totalWordLength;
+    private final long[] filesByWordCount;
+    private long[] termCounts; // null until a file has term counts
+    private WordFrequencyTable wordFrequencies; // null until a file has frequencies
+    private WordSketches wordSketches; // null until a file has sketches
+    
+    /**
+     * Constructor
+     *
+     * @param expectedFiles Number of files the batch will hold (sizes the list)
+     */
+    public BatchResult(int expectedFiles) {
+        this.fileStats = new ArrayList<>(expectedFiles);
+        this.longestWord = "";
+        this.shortestWord = "";
+        this.wordLengthCounts = new long[LengthHistogram.MAX_LENGTH + 1];
+        this.filesByWordCount = new long[GlobalStats.WORD_COUNT_BUCKETS];
+    }
+    
+    /**
+     * Adds the result of one file
+     * @param stats The file's statistics, or null if the file vanished (it still counts as processed)
+     */
+    public void add(FileStats stats) {
+        processedCount++;
+        if (stats == null) {
+            return;
+        }
+        
+        fileStats.add(stats);
+        wordCount += stats.getWordCount();
+        isCount += stats.getIsCount();
+        areCount += stats.getAreCount();
+        youCount += stats.getYouCount();
+        
+        String longest = stats.getLongestWord();
+        if (longest != null && longest.length() > longestWord.length()) {
+            longestWord = longest;
+        }
+        String shortest = stats.getShortestWord();
+        if (shortest != null && !shortest.isEmpty()
+                && (shortestWord.isEmpty() || shortest.length() < shortestWord.length())) {
+            shortestWord = shortest;
+        }
+        
+        filesByWordCount[GlobalStats.wordCountBucket(stats.getWordCount())]++;
+        LengthHistogram lengths = stats.getWordLengths();
+        if (lengths != null) {
+            for (int length = 0; length <= LengthHistogram.MAX_LENGTH; length++) {
+                wordLengthCounts[length] += lengths.getCount(length);
+            }
+            totalWordLength += lengths.getTotalLength();
+        }
+        
+        long[] counts = stats.getTermCounts();
+        if (counts != null) {
+            if (termCounts == null) {
+                termCounts = new long[counts.length];
+            }
+            for (int i = 0; i < Math.min(counts.length, termCounts.length); i++) {
+                termCounts[i] += counts[i];
+            }
+        }
+        
+        // The file keeps its own table until it is recorded (see GlobalStats.releaseFileFrequencies)
+        WordFrequencyTable frequencies = stats.getWordFrequencies();
+        if (frequencies != null) {
+            if (wordFrequencies == null) {
+                wordFrequencies = new WordFrequencyTable();
+            }
+            wordFrequencies.merge(frequencies);
+        }
+        
+        // Only the merged sketches are kept, as in GlobalStats.addFileStats
+        WordSketches sketches = stats.getWordSketches();
+        if (sketches != null) {
+            if (wordSketches == null) {
+                wordSketches = sketches.emptyCopy();
+            }
+            wordSketches.merge(sketches);
+            stats.setWordSketches(null);
+        }
+    }
+    
+    /**
+     * Files handled, including the ones that vanished before they could be read
+     */
+    public int getProcessedCount() {
+        return processedCount;
+    }
+    
+    /**
+     * The statistics of the files, in processing order
+     */
+    public List<FileStats> getFileStats() {
+        return Collections.unmodifiableList(fileStats);
+    }
+    
+    // Getters
+    public long getWordCount() {
+        return wordCount;
+    }
+    
+    public long getIsCount() {
+        return isCount;
+    }
+    
+    public long getAreCount() {
+        return areCount;
+    }
+    
+    public long getYouCount() {
+        return youCount;
+    }
+    
+    public String getLongestWord() {
+        return longestWord;
+    }
+    
+    public String getShortestWord() {
+        return shortestWord;
+    }
+    
+    long[] getWordLengthCounts() {
+        return wordLengthCounts;
+    }
+    
+    long getTotalWordLength() {
+        return totalWordLength;
+    }
+    
+    long[] getFilesByWordCount() {
+        return filesByWordCount;
+    }
+    
+    public long[] getTermCounts() {
+        return termCounts;
+    }
+    
+    public WordFrequencyTable getWordFrequencies() {
+        return wordFrequencies;
+    }
+    
+    public WordSketches getWordSketches() {
+        return wordSketches;
+    }
+}
\ No newline at end of file
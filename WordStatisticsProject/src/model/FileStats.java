@@ -11,12 +11,17 @@ package model;
 public class FileStats {
     private String fileName;
     private String filePath;
-    private int wordCount;
-    private int isCount;
-    private int areCount;
-    private int youCount;
+    private long wordCount;
+    private long isCount;
+    private long areCount;
+    private long youCount;
     private String longestWord;
     private String shortestWord;
+    private boolean error; // true if the file could not be read/analyzed
+    private LengthHistogram wordLengths; // words per length, null if the file was not analyzed
+    private WordFrequencyTable wordFrequencies; // null unless frequency counting is on
+    private long[] termCounts; // counts of the configured target terms, null if none
+    private WordSketches wordSketches; // null unless sketches are on; consumed by GlobalStats
     
     // Constructor
     public FileStats(String fileName, String filePath) {
@@ -53,35 +58,35 @@ public class FileStats {
         this.filePath = filePath;
     }
     
-    public int getWordCount() {
+    public long getWordCount() {
         return wordCount;
     }
     
-    public void setWordCount(int wordCount) {
+    public void setWordCount(long wordCount) {
         this.wordCount = wordCount;
     }
     
-    public int getIsCount() {
+    public long getIsCount() {
         return isCount;
     }
     
-    public void setIsCount(int isCount) {
+    public void setIsCount(long isCount) {
         this.isCount = isCount;
     }
     
-    public int getAreCount() {
+    public long getAreCount() {
         return areCount;
     }
     
-    public void setAreCount(int areCount) {
+    public void setAreCount(long areCount) {
         this.areCount = areCount;
     }
     
-    public int getYouCount() {
+    public long getYouCount() {
         return youCount;
     }
     
-    public void setYouCount(int youCount) {
+    public void setYouCount(long youCount) {
         this.youCount = youCount;
     }
     
@@ -101,11 +106,67 @@ public class FileStats {
         this.shortestWord = shortestWord;
     }
     
+    /**
+     * Number of words of each length, with mean/median/percentiles, or null
+     */
+    public LengthHistogram getWordLengths() {
+        return wordLengths;
+    }
+    
+    public void setWordLengths(LengthHistogram wordLengths) {
+        this.wordLengths = wordLengths;
+    }
+    
+    /**
+     * Frequency of every word in the file, or null if it was not counted
+     * A run drops it once the file is recorded and reported to the listener
+     * (see GlobalStats.releaseFileFrequencies).
+     */
+    public WordFrequencyTable getWordFrequencies() {
+        return wordFrequencies;
+    }
+    
+    public void setWordFrequencies(WordFrequencyTable wordFrequencies) {
+        this.wordFrequencies = wordFrequencies;
+    }
+    
+    /**
+     * Counts of the configured target terms (GlobalStats.getTermNames() order), or null
+     */
+    public long[] getTermCounts() {
+        return termCounts;
+    }
+    
+    public void setTermCounts(long[] termCounts) {
+        this.termCounts = termCounts;
+    }
+    
+    /**
+     * Top-word and distinct-word sketches of the file, or null
+     * GlobalStats.addFileStats merges them into the directory sketches and
+     * then drops them from the file, so they do not add up over many files.
+     */
+    public WordSketches getWordSketches() {
+        return wordSketches;
+    }
+    
+    public void setWordSketches(WordSketches wordSketches) {
+        this.wordSketches = wordSketches;
+    }
+    
+    public boolean isError() {
+        return error;
+    }
+    
+    public void setError(boolean error) {
+        this.error = error;
+    }
+    
     /**
      * Updates all statistics at once (useful for threading)
      * "Setter" to update everything at once (Cleaner than 6 separate calls)
      */
-    public void updateStats(int wordCount, int isCount, int areCount, int youCount, 
+    public void updateStats(long wordCount, long isCount, long areCount, long youCount, 
                            String longestWord, String shortestWord) {
         this.wordCount = wordCount;
         this.isCount = isCount;
@@ -115,6 +176,60 @@ public class FileStats {
         this.shortestWord = shortestWord;
     }
     
+    /**
+     * Merges the statistics of another part of the same file into this one
+     * Counts are added. For longest/shortest the other word only wins if it is
+     * strictly longer/shorter, so merging parts in file order keeps the first one.
+     */
+    public void merge(FileStats other) {
+        if (other == null) return;
+        
+        this.wordCount += other.wordCount;
+        this.isCount += other.isCount;
+        this.areCount += other.areCount;
+        this.youCount += other.youCount;
+        
+        if (other.longestWord != null && other.longestWord.length() > longestWord.length()) {
+            this.longestWord = other.longestWord;
+        }
+        
+        if (other.shortestWord != null && !other.shortestWord.isEmpty()) {
+            if (shortestWord.isEmpty() || other.shortestWord.length() < shortestWord.length()) {
+                this.shortestWord = other.shortestWord;
+            }
+        }
+        
+        if (other.wordLengths != null) {
+            if (wordLengths == null) {
+                wordLengths = new LengthHistogram();
+            }
+            wordLengths.merge(other.wordLengths);
+        }
+        
+        if (other.termCounts != null) {
+            if (termCounts == null) {
+                termCounts = new long[other.termCounts.length];
+            }
+            for (int i = 0; i < termCounts.length && i < other.termCounts.length; i++) {
+                termCounts[i] += other.termCounts[i];
+            }
+        }
+        
+        if (other.wordFrequencies != null) {
+            if (wordFrequencies == null) {
+                wordFrequencies = new WordFrequencyTable();
+            }
+            wordFrequencies.merge(other.wordFrequencies);
+        }
+        
+        if (other.wordSketches != null) {
+            if (wordSketches == null) {
+                wordSketches = other.wordSketches.emptyCopy();
+            }
+            wordSketches.merge(other.wordSketches);
+        }
+    }
+    
     /**
      * Returns a copy of this FileStats object
      */
@@ -122,6 +237,11 @@ public class FileStats {
         FileStats copy = new FileStats(this.fileName, this.filePath);
         copy.updateStats(this.wordCount, this.isCount, this.areCount, this.youCount,
                         this.longestWord, this.shortestWord);
+        copy.error = this.error;
+        copy.wordLengths = this.wordLengths != null ? this.wordLengths.copy() : null;
+        copy.wordFrequencies = this.wordFrequencies != null ? this.wordFrequencies.copy() : null;
+        copy.termCounts = this.termCounts != null ? this.termCounts.clone() : null;
+        copy.wordSketches = this.wordSketches != null ? this.wordSketches.copy() : null;
         return copy;
     }
     
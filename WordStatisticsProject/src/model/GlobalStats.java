@@ -6,90 +6,180 @@ package model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represents overall statistics for all processed files in the directory
  * Aggregates totals for the entire directory. Key Concept: Synchronization. 
  * Since multiple threads finish at different times, 
  * we must protect this data so two threads don't write to it at the exact same nanosecond.
+ * 
+ * Lock-free: worker threads call addFileStats directly. Totals are LongAdders
+ * (striped, no contention, no int overflow) and the longest/shortest words are
+ * updated with compare-and-set.
+ * The word-frequency table (only filled when frequency counting is on) is the
+ * one shared structure that needs a lock; each file's table is merged into it
+ * in one step. Only the merged table is kept: releaseFileFrequencies drops a
+ * file's own table once it is merged, unless file tables are kept so that
+ * watch mode can subtract them again.
+ * The word-length histogram and the files-by-word-count distribution are
+ * AtomicLongArrays, added to bucket by bucket like the totals.
+ * The word sketches (top words and distinct words in bounded memory, see
+ * WordSketches) are merged the same way. They cannot be subtracted: in watch
+ * mode a changed file is added again and a deleted one stays counted.
+ * UPDATED: A batch of small files (BatchResult, summed on its worker) is
+ * merged with addBatchResult: one update per total for the whole batch.
  */
 public class GlobalStats {
-    private int totalFilesProcessed;
-    private int totalWordCount;
-    private int totalIsCount;
-    private int totalAreCount;
-    private int totalYouCount;
-    private String longestWordInDirectory;
-    private String shortestWordInDirectory;
-    private List<FileStats> allFileStats; // List to hold history of all files (optional, but good for reports)
+    // Word-count buckets: 0 words, then one per power of two (enough for any long)
+    static final int WORD_COUNT_BUCKETS = 64;
+    
+    private final LongAdder totalFilesProcessed;
+    private final LongAdder totalWordCount;
+    private final LongAdder totalIsCount;
+    private final LongAdder totalAreCount;
+    private final LongAdder totalYouCount;
+    private final AtomicReference<String> longestWordInDirectory;
+    private final AtomicReference<String> shortestWordInDirectory;
+    private final AtomicLongArray wordLengthCounts; // words per length (LengthHistogram buckets)
+    private final LongAdder totalWordLength;
+    private final AtomicLongArray filesByWordCount; // see getFilesByWordCount
+    private final Queue<FileStats> allFileStats; // History of all files (optional, but good for reports)
+    private final WordFrequencyTable wordFrequencies; // guarded by itself
+    private volatile boolean keepFileFrequencies; // the files' own tables, for watch mode
+    private volatile List<String> termNames; // configured target terms
+    private volatile AtomicLongArray termTotals; // one total per target term
+    private final Object sketchLock;
+    private WordSketches wordSketches; // guarded by sketchLock, null until a file has sketches
     
     // Constructor
     public GlobalStats() {
-        this.totalFilesProcessed = 0;
-        this.totalWordCount = 0;
-        this.totalIsCount = 0;
-        this.totalAreCount = 0;
-        this.totalYouCount = 0;
-        this.longestWordInDirectory = "";
-        this.shortestWordInDirectory = "";
-        this.allFileStats = new ArrayList<>();
+        this.totalFilesProcessed = new LongAdder();
+        this.totalWordCount = new LongAdder();
+        this.totalIsCount = new LongAdder();
+        this.totalAreCount = new LongAdder();
+        this.totalYouCount = new LongAdder();
+        this.longestWordInDirectory = new AtomicReference<>("");
+        this.shortestWordInDirectory = new AtomicReference<>("");
+        this.wordLengthCounts = new AtomicLongArray(LengthHistogram.MAX_LENGTH + 1);
+        this.totalWordLength = new LongAdder();
+        this.filesByWordCount = new AtomicLongArray(WORD_COUNT_BUCKETS);
+        this.allFileStats = new ConcurrentLinkedQueue<>();
+        this.wordFrequencies = new WordFrequencyTable();
+        this.termNames = List.of();
+        this.termTotals = new AtomicLongArray(0);
+        this.sketchLock = new Object();
     }
     
     // Getters and Setters
+    // Setters are meant for loading saved results, not for use while workers are running
     public int getTotalFilesProcessed() {
-        return totalFilesProcessed;
+        return totalFilesProcessed.intValue();
     }
     
     public void setTotalFilesProcessed(int totalFilesProcessed) {
-        this.totalFilesProcessed = totalFilesProcessed;
+        set(this.totalFilesProcessed, totalFilesProcessed);
     }
     
-    public int getTotalWordCount() {
-        return totalWordCount;
+    public long getTotalWordCount() {
+        return totalWordCount.sum();
     }
     
-    public void setTotalWordCount(int totalWordCount) {
-        this.totalWordCount = totalWordCount;
+    public void setTotalWordCount(long totalWordCount) {
+        set(this.totalWordCount, totalWordCount);
     }
     
-    public int getTotalIsCount() {
-        return totalIsCount;
+    public long getTotalIsCount() {
+        return totalIsCount.sum();
     }
     
-    public void setTotalIsCount(int totalIsCount) {
-        this.totalIsCount = totalIsCount;
+    public void setTotalIsCount(long totalIsCount) {
+        set(this.totalIsCount, totalIsCount);
     }
     
-    public int getTotalAreCount() {
-        return totalAreCount;
+    public long getTotalAreCount() {
+        return totalAreCount.sum();
     }
     
-    public void setTotalAreCount(int totalAreCount) {
-        this.totalAreCount = totalAreCount;
+    public void setTotalAreCount(long totalAreCount) {
+        set(this.totalAreCount, totalAreCount);
     }
     
-    public int getTotalYouCount() {
-        return totalYouCount;
+    public long getTotalYouCount() {
+        return totalYouCount.sum();
     }
     
-    public void setTotalYouCount(int totalYouCount) {
-        this.totalYouCount = totalYouCount;
+    public void setTotalYouCount(long totalYouCount) {
+        set(this.totalYouCount, totalYouCount);
     }
     
     public String getLongestWordInDirectory() {
-        return longestWordInDirectory;
+        return longestWordInDirectory.get();
     }
     
     public void setLongestWordInDirectory(String longestWordInDirectory) {
-        this.longestWordInDirectory = longestWordInDirectory;
+        this.longestWordInDirectory.set(longestWordInDirectory);
     }
     
     public String getShortestWordInDirectory() {
-        return shortestWordInDirectory;
+        return shortestWordInDirectory.get();
     }
     
     public void setShortestWordInDirectory(String shortestWordInDirectory) {
-        this.shortestWordInDirectory = shortestWordInDirectory;
+        this.shortestWordInDirectory.set(shortestWordInDirectory);
+    }
+    
+    /**
+     * Sets the target terms whose counts are totaled (clears their totals)
+     * Call it before a run; FileStats.getTermCounts() must use the same order.
+     */
+    public void setTermNames(List<String> termNames) {
+        this.termNames = List.copyOf(termNames);
+        this.termTotals = new AtomicLongArray(termNames.size());
+    }
+    
+    public List<String> getTermNames() {
+        return termNames;
+    }
+    
+    /**
+     * Total count of each target term, in getTermNames() order
+     */
+    public long[] getTermTotals() {
+        AtomicLongArray totals = termTotals;
+        long[] values = new long[totals.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = totals.get(i);
+        }
+        return values;
+    }
+    
+    /**
+     * Keep every file's word-frequency table after it is merged (off by default)
+     * Watch mode needs them to subtract a changed or deleted file; without
+     * them the words of such a file stay counted, as in the sketches.
+     */
+    public void setKeepFileFrequencies(boolean keepFileFrequencies) {
+        this.keepFileFrequencies = keepFileFrequencies;
+    }
+    
+    public boolean isKeepFileFrequencies() {
+        return keepFileFrequencies;
+    }
+    
+    /**
+     * Drops the word-frequency table of a file already added, unless file tables are kept
+     * Call it once nothing else needs the file's own table (e.g. after the
+     * listener showed it): the directory table holds its counts.
+     */
+    public void releaseFileFrequencies(FileStats fileStats) {
+        if (fileStats != null && !keepFileFrequencies) {
+            fileStats.setWordFrequencies(null);
+        }
     }
     
     public List<FileStats> getAllFileStats() {
@@ -97,68 +187,382 @@ public class GlobalStats {
     }
     
     public void setAllFileStats(List<FileStats> allFileStats) {
-        this.allFileStats = new ArrayList<>(allFileStats);
+        this.allFileStats.clear();
+        this.allFileStats.addAll(allFileStats);
     }
     
     /**
      * Add a file's statistics and update global totals
+     * Safe to call from many worker threads at once.
      */
     public void addFileStats(FileStats fileStats) {
         if (fileStats == null) return;
         
         allFileStats.add(fileStats);
-        totalFilesProcessed++;
+        totalFilesProcessed.increment();
         
         // Update total counts
-        totalWordCount += fileStats.getWordCount();
-        totalIsCount += fileStats.getIsCount();
-        totalAreCount += fileStats.getAreCount();
-        totalYouCount += fileStats.getYouCount();
+        totalWordCount.add(fileStats.getWordCount());
+        totalIsCount.add(fileStats.getIsCount());
+        totalAreCount.add(fileStats.getAreCount());
+        totalYouCount.add(fileStats.getYouCount());
         
         // Update longest word
-        if (fileStats.getLongestWord() != null && !fileStats.getLongestWord().isEmpty()) {
-            if (longestWordInDirectory.isEmpty() || 
-                fileStats.getLongestWord().length() > longestWordInDirectory.length()) {
-                longestWordInDirectory = fileStats.getLongestWord();
-            }
+        String longest = fileStats.getLongestWord();
+        if (longest != null && !longest.isEmpty()) {
+            longestWordInDirectory.accumulateAndGet(longest,
+                (current, candidate) -> current.isEmpty() || candidate.length() > current.length()
+                    ? candidate : current);
         }
         
         // Update shortest word
-        if (fileStats.getShortestWord() != null && !fileStats.getShortestWord().isEmpty()) {
-            if (shortestWordInDirectory.isEmpty() || 
-                fileStats.getShortestWord().length() < shortestWordInDirectory.length()) {
-                shortestWordInDirectory = fileStats.getShortestWord();
+        String shortest = fileStats.getShortestWord();
+        if (shortest != null && !shortest.isEmpty()) {
+            shortestWordInDirectory.accumulateAndGet(shortest,
+                (current, candidate) -> current.isEmpty() || candidate.length() < current.length()
+                    ? candidate : current);
+        }
+        
+        addTermCounts(fileStats.getTermCounts(), 1);
+        addDistributions(fileStats, 1);
+        
+        // Merge the file's word frequencies (one short lock per file, not per word)
+        WordFrequencyTable fileFrequencies = fileStats.getWordFrequencies();
+        if (fileFrequencies != null) {
+            synchronized (wordFrequencies) {
+                wordFrequencies.merge(fileFrequencies);
+            }
+        }
+        
+        // Merge the file's sketches, then drop them: only the directory sketch is kept
+        WordSketches fileSketches = fileStats.getWordSketches();
+        if (fileSketches != null) {
+            mergeWordSketches(fileSketches);
+            fileStats.setWordSketches(null);
+        }
+    }
+    
+    /**
+     * Add the statistics of a batch of files in one step
+     * Same result as addFileStats for each file of the batch, but the totals,
+     * the frequency table and the sketches are each updated only once.
+     */
+    public void addBatchResult(BatchResult batch) {
+        if (batch == null || batch.getFileStats().isEmpty()) return;
+        
+        List<FileStats> files = batch.getFileStats();
+        allFileStats.addAll(files);
+        totalFilesProcessed.add(files.size());
+        
+        totalWordCount.add(batch.getWordCount());
+        totalIsCount.add(batch.getIsCount());
+        totalAreCount.add(batch.getAreCount());
+        totalYouCount.add(batch.getYouCount());
+        
+        String longest = batch.getLongestWord();
+        if (!longest.isEmpty()) {
+            longestWordInDirectory.accumulateAndGet(longest,
+                (current, candidate) -> current.isEmpty() || candidate.length() > current.length()
+                    ? candidate : current);
+        }
+        String shortest = batch.getShortestWord();
+        if (!shortest.isEmpty()) {
+            shortestWordInDirectory.accumulateAndGet(shortest,
+                (current, candidate) -> current.isEmpty() || candidate.length() < current.length()
+                    ? candidate : current);
+        }
+        
+        addTermCounts(batch.getTermCounts(), 1);
+        long[] lengthCounts = batch.getWordLengthCounts();
+        for (int length = 0; length < lengthCounts.length; length++) {
+            if (lengthCounts[length] != 0) {
+                wordLengthCounts.addAndGet(length, lengthCounts[length]);
+            }
+        }
+        totalWordLength.add(batch.getTotalWordLength());
+        long[] wordCountBuckets = batch.getFilesByWordCount();
+        for (int bucket = 0; bucket < wordCountBuckets.length; bucket++) {
+            if (wordCountBuckets[bucket] != 0) {
+                filesByWordCount.addAndGet(bucket, wordCountBuckets[bucket]);
+            }
+        }
+        
+        WordFrequencyTable batchFrequencies = batch.getWordFrequencies();
+        if (batchFrequencies != null) {
+            synchronized (wordFrequencies) {
+                wordFrequencies.merge(batchFrequencies);
+            }
+        }
+        WordSketches batchSketches = batch.getWordSketches();
+        if (batchSketches != null) {
+            mergeWordSketches(batchSketches);
+        }
+    }
+    
+    /**
+     * Adds sketches to the directory sketches, e.g. the saved sketches of an
+     * earlier run over other files (same error settings required)
+     */
+    public void mergeWordSketches(WordSketches sketches) {
+        synchronized (sketchLock) {
+            if (wordSketches == null) {
+                wordSketches = sketches.emptyCopy();
+            }
+            wordSketches.merge(sketches);
+        }
+    }
+    
+    /**
+     * Retract a file's contribution (file deleted, or about to be replaced)
+     * Counts are subtracted. Longest/shortest can't be subtracted, so they are
+     * recomputed from the remaining files when the retracted file held one of them.
+     * Meant for a single updater (the directory watcher), not for parallel workers.
+     */
+    public void removeFileStats(FileStats fileStats) {
+        if (fileStats == null || !allFileStats.remove(fileStats)) return;
+        
+        totalFilesProcessed.decrement();
+        totalWordCount.add(-fileStats.getWordCount());
+        totalIsCount.add(-fileStats.getIsCount());
+        totalAreCount.add(-fileStats.getAreCount());
+        totalYouCount.add(-fileStats.getYouCount());
+        
+        addTermCounts(fileStats.getTermCounts(), -1);
+        addDistributions(fileStats, -1);
+        
+        WordFrequencyTable fileFrequencies = fileStats.getWordFrequencies();
+        if (fileFrequencies != null) {
+            synchronized (wordFrequencies) {
+                wordFrequencies.subtract(fileFrequencies);
             }
         }
+        
+        if (longestWordInDirectory.get().equals(fileStats.getLongestWord())
+                || shortestWordInDirectory.get().equals(fileStats.getShortestWord())) {
+            recomputeLongestAndShortest();
+        }
+    }
+    
+    /**
+     * Replace the statistics of a file that changed (retract old, add new)
+     */
+    public void replaceFileStats(FileStats oldStats, FileStats newStats) {
+        removeFileStats(oldStats);
+        addFileStats(newStats);
+    }
+    
+    /**
+     * Adds (sign 1) or subtracts (sign -1) a file's term counts; zeros are skipped
+     */
+    private void addTermCounts(long[] counts, int sign) {
+        if (counts == null) {
+            return;
+        }
+        AtomicLongArray totals = termTotals;
+        int length = Math.min(counts.length, totals.length());
+        for (int i = 0; i < length; i++) {
+            if (counts[i] != 0) {
+                totals.addAndGet(i, sign * counts[i]);
+            }
+        }
+    }
+    
+    /**
+     * Adds (sign 1) or subtracts (sign -1) a file's word lengths and word-count bucket
+     */
+    private void addDistributions(FileStats fileStats, int sign) {
+        filesByWordCount.addAndGet(wordCountBucket(fileStats.getWordCount()), sign);
+        
+        LengthHistogram lengths = fileStats.getWordLengths();
+        if (lengths == null) {
+            return;
+        }
+        for (int length = 0; length <= LengthHistogram.MAX_LENGTH; length++) {
+            long count = lengths.getCount(length);
+            if (count != 0) {
+                wordLengthCounts.addAndGet(length, sign * count);
+            }
+        }
+        totalWordLength.add(sign * lengths.getTotalLength());
+    }
+    
+    /**
+     * Rebuilds longest/shortest word from all remaining files
+     */
+    private void recomputeLongestAndShortest() {
+        String longest = "";
+        String shortest = "";
+        
+        for (FileStats stats : allFileStats) {
+            String fileLongest = stats.getLongestWord();
+            if (fileLongest != null && fileLongest.length() > longest.length()) {
+                longest = fileLongest;
+            }
+            String fileShortest = stats.getShortestWord();
+            if (fileShortest != null && !fileShortest.isEmpty()
+                    && (shortest.isEmpty() || fileShortest.length() < shortest.length())) {
+                shortest = fileShortest;
+            }
+        }
+        
+        longestWordInDirectory.set(longest);
+        shortestWordInDirectory.set(shortest);
     }
     
     /**
      * Reset all statistics (useful for new directory processing)
+     * Call it between runs, not while workers are still adding files.
      */
     public void reset() {
-        totalFilesProcessed = 0;
-        totalWordCount = 0;
-        totalIsCount = 0;
-        totalAreCount = 0;
-        totalYouCount = 0;
-        longestWordInDirectory = "";
-        shortestWordInDirectory = "";
+        totalFilesProcessed.reset();
+        totalWordCount.reset();
+        totalIsCount.reset();
+        totalAreCount.reset();
+        totalYouCount.reset();
+        longestWordInDirectory.set("");
+        shortestWordInDirectory.set("");
         allFileStats.clear();
+        termTotals = new AtomicLongArray(termNames.size());
+        for (int i = 0; i < wordLengthCounts.length(); i++) {
+            wordLengthCounts.set(i, 0);
+        }
+        totalWordLength.reset();
+        for (int i = 0; i < filesByWordCount.length(); i++) {
+            filesByWordCount.set(i, 0);
+        }
+        synchronized (wordFrequencies) {
+            wordFrequencies.clear();
+        }
+        synchronized (sketchLock) {
+            wordSketches = null;
+        }
+    }
+    
+    /**
+     * The n most frequent words of the directory (empty if frequencies were not counted)
+     */
+    public List<WordFrequencyTable.WordCount> getTopWords(int n) {
+        synchronized (wordFrequencies) {
+            return wordFrequencies.top(n);
+        }
+    }
+    
+    /**
+     * Number of different words in the directory (0 if frequencies were not counted)
+     */
+    public int getDistinctWordCount() {
+        synchronized (wordFrequencies) {
+            return wordFrequencies.size();
+        }
+    }
+    
+    /**
+     * Returns a copy of the directory's word-frequency table
+     */
+    public WordFrequencyTable getWordFrequencies() {
+        synchronized (wordFrequencies) {
+            return wordFrequencies.copy();
+        }
+    }
+    
+    /**
+     * Returns a copy of the directory's word sketches, or null if none were built
+     */
+    public WordSketches getWordSketches() {
+        synchronized (sketchLock) {
+            return wordSketches != null ? wordSketches.copy() : null;
+        }
+    }
+    
+    /**
+     * The n most frequent words by the top-words sketch (empty if sketches are off)
+     * Counts may be below the true ones by WordSketches.getTopWordsErrorBound().
+     */
+    public List<WordFrequencyTable.WordCount> getApproximateTopWords(int n) {
+        synchronized (sketchLock) {
+            return wordSketches != null ? wordSketches.getTopWords(n) : List.of();
+        }
+    }
+    
+    /**
+     * Estimated number of different words (0 if sketches are off)
+     */
+    public long getApproximateDistinctWordCount() {
+        synchronized (sketchLock) {
+            return wordSketches != null ? wordSketches.getDistinctWordEstimate() : 0;
+        }
+    }
+    
+    /**
+     * Replaces the value of an adder
+     */
+    private static void set(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+    
+    /**
+     * Word-length histogram of all files (a snapshot)
+     * Gives the mean, median and any percentile of the word length.
+     */
+    public LengthHistogram getWordLengths() {
+        long[] counts = new long[wordLengthCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = wordLengthCounts.get(i);
+        }
+        return LengthHistogram.of(counts, totalWordLength.sum());
+    }
+    
+    /**
+     * Number of files per word-count bucket, up to the last non-empty bucket
+     * Bucket 0 holds the files without words, bucket b (b >= 1) the files
+     * with 2^(b-1) to 2^b - 1 words: 1, 2-3, 4-7, 8-15, ...
+     */
+    public long[] getFilesByWordCount() {
+        int used = filesByWordCount.length();
+        while (used > 0 && filesByWordCount.get(used - 1) == 0) {
+            used--;
+        }
+        long[] files = new long[used];
+        for (int i = 0; i < used; i++) {
+            files[i] = filesByWordCount.get(i);
+        }
+        return files;
+    }
+    
+    /**
+     * Smallest word count of a getFilesByWordCount bucket
+     */
+    public static long wordCountBucketStart(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+    
+    /**
+     * Largest word count of a getFilesByWordCount bucket
+     */
+    public static long wordCountBucketEnd(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+    
+    static int wordCountBucket(long wordCount) {
+        return wordCount <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(wordCount);
     }
     
     /**
      * Get average words per file
      */
     public double getAverageWordsPerFile() {
-        return totalFilesProcessed > 0 ? (double) totalWordCount / totalFilesProcessed : 0.0;
+        long files = totalFilesProcessed.sum();
+        return files > 0 ? (double) totalWordCount.sum() / files : 0.0;
     }
     
     @Override
     public String toString() {
         return String.format(
             "Global Stats: Files: %d, Total Words: %d, is: %d, are: %d, you: %d, Longest: %s, Shortest: %s",
-            totalFilesProcessed, totalWordCount, totalIsCount, totalAreCount, totalYouCount,
-            longestWordInDirectory, shortestWordInDirectory
+            totalFilesProcessed.sum(), totalWordCount.sum(), totalIsCount.sum(),
+            totalAreCount.sum(), totalYouCount.sum(),
+            longestWordInDirectory.get(), shortestWordInDirectory.get()
         );
     }
     
@@ -167,8 +571,9 @@ public class GlobalStats {
      */
     public String getSummary() {
         return String.format(
-            "Processed %d files, %d total words\nLongest word: %s\nShortest word: %s",
-            totalFilesProcessed, totalWordCount, longestWordInDirectory, shortestWordInDirectory
+            "Processed %d files, %d total words\nLongest word: %s\nShortest word: %s\nWord length: %s",
+            totalFilesProcessed.sum(), totalWordCount.sum(),
+            longestWordInDirectory.get(), shortestWordInDirectory.get(), getWordLengths()
         );
     }
 }
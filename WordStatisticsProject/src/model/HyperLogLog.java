@@ -0,0 +1,247 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Approximate count of distinct values (HyperLogLog) in bounded memory
+ * m = 2^precision registers of one byte each; the relative standard error of
+ * the estimate is 1.04 / sqrt(m) (precision 14: 16 KB, about 0.8 %).
+ *
+ * Small sketches (a typical single file) start in a sparse form that only
+ * stores the registers that were set, 4 bytes each, and switch to the dense
+ * array once that would be larger. Both forms give the same estimate.
+ *
+ * Merging takes the maximum of each register, so it is associative and
+ * commutative: sketches of files, workers or whole runs can be combined in
+ * any order. Values are added as 64-bit hashes (see WordSketches.hash).
+ *
+ * Not thread-safe.
+ */
+public class HyperLogLog {
+    
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+    
+    private final int precision;
+    private final int registerCount;
+    
+    // Dense form (null while sparse)
+    private byte[] registers;
+    
+    // Sparse form: (index << 8 | rank) entries, unsorted, may hold duplicates until compacted
+    private int[] sparse;
+    private int sparseSize;
+    
+    /**
+     * Constructor
+     * @param precision Number of index bits (4 to 18)
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION
+                + " and " + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.sparse = new int[8];
+    }
+    
+    /**
+     * Smallest precision whose standard error is at most relativeError
+     */
+    public static int precisionFor(double relativeError) {
+        if (!(relativeError > 0 && relativeError < 1)) {
+            throw new IllegalArgumentException("Relative error must be between 0 and 1: " + relativeError);
+        }
+        double registers = Math.pow(1.04 / relativeError, 2);
+        int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+    
+    public int getPrecision() {
+        return precision;
+    }
+    
+    /**
+     * Relative standard error of estimate()
+     */
+    public double getRelativeError() {
+        return 1.04 / Math.sqrt(registerCount);
+    }
+    
+    /**
+     * Adds a value, given as a well-mixed 64-bit hash
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Leading zeros of the remaining bits + 1; the guard bit caps it at 64 - precision + 1
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        set(index, rank);
+    }
+    
+    /**
+     * Adds all values of another sketch (same precision required)
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision "
+                + precision + " and " + other.precision);
+        }
+        if (other.registers != null) {
+            toDense();
+            for (int i = 0; i < registerCount; i++) {
+                if (other.registers[i] > registers[i]) {
+                    registers[i] = other.registers[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                set(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+    }
+    
+    /**
+     * Estimated number of distinct values added
+     */
+    public long estimate() {
+        byte[] dense = registers;
+        if (dense == null) {
+            dense = new byte[registerCount];
+            for (int i = 0; i < sparseSize; i++) {
+                int index = sparse[i] >>> 8;
+                dense[index] = (byte) Math.max(dense[index], sparse[i] & 0xFF);
+            }
+        }
+        
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : dense) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        
+        double m = registerCount;
+        double estimate = alpha() * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Small range: linear counting is more accurate
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+    
+    /**
+     * Returns a copy of this sketch
+     */
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        copy.registers = registers != null ? registers.clone() : null;
+        copy.sparse = sparse != null ? Arrays.copyOf(sparse, Math.max(1, sparseSize)) : null;
+        copy.sparseSize = sparseSize;
+        return copy;
+    }
+    
+    /**
+     * Compacts the sparse form (for sketches that are kept)
+     */
+    public void trimToSize() {
+        if (registers == null) {
+            compactSparse();
+            sparse = Arrays.copyOf(sparse, Math.max(1, sparseSize));
+        }
+    }
+    
+    /**
+     * Writes the sketch (always in dense form)
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        toDense();
+        out.writeByte(precision);
+        out.write(registers);
+    }
+    
+    /**
+     * Reads a sketch written by writeTo
+     */
+    public static HyperLogLog readFrom(DataInputStream in) throws IOException {
+        int precision = in.readUnsignedByte();
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IOException("Corrupt HyperLogLog (precision " + precision + ")");
+        }
+        HyperLogLog sketch = new HyperLogLog(precision);
+        sketch.registers = new byte[sketch.registerCount];
+        in.readFully(sketch.registers);
+        sketch.sparse = null;
+        return sketch;
+    }
+    
+    private void set(int index, int rank) {
+        if (registers != null) {
+            if (rank > registers[index]) {
+                registers[index] = (byte) rank;
+            }
+            return;
+        }
+        
+        if (sparseSize == sparse.length) {
+            compactSparse();
+            // Sparse entries take 4 bytes: switch once they would outweigh the registers
+            if (sparseSize * 4 >= registerCount) {
+                toDense();
+                set(index, rank);
+                return;
+            }
+            if (sparseSize * 2 > sparse.length) {
+                sparse = Arrays.copyOf(sparse, sparse.length * 2);
+            }
+        }
+        sparse[sparseSize++] = index << 8 | rank;
+    }
+    
+    /**
+     * Sorts the sparse entries and keeps the highest rank per register
+     */
+    private void compactSparse() {
+        Arrays.sort(sparse, 0, sparseSize);
+        int kept = 0;
+        for (int i = 0; i < sparseSize; i++) {
+            // Sorted by index then rank: the last entry of each index has the highest rank
+            if (i + 1 < sparseSize && (sparse[i + 1] >>> 8) == (sparse[i] >>> 8)) {
+                continue;
+            }
+            sparse[kept++] = sparse[i];
+        }
+        sparseSize = kept;
+    }
+    
+    private void toDense() {
+        if (registers != null) {
+            return;
+        }
+        registers = new byte[registerCount];
+        for (int i = 0; i < sparseSize; i++) {
+            int index = sparse[i] >>> 8;
+            registers[index] = (byte) Math.max(registers[index], sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+    
+    private double alpha() {
+        switch (registerCount) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / registerCount);
+        }
+    }
+}
\ No newline at end of file
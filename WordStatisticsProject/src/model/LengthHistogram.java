@@ -0,0 +1,151 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Number of words of each length, with mean and percentiles
+ * counts[n] is the number of words of n letters; words of MAX_LENGTH letters
+ * or more share the last bucket (the exact longest word is kept in FileStats).
+ * The array only goes up to the longest length seen, so a typical file needs
+ * a few dozen longs. The sum of all lengths is kept exactly, so the mean is
+ * exact even for clipped words.
+ *
+ * Histograms are merged by adding the buckets; percentiles are read from the
+ * cumulative counts, so nothing is sorted and no word list is kept.
+ */
+public class LengthHistogram {
+    
+    // Words of this length or longer share the last bucket
+    public static final int MAX_LENGTH = 64;
+    
+    private long[] counts;
+    private long wordCount;
+    private long totalLength;
+    
+    // Constructor
+    public LengthHistogram() {
+        this.counts = new long[0];
+    }
+    
+    /**
+     * Builds a histogram from raw bucket counts (as filled by WordTokenizer)
+     * The array is copied, without the empty buckets at its end.
+     *
+     * @param counts counts[n] = words of length n, at most MAX_LENGTH + 1 buckets
+     * @param totalLength Sum of the lengths of all words
+     */
+    public static LengthHistogram of(long[] counts, long totalLength) {
+        int used = Math.min(counts.length, MAX_LENGTH + 1);
+        while (used > 0 && counts[used - 1] == 0) {
+            used--;
+        }
+        LengthHistogram histogram = new LengthHistogram();
+        histogram.counts = Arrays.copyOf(counts, used);
+        for (int length = 0; length < used; length++) {
+            histogram.wordCount += counts[length];
+        }
+        histogram.totalLength = totalLength;
+        return histogram;
+    }
+    
+    /**
+     * Number of words of the given length (MAX_LENGTH: that length or longer)
+     */
+    public long getCount(int length) {
+        return length >= 0 && length < counts.length ? counts[length] : 0;
+    }
+    
+    /**
+     * Copy of the buckets, up to the longest length seen
+     */
+    public long[] getCounts() {
+        return counts.clone();
+    }
+    
+    public long getWordCount() {
+        return wordCount;
+    }
+    
+    public long getTotalLength() {
+        return totalLength;
+    }
+    
+    /**
+     * Mean word length (0 without words)
+     */
+    public double getMean() {
+        return wordCount > 0 ? (double) totalLength / wordCount : 0.0;
+    }
+    
+    public int getMedian() {
+        return getPercentile(50);
+    }
+    
+    /**
+     * Word length at the given percentile (nearest rank), 0 without words
+     * @param percentile Between 0 and 100
+     */
+    public int getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (wordCount == 0) {
+            return 0;
+        }
+        // Smallest length whose cumulative count reaches the rank
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * wordCount));
+        long cumulative = 0;
+        for (int length = 0; length < counts.length; length++) {
+            cumulative += counts[length];
+            if (cumulative >= rank) {
+                return length;
+            }
+        }
+        return counts.length - 1;
+    }
+    
+    /**
+     * Adds the words of another histogram
+     */
+    public void merge(LengthHistogram other) {
+        add(other, 1);
+    }
+    
+    /**
+     * Removes the words of another histogram (e.g. a deleted file)
+     */
+    public void subtract(LengthHistogram other) {
+        add(other, -1);
+    }
+    
+    public LengthHistogram copy() {
+        LengthHistogram copy = new LengthHistogram();
+        copy.counts = counts.clone();
+        copy.wordCount = wordCount;
+        copy.totalLength = totalLength;
+        return copy;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("mean %.2f, median %d, p95 %d", getMean(), getMedian(), getPercentile(95));
+    }
+    
+    private void add(LengthHistogram other, int sign) {
+        if (other == null) {
+            return;
+        }
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int length = 0; length < other.counts.length; length++) {
+            counts[length] += sign * other.counts[length];
+        }
+        wordCount += sign * other.wordCount;
+        totalLength += sign * other.totalLength;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,304 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Approximate most frequent words (heavy hitters) in bounded memory
+ * A Misra-Gries summary, the counter-based twin of Space-Saving: at most
+ * "capacity" words are counted. A word that is not counted while the summary
+ * is full decrements every counter instead, and counters that reach 0 are
+ * dropped. Every reported count is an underestimate by at most
+ * getErrorBound() <= N / (capacity + 1), N being the number of words added,
+ * so every word occurring more than N / (capacity + 1) times is in it.
+ * With capacity = ceil(1 / epsilon) the error is at most epsilon * N.
+ *
+ * Merging adds the counters of both summaries and, if more than capacity
+ * remain, subtracts the (capacity + 1)-th largest count from all of them.
+ * This keeps the same bound for the combined N and is associative, so the
+ * summaries of files, workers or whole runs can be merged in any order.
+ *
+ * Words are keyed by their 64-bit hash (WordSketches.hash); the String of a
+ * word is only created when it gets a counter. Not thread-safe.
+ */
+public class TopKSketch {
+    
+    private static final int INITIAL_ENTRIES = 16;
+    
+    private final int capacity;
+    
+    // Slot -> entry number + 1 (0 = empty); rebuilt when entries are dropped
+    private int[] slots;
+    private int mask;
+    
+    // Entries: hash, word and count in parallel arrays
+    private long[] hashes;
+    private String[] words;
+    private long[] counts;
+    private int size;
+    
+    // Words added (N) and the most any count can be below the true one
+    private long totalCount;
+    private long errorBound;
+    
+    /**
+     * Constructor
+     * @param capacity Maximum number of words counted at once
+     */
+    public TopKSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        }
+        this.capacity = capacity;
+        allocate(Math.min(capacity, INITIAL_ENTRIES));
+    }
+    
+    /**
+     * Capacity for a maximum error of epsilon * N
+     */
+    public static int capacityFor(double epsilon) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("Error must be between 0 and 1: " + epsilon);
+        }
+        return (int) Math.ceil(1 / epsilon);
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Number of words added
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+    
+    /**
+     * Maximum amount by which any reported count is below the true count
+     */
+    public long getErrorBound() {
+        return errorBound;
+    }
+    
+    /**
+     * Counts one occurrence of the word at [start, end) of the buffer
+     * @param hash The word's hash (WordSketches.hash)
+     */
+    public void add(long hash, char[] buffer, int start, int end) {
+        totalCount++;
+        int slot = find(hash);
+        if (slots[slot] != 0) {
+            counts[slots[slot] - 1]++;
+        } else if (size < capacity) {
+            insert(slot, hash, lowercase(buffer, start, end), 1);
+        } else {
+            decrementAll(1);
+        }
+    }
+    
+    /**
+     * Adds all counters of another summary (same capacity required)
+     */
+    public void merge(TopKSketch other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Cannot merge summaries of capacity "
+                + capacity + " and " + other.capacity);
+        }
+        if (other == this) {
+            return;
+        }
+        for (int entry = 0; entry < other.size; entry++) {
+            addCount(other.hashes[entry], other.words[entry], other.counts[entry]);
+        }
+        totalCount += other.totalCount;
+        errorBound += other.errorBound;
+        
+        if (size > capacity) {
+            // The (capacity + 1)-th largest count
+            long[] sorted = Arrays.copyOf(counts, size);
+            Arrays.sort(sorted);
+            decrementAll(sorted[size - capacity - 1]);
+        }
+    }
+    
+    /**
+     * Estimated count of a word (case-insensitive), 0 if it has no counter
+     */
+    public long getCount(String word) {
+        char[] chars = word.toCharArray();
+        int slot = find(WordSketches.hash(chars, 0, chars.length));
+        return slots[slot] != 0 ? counts[slots[slot] - 1] : 0;
+    }
+    
+    /**
+     * The n words with the highest estimated counts, highest first (ties in alphabetical order)
+     */
+    public List<WordFrequencyTable.WordCount> top(int n) {
+        Integer[] order = new Integer[size];
+        for (int entry = 0; entry < size; entry++) {
+            order[entry] = entry;
+        }
+        Arrays.sort(order, (a, b) -> counts[a] != counts[b]
+            ? Long.compare(counts[b], counts[a]) : words[a].compareTo(words[b]));
+        
+        List<WordFrequencyTable.WordCount> result = new ArrayList<>(Math.min(n, size));
+        for (int i = 0; i < order.length && i < n; i++) {
+            result.add(new WordFrequencyTable.WordCount(words[order[i]], counts[order[i]]));
+        }
+        return result;
+    }
+    
+    /**
+     * Returns a copy of this summary
+     */
+    public TopKSketch copy() {
+        TopKSketch copy = new TopKSketch(capacity);
+        copy.merge(this);
+        return copy;
+    }
+    
+    /**
+     * Shrinks the arrays to the current content (for summaries that are kept)
+     */
+    public void trimToSize() {
+        int entries = Math.max(1, size);
+        hashes = Arrays.copyOf(hashes, entries);
+        words = Arrays.copyOf(words, entries);
+        counts = Arrays.copyOf(counts, entries);
+        rebuildSlots();
+    }
+    
+    /**
+     * Writes the summary
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(totalCount);
+        out.writeLong(errorBound);
+        out.writeInt(size);
+        for (int entry = 0; entry < size; entry++) {
+            out.writeUTF(words[entry]);
+            out.writeLong(counts[entry]);
+        }
+    }
+    
+    /**
+     * Reads a summary written by writeTo
+     */
+    public static TopKSketch readFrom(DataInputStream in) throws IOException {
+        int capacity = in.readInt();
+        long totalCount = in.readLong();
+        long errorBound = in.readLong();
+        int size = in.readInt();
+        if (capacity < 1 || size < 0 || size > capacity) {
+            throw new IOException("Corrupt top-K summary (capacity " + capacity + ", size " + size + ")");
+        }
+        TopKSketch sketch = new TopKSketch(capacity);
+        for (int i = 0; i < size; i++) {
+            String word = in.readUTF();
+            long count = in.readLong();
+            char[] chars = word.toCharArray();
+            sketch.addCount(WordSketches.hash(chars, 0, chars.length), word, count);
+        }
+        sketch.totalCount = totalCount;
+        sketch.errorBound = errorBound;
+        return sketch;
+    }
+    
+    /**
+     * Adds a count to a word, creating its counter if needed (may exceed capacity until pruned)
+     */
+    private void addCount(long hash, String word, long count) {
+        int slot = find(hash);
+        if (slots[slot] != 0) {
+            counts[slots[slot] - 1] += count;
+        } else {
+            insert(slot, hash, word, count);
+        }
+    }
+    
+    private void insert(int slot, long hash, String word, long count) {
+        if (size == hashes.length) {
+            int entries = size * 2;
+            hashes = Arrays.copyOf(hashes, entries);
+            words = Arrays.copyOf(words, entries);
+            counts = Arrays.copyOf(counts, entries);
+        }
+        hashes[size] = hash;
+        words[size] = word;
+        counts[size] = count;
+        size++;
+        slots[slot] = size;
+        if (size * 2 > slots.length) {
+            rebuildSlots();
+        }
+    }
+    
+    /**
+     * Subtracts amount from every counter and drops the ones that reach 0
+     */
+    private void decrementAll(long amount) {
+        int kept = 0;
+        for (int entry = 0; entry < size; entry++) {
+            long count = counts[entry] - amount;
+            if (count > 0) {
+                hashes[kept] = hashes[entry];
+                words[kept] = words[entry];
+                counts[kept] = count;
+                kept++;
+            }
+        }
+        Arrays.fill(words, kept, size, null);
+        size = kept;
+        errorBound += amount;
+        rebuildSlots();
+    }
+    
+    /**
+     * Slot holding the hash, or the empty slot where it would go
+     */
+    private int find(long hash) {
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (slots[slot] != 0 && hashes[slots[slot] - 1] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * Re-indexes the entries in a slot array at most half full
+     */
+    private void rebuildSlots() {
+        int slotCount = Integer.highestOneBit(Math.max(INITIAL_ENTRIES, size * 2) * 2 - 1);
+        slots = new int[slotCount];
+        mask = slotCount - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = find(hashes[entry]);
+            slots[slot] = entry + 1;
+        }
+    }
+    
+    private void allocate(int entries) {
+        hashes = new long[entries];
+        words = new String[entries];
+        counts = new long[entries];
+        rebuildSlots();
+    }
+    
+    private static String lowercase(char[] buffer, int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (buffer[start + i] | 0x20);
+        }
+        return new String(chars);
+    }
+}
\ No newline at end of file
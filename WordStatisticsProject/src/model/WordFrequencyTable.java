@@ -0,0 +1,405 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Frequency of every word (case-insensitive), without boxing
+ * An open-addressing hash table with linear probing. Words are ASCII letters,
+ * so each key is stored as lowercase bytes in one shared byte array; an entry
+ * is just its hash, the offset and length of its bytes and a long count, all
+ * in parallel primitive arrays. The slot array only holds entry numbers.
+ * No String or Integer is created while counting.
+ *
+ * Merging another table reuses its stored hashes and bytes, so combining the
+ * tables of several workers never re-hashes or decodes a word.
+ *
+ * Not thread-safe: fill one table per file (or range) and merge them.
+ */
+public class WordFrequencyTable {
+    
+    private static final int INITIAL_SLOTS = 64;
+    private static final int INITIAL_KEY_BYTES = 256;
+    
+    // Slot -> entry number + 1 (0 = empty); length is a power of two
+    private int[] slots;
+    private int mask;
+    
+    // Entries, in insertion order
+    private int[] hashes;
+    private int[] keyOffsets;
+    private int[] keyLengths;
+    private long[] counts;
+    private int entryCount;
+    
+    // Lowercase bytes of all keys
+    private byte[] keyBytes;
+    private int keyBytesUsed;
+    
+    // Number of entries with a count other than 0 (subtract may zero an entry)
+    private int distinctWords;
+    private long totalCount;
+    
+    /**
+     * One word and its count (only created for results, e.g. top())
+     */
+    public static final class WordCount {
+        private final String word;
+        private final long count;
+        
+        public WordCount(String word, long count) {
+            this.word = word;
+            this.count = count;
+        }
+        
+        public String getWord() {
+            return word;
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        @Override
+        public String toString() {
+            return word + "=" + count;
+        }
+    }
+    
+    // Constructor
+    public WordFrequencyTable() {
+        this(INITIAL_SLOTS / 2);
+    }
+    
+    /**
+     * Constructor
+     * @param expectedWords Number of distinct words to size the table for
+     */
+    public WordFrequencyTable(int expectedWords) {
+        // Power of two, at least twice the expected size (the table stays at most half full)
+        int slotCount = Integer.highestOneBit(Math.max(INITIAL_SLOTS, expectedWords * 2) - 1) << 1;
+        this.slots = new int[slotCount];
+        this.mask = slotCount - 1;
+        int entries = Math.max(expectedWords, INITIAL_SLOTS / 2);
+        this.hashes = new int[entries];
+        this.keyOffsets = new int[entries];
+        this.keyLengths = new int[entries];
+        this.counts = new long[entries];
+        this.keyBytes = new byte[INITIAL_KEY_BYTES];
+    }
+    
+    /**
+     * Counts one occurrence of the word at [start, end) of the buffer
+     * The characters must be ASCII letters (as produced by WordTokenizer).
+     */
+    public void add(char[] buffer, int start, int end) {
+        int length = end - start;
+        int hash = hash(buffer, start, end);
+        
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                insert(slot, hash, buffer, start, length);
+                return;
+            }
+            if (hashes[entry] == hash && keyLengths[entry] == length && keyEquals(entry, buffer, start)) {
+                increment(entry, 1);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Adds all counts of another table to this one
+     */
+    public void merge(WordFrequencyTable other) {
+        addAll(other, 1);
+    }
+    
+    /**
+     * Removes all counts of another table from this one (e.g. a deleted file)
+     */
+    public void subtract(WordFrequencyTable other) {
+        addAll(other, -1);
+    }
+    
+    /**
+     * Count of a word (case-insensitive), 0 if it never occurred
+     */
+    public long getCount(String word) {
+        char[] chars = word.toCharArray();
+        for (char c : chars) {
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return 0; // not a word the tokenizer would produce
+            }
+        }
+        int hash = hash(chars, 0, chars.length);
+        
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                return 0;
+            }
+            if (hashes[entry] == hash && keyLengths[entry] == chars.length && keyEquals(entry, chars, 0)) {
+                return counts[entry];
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Number of different words
+     */
+    public int size() {
+        return distinctWords;
+    }
+    
+    public boolean isEmpty() {
+        return distinctWords == 0;
+    }
+    
+    /**
+     * Sum of all counts (= number of words counted)
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+    
+    /**
+     * The n most frequent words, most frequent first (ties in alphabetical order)
+     */
+    public List<WordCount> top(int n) {
+        if (n <= 0 || distinctWords == 0) {
+            return Collections.emptyList();
+        }
+        
+        // Min-heap of entry numbers holding the n best so far
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(n, distinctWords) + 1, this::compareEntries);
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (counts[entry] <= 0) {
+                continue;
+            }
+            if (best.size() < n) {
+                best.add(entry);
+            } else if (compareEntries(entry, best.peek()) > 0) {
+                best.poll();
+                best.add(entry);
+            }
+        }
+        
+        List<WordCount> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int entry = best.poll();
+            result.add(new WordCount(wordAt(entry), counts[entry]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    /**
+     * Calls the consumer for every word with a count other than 0 (insertion order)
+     */
+    public void forEach(ObjLongConsumer<String> consumer) {
+        for (int entry = 0; entry < entryCount; entry++) {
+            if (counts[entry] != 0) {
+                consumer.accept(wordAt(entry), counts[entry]);
+            }
+        }
+    }
+    
+    /**
+     * Returns a copy of this table
+     */
+    public WordFrequencyTable copy() {
+        WordFrequencyTable copy = new WordFrequencyTable(entryCount);
+        copy.merge(this);
+        return copy;
+    }
+    
+    /**
+     * Shrinks the arrays to the current content (for tables that are kept)
+     */
+    public void trimToSize() {
+        hashes = Arrays.copyOf(hashes, Math.max(1, entryCount));
+        keyOffsets = Arrays.copyOf(keyOffsets, hashes.length);
+        keyLengths = Arrays.copyOf(keyLengths, hashes.length);
+        counts = Arrays.copyOf(counts, hashes.length);
+        keyBytes = Arrays.copyOf(keyBytes, Math.max(1, keyBytesUsed));
+    }
+    
+    /**
+     * Removes all words
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        entryCount = 0;
+        keyBytesUsed = 0;
+        distinctWords = 0;
+        totalCount = 0;
+    }
+    
+    /**
+     * Adds sign * the counts of another table, reusing its hashes and key bytes
+     */
+    private void addAll(WordFrequencyTable other, int sign) {
+        if (other == null || other == this) {
+            return;
+        }
+        for (int entry = 0; entry < other.entryCount; entry++) {
+            long count = other.counts[entry];
+            if (count != 0) {
+                addKey(other.hashes[entry], other.keyBytes, other.keyOffsets[entry],
+                    other.keyLengths[entry], sign * count);
+            }
+        }
+    }
+    
+    /**
+     * Adds a count to a key given as lowercase bytes with its hash
+     */
+    private void addKey(int hash, byte[] bytes, int offset, int length, long count) {
+        int slot = hash & mask;
+        while (true) {
+            int entry = slots[slot] - 1;
+            if (entry < 0) {
+                break;
+            }
+            if (hashes[entry] == hash && keyLengths[entry] == length
+                    && Arrays.equals(keyBytes, keyOffsets[entry], keyOffsets[entry] + length,
+                                     bytes, offset, offset + length)) {
+                increment(entry, count);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        
+        int entry = newEntry(slot, hash, length);
+        System.arraycopy(bytes, offset, keyBytes, keyOffsets[entry], length);
+        increment(entry, count);
+        growIfNeeded();
+    }
+    
+    /**
+     * Adds a new key from chars (lowercased into the key bytes) with count 1
+     */
+    private void insert(int slot, int hash, char[] buffer, int start, int length) {
+        int entry = newEntry(slot, hash, length);
+        int offset = keyOffsets[entry];
+        for (int i = 0; i < length; i++) {
+            keyBytes[offset + i] = (byte) (buffer[start + i] | 0x20);
+        }
+        increment(entry, 1);
+        growIfNeeded();
+    }
+    
+    /**
+     * Creates an entry in the given empty slot and reserves room for its key bytes
+     */
+    private int newEntry(int slot, int hash, int length) {
+        if (entryCount == hashes.length) {
+            int capacity = entryCount * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+            keyLengths = Arrays.copyOf(keyLengths, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        if (keyBytesUsed + length > keyBytes.length) {
+            keyBytes = Arrays.copyOf(keyBytes, Math.max(keyBytes.length * 2, keyBytesUsed + length));
+        }
+        
+        int entry = entryCount++;
+        hashes[entry] = hash;
+        keyOffsets[entry] = keyBytesUsed;
+        keyLengths[entry] = length;
+        counts[entry] = 0;
+        keyBytesUsed += length;
+        slots[slot] = entry + 1;
+        return entry;
+    }
+    
+    private void increment(int entry, long delta) {
+        long before = counts[entry];
+        long after = before + delta;
+        counts[entry] = after;
+        totalCount += delta;
+        if (before == 0 && after != 0) {
+            distinctWords++;
+        } else if (before != 0 && after == 0) {
+            distinctWords--;
+        }
+    }
+    
+    /**
+     * Doubles the slot array when it is more than half full
+     * Only the stored hashes are needed, keys are not read again.
+     */
+    private void growIfNeeded() {
+        if (entryCount * 2 <= slots.length) {
+            return;
+        }
+        int[] newSlots = new int[slots.length * 2];
+        int newMask = newSlots.length - 1;
+        for (int entry = 0; entry < entryCount; entry++) {
+            int slot = hashes[entry] & newMask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & newMask;
+            }
+            newSlots[slot] = entry + 1;
+        }
+        slots = newSlots;
+        mask = newMask;
+    }
+    
+    private boolean keyEquals(int entry, char[] buffer, int start) {
+        int offset = keyOffsets[entry];
+        int length = keyLengths[entry];
+        for (int i = 0; i < length; i++) {
+            if (keyBytes[offset + i] != (byte) (buffer[start + i] | 0x20)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private String wordAt(int entry) {
+        return new String(keyBytes, keyOffsets[entry], keyLengths[entry], StandardCharsets.ISO_8859_1);
+    }
+    
+    /**
+     * More frequent first; on equal counts the alphabetically smaller word wins
+     */
+    private int compareEntries(int a, int b) {
+        int byCount = Long.compare(counts[a], counts[b]);
+        if (byCount != 0) {
+            return byCount;
+        }
+        return -Arrays.compare(keyBytes, keyOffsets[a], keyOffsets[a] + keyLengths[a],
+                               keyBytes, keyOffsets[b], keyOffsets[b] + keyLengths[b]);
+    }
+    
+    /**
+     * FNV-1a over the lowercase letters, with a final mix for the low bits
+     */
+    private static int hash(char[] buffer, int start, int end) {
+        int h = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            h = (h ^ (buffer[i] | 0x20)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Bounded-memory word aggregates: top words and number of distinct words
+ * The exact WordFrequencyTable grows with the vocabulary; these sketches do
+ * not, so they can summarize any amount of text:
+ * - TopKSketch: every count is at most topKError * N below the true count
+ *   (N = words added), so every word above that frequency is reported
+ * - HyperLogLog: the distinct-word estimate has a relative standard error of
+ *   about distinctError (1.04 / sqrt(2^precision))
+ *
+ * Each word is hashed once (64-bit) for both sketches. Sketches built per
+ * file merge associatively into directory totals, and can be saved and merged
+ * across runs (e.g. one run per disk or shard). Sketches can only be merged
+ * if they were created with the same error settings.
+ *
+ * Not thread-safe.
+ */
+public class WordSketches {
+    
+    // Defaults: counts within 0.1 % of all words, distinct words within about 1 %
+    public static final double DEFAULT_TOP_K_ERROR = 0.001;
+    public static final double DEFAULT_DISTINCT_ERROR = 0.01;
+    
+    private static final int FILE_MAGIC = 0x57534B31; // "WSK1"
+    
+    private final TopKSketch topWords;
+    private final HyperLogLog distinctWords;
+    
+    /**
+     * Constructor
+     *
+     * @param topKError Maximum count error, as a fraction of all words
+     * @param distinctError Relative standard error of the distinct-word count
+     */
+    public WordSketches(double topKError, double distinctError) {
+        this(new TopKSketch(TopKSketch.capacityFor(topKError)),
+             new HyperLogLog(HyperLogLog.precisionFor(distinctError)));
+    }
+    
+    private WordSketches(TopKSketch topWords, HyperLogLog distinctWords) {
+        this.topWords = topWords;
+        this.distinctWords = distinctWords;
+    }
+    
+    /**
+     * Empty sketches with the same settings as this one
+     */
+    public WordSketches emptyCopy() {
+        return new WordSketches(new TopKSketch(topWords.getCapacity()),
+                                new HyperLogLog(distinctWords.getPrecision()));
+    }
+    
+    /**
+     * Adds the word at [start, end) of the buffer (ASCII letters, case-insensitive)
+     */
+    public void add(char[] buffer, int start, int end) {
+        long hash = hash(buffer, start, end);
+        topWords.add(hash, buffer, start, end);
+        distinctWords.add(hash);
+    }
+    
+    /**
+     * Adds everything counted by other (same settings required)
+     */
+    public void merge(WordSketches other) {
+        topWords.merge(other.topWords);
+        distinctWords.merge(other.distinctWords);
+    }
+    
+    /**
+     * The n most frequent words (estimated counts), most frequent first
+     */
+    public List<WordFrequencyTable.WordCount> getTopWords(int n) {
+        return topWords.top(n);
+    }
+    
+    /**
+     * Maximum amount by which a count from getTopWords is below the true count
+     */
+    public long getTopWordsErrorBound() {
+        return topWords.getErrorBound();
+    }
+    
+    /**
+     * Estimated number of different words
+     */
+    public long getDistinctWordEstimate() {
+        return distinctWords.estimate();
+    }
+    
+    /**
+     * Relative standard error of getDistinctWordEstimate()
+     */
+    public double getDistinctWordError() {
+        return distinctWords.getRelativeError();
+    }
+    
+    /**
+     * Number of words added
+     */
+    public long getTotalCount() {
+        return topWords.getTotalCount();
+    }
+    
+    public WordSketches copy() {
+        return new WordSketches(topWords.copy(), distinctWords.copy());
+    }
+    
+    /**
+     * Shrinks the sketches to their content (for sketches that are kept)
+     */
+    public void trimToSize() {
+        topWords.trimToSize();
+        distinctWords.trimToSize();
+    }
+    
+    /**
+     * Saves the sketches to a file
+     */
+    public void save(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(FILE_MAGIC);
+            topWords.writeTo(out);
+            distinctWords.writeTo(out);
+        }
+    }
+    
+    /**
+     * Loads sketches saved with save()
+     */
+    public static WordSketches load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a word sketch file: " + file);
+            }
+            TopKSketch topWords = TopKSketch.readFrom(in);
+            HyperLogLog distinctWords = HyperLogLog.readFrom(in);
+            return new WordSketches(topWords, distinctWords);
+        }
+    }
+    
+    /**
+     * 64-bit hash of a word: FNV-1a over the lowercase letters, then a
+     * MurmurHash3 finalizer so all bits are well mixed (HyperLogLog uses the
+     * top bits as register index and the rest for the rank)
+     */
+    public static long hash(char[] buffer, int start, int end) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = start; i < end; i++) {
+            h = (h ^ (buffer[i] | 0x20)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
\ No newline at end of file
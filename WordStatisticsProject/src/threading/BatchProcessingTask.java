@@ -0,0 +1,79 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package threading;
+
+import model.BatchResult;
+import model.FileStats;
+import core.FileProcessor;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Worker task that processes a batch of small files in one submission
+ * For trees of millions of tiny files the per-task cost (queueing, one
+ * result handoff and one GlobalStats update per file) outweighs the analysis
+ * itself. This task runs every file of its batch on one worker, which reuses
+ * its read buffer and tokenizer for all of them (see FileProcessor), and
+ * returns one BatchResult that is merged in one step.
+ * Stops early (with a partial result) when its thread is interrupted.
+ */
+public class BatchProcessingTask implements Callable<BatchResult> {
+    
+    private static final Logger LOGGER = Logger.getLogger(BatchProcessingTask.class.getName());
+    
+    private final List<Path> files;
+    private final FileProcessor fileProcessor;
+    
+    /**
+     * Constructor
+     */
+    public BatchProcessingTask(List<Path> files, FileProcessor fileProcessor) {
+        this.files = files;
+        this.fileProcessor = fileProcessor;
+    }
+    
+    /**
+     * Processes the files one after the other on the calling thread
+     * @return The statistics of the batch; files that failed are in it as error statistics
+     */
+    @Override
+    public BatchResult call() {
+        BatchResult result = new BatchResult(files.size());
+        
+        for (Path filePath : files) {
+            if (Thread.currentThread().isInterrupted()) {
+                break; // stopProcessing()
+            }
+            FileStats stats;
+            try {
+                stats = fileProcessor.processFile(filePath);
+            } catch (Exception e) {
+                LOGGER.warning("Error processing file: " + filePath.getFileName() +
+                               " - " + e.getMessage());
+                stats = new FileStats(filePath.getFileName().toString(), filePath.toString());
+                stats.setLongestWord("ERROR");
+                stats.setShortestWord("ERROR");
+                stats.setError(true);
+            }
+            result.add(stats);
+        }
+        
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Thread " + Thread.currentThread().getName() +
+                        " processed a batch of " + result.getProcessedCount() + " files");
+        }
+        return result;
+    }
+    
+    /**
+     * Get the files of the batch
+     */
+    public List<Path> getFiles() {
+        return files;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package threading;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Fork/join task that lists one directory and forks a task per subdirectory
+ * Every entry is stat'ed exactly once (attributes without following links);
+ * regular files are passed with these attributes to the visitor, which may be
+ * called from several pool threads at the same time. Like Files.walk, links
+ * to directories are not followed. An unreadable directory is logged and
+ * skipped; the rest of the tree is still walked.
+ */
+public class DirectoryWalkTask extends RecursiveAction {
+    
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWalkTask.class.getName());
+    
+    private final Path directory;
+    private final int depth;
+    private final int maxDepth;
+    private final BiConsumer<Path, BasicFileAttributes> visitor;
+    
+    /**
+     * Constructor
+     *
+     * @param directory Directory to list (at depth 0 for the root)
+     * @param maxDepth Entries deeper than this are not visited (1 = root entries only)
+     * @param visitor Called with every non-directory entry and its attributes
+     */
+    public DirectoryWalkTask(Path directory, int maxDepth, BiConsumer<Path, BasicFileAttributes> visitor) {
+        this(directory, 0, maxDepth, visitor);
+    }
+    
+    private DirectoryWalkTask(Path directory, int depth, int maxDepth,
+                              BiConsumer<Path, BasicFileAttributes> visitor) {
+        this.directory = directory;
+        this.depth = depth;
+        this.maxDepth = maxDepth;
+        this.visitor = visitor;
+    }
+    
+    @Override
+    protected void compute() {
+        List<DirectoryWalkTask> subdirectories = null;
+        boolean descend = depth + 1 < maxDepth;
+        
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    // Deleted meanwhile, or no permission
+                    continue;
+                }
+                
+                if (!attrs.isDirectory()) {
+                    visitor.accept(entry, attrs);
+                } else if (descend) {
+                    DirectoryWalkTask task = new DirectoryWalkTask(entry, depth + 1, maxDepth, visitor);
+                    task.fork();
+                    if (subdirectories == null) {
+                        subdirectories = new ArrayList<>();
+                    }
+                    subdirectories.add(task);
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            LOGGER.warning("Error scanning directory: " + directory + " - " + e.getMessage());
+        }
+        
+        if (subdirectories != null) {
+            for (DirectoryWalkTask task : subdirectories) {
+                task.join();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package threading;
+
+/**
+ * How StatisticsManager runs the per-file work
+ */
+public enum ExecutorStrategy {
+    
+    /** One platform thread per core does both reading and analysis (default) */
+    FIXED_POOL("Fixed thread pool"),
+    
+    /**
+     * One virtual thread per file for the I/O, limited by a concurrency limit,
+     * plus a bounded pool of platform threads (one per core) for the analysis.
+     * Best on high-latency storage (NFS, FUSE, spinning disks).
+     */
+    VIRTUAL_THREADS("Virtual threads");
+    
+    private final String displayName;
+    
+    ExecutorStrategy(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    /**
+     * Name shown in the GUI
+     */
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
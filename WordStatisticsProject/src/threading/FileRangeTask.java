@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package threading;
+
+import model.FileStats;
+import core.FileProcessor;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Fork/join task that analyzes a byte range of one large file
+ * Ranges bigger than the range size are cut in two at a word boundary and
+ * processed in parallel; the partial results are merged back in file order,
+ * so the file still ends up as a single FileStats row.
+ */
+public class FileRangeTask extends RecursiveTask<FileStats> {
+    
+    private final FileProcessor fileProcessor;
+    private final Path filePath;
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private final long rangeSize;
+    private final long deadline;
+    private final BooleanSupplier cancelled;
+    
+    /**
+     * Constructor
+     * 
+     * @param channel Open channel on the file, shared by all sub-tasks
+     * @param start First byte of the range (on a word boundary)
+     * @param end End of the range, exclusive (on a word boundary)
+     * @param rangeSize Ranges up to this size are not split further
+     */
+    public FileRangeTask(FileProcessor fileProcessor, Path filePath, FileChannel channel,
+                         long start, long end, long rangeSize) {
+        this(fileProcessor, filePath, channel, start, end, rangeSize, 0, null);
+    }
+    
+    /**
+     * Constructor with a time limit and a cancellation signal for the whole file
+     * 
+     * @param deadline System.nanoTime() by which all ranges must be done, 0 for none
+     * @param cancelled Returns true once the file is given up (checked between mapped windows), or null
+     */
+    public FileRangeTask(FileProcessor fileProcessor, Path filePath, FileChannel channel,
+                         long start, long end, long rangeSize, long deadline, BooleanSupplier cancelled) {
+        this.fileProcessor = fileProcessor;
+        this.filePath = filePath;
+        this.channel = channel;
+        this.start = start;
+        this.end = end;
+        this.rangeSize = rangeSize;
+        this.deadline = deadline;
+        this.cancelled = cancelled;
+    }
+    
+    @Override
+    protected FileStats compute() {
+        try {
+            if (end - start <= rangeSize) {
+                return fileProcessor.processRange(filePath, channel, start, end, deadline, cancelled);
+            }
+            
+            // Split in the middle, moved forward so no word is cut in two
+            long middle = fileProcessor.findWordBoundary(channel, start + (end - start) / 2, end);
+            if (middle >= end) {
+                return fileProcessor.processRange(filePath, channel, start, end, deadline, cancelled);
+            }
+            
+            FileRangeTask left = new FileRangeTask(fileProcessor, filePath, channel,
+                start, middle, rangeSize, deadline, cancelled);
+            FileRangeTask right = new FileRangeTask(fileProcessor, filePath, channel,
+                middle, end, rangeSize, deadline, cancelled);
+            right.fork();
+            FileStats stats = left.compute();
+            
+            // Left first: keeps "first longest / first shortest" in file order
+            stats.merge(right.join());
+            return stats;
+            
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -10,13 +10,19 @@ import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Represents a worker task that processes a single file
  * Implements Callable to return results and work with ExecutorService
+ * UPDATED: Logs through java.util.logging; the per-file line is FINE, so it
+ * costs one level check unless enabled (it used to print every file).
  */
 public class ProcessingTask implements Callable<FileStats> {
     
+    private static final Logger LOGGER = Logger.getLogger(ProcessingTask.class.getName());
+    
     private final Path filePath;
     private final FileProcessor fileProcessor;
     
@@ -47,16 +53,18 @@ public class ProcessingTask implements Callable<FileStats> {
             // Process the file using the existing FileProcessor
             FileStats stats = fileProcessor.processFile(filePath);
             
-            // Log processing (optional - can be removed)
-            System.out.println("Thread " + Thread.currentThread().getName() + 
-                             " processed: " + filePath.getFileName());
+            // Log processing (only built when FINE is enabled)
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Thread " + Thread.currentThread().getName() + 
+                            " processed: " + filePath.getFileName());
+            }
             
             return stats;
             
         } catch (Exception e) {
             // Create error statistics if processing fails
-            System.err.println("Error processing file: " + filePath.getFileName() + 
-                             " - " + e.getMessage());
+            LOGGER.warning("Error processing file: " + filePath.getFileName() + 
+                           " - " + e.getMessage());
             
             FileStats errorStats = new FileStats(
                 filePath.getFileName().toString(), 
@@ -68,6 +76,7 @@ public class ProcessingTask implements Callable<FileStats> {
             errorStats.setYouCount(0);
             errorStats.setLongestWord("ERROR");
             errorStats.setShortestWord("ERROR");
+            errorStats.setError(true);
             
             return errorStats;
         }
@@ -0,0 +1,112 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package threading;
+
+import model.FileStats;
+import core.FileProcessor;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * Worker task for the virtual-thread strategy
+ * Runs on a virtual thread: the blocking read happens here (at most ioPermits
+ * reads at a time), then the analysis is handed to the bounded CPU pool so the
+ * number of cores busy tokenizing never exceeds the pool size. Files too large
+ * to preload alternate the two steps part by part.
+ */
+public class SplitIoCpuTask implements Callable<FileStats> {
+    
+    private static final Logger LOGGER = Logger.getLogger(SplitIoCpuTask.class.getName());
+    
+    private final Path filePath;
+    private final FileProcessor fileProcessor;
+    private final Semaphore ioPermits;
+    private final ExecutorService cpuPool;
+    
+    /**
+     * Constructor
+     * 
+     * @param ioPermits Limits how many files are read at the same time
+     * @param cpuPool Platform-thread pool that runs the analysis step
+     */
+    public SplitIoCpuTask(Path filePath, FileProcessor fileProcessor,
+                          Semaphore ioPermits, ExecutorService cpuPool) {
+        this.filePath = filePath;
+        this.fileProcessor = fileProcessor;
+        this.ioPermits = ioPermits;
+        this.cpuPool = cpuPool;
+    }
+    
+    /**
+     * Reads the file on the calling (virtual) thread, analyzes it on the CPU pool
+     * @return FileStats containing all statistics for this file, or null if it was deleted
+     * @throws Exception if the thread is interrupted
+     */
+    @Override
+    public FileStats call() throws Exception {
+        byte[] content;
+        long readNanos;
+        
+        // 1. I/O step, limited by the permits
+        ioPermits.acquire();
+        try {
+            long readStart = System.nanoTime();
+            content = fileProcessor.preloadFile(filePath);
+            readNanos = System.nanoTime() - readStart;
+        } catch (ClosedByInterruptException e) {
+            throw e; // the run was stopped
+        } catch (NoSuchFileException e) {
+            // Deleted since discovery, as in FileProcessor.processFile
+            return null;
+        } catch (Exception e) {
+            LOGGER.warning("Error reading file: " + filePath.getFileName() + 
+                           " - " + e.getMessage());
+            return fileProcessor.createErrorFileStats(filePath.getFileName().toString(),
+                filePath.toString(), e.getMessage());
+        } finally {
+            ioPermits.release();
+        }
+        
+        // 2. CPU step
+        if (content == null) {
+            return processInParts();
+        }
+        return cpuPool.submit(() -> fileProcessor.processPreloaded(filePath, content, readNanos)).get();
+    }
+    
+    /**
+     * Files too large to preload: each part is read here, then analyzed on the CPU pool
+     */
+    private FileStats processInParts() throws Exception {
+        try (FileProcessor.PartReader parts = fileProcessor.openParts(filePath)) {
+            while (true) {
+                boolean read;
+                ioPermits.acquire();
+                try {
+                    read = parts.readPart();
+                } finally {
+                    ioPermits.release();
+                }
+                if (!read) {
+                    break;
+                }
+                cpuPool.submit(parts::analyzePart).get();
+            }
+            return cpuPool.submit(parts::finish).get();
+        }
+    }
+    
+    /**
+     * Get the file being processed as Path
+     */
+    public Path getFilePath() {
+        return filePath;
+    }
+}
@@ -0,0 +1,701 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package tools;
+
+import core.FileDiscoverer;
+import core.StatisticsManager;
+import gui.ProgressListener;
+import model.FileStats;
+import model.GlobalStats;
+import model.LengthHistogram;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Generates reproducible test corpora, together with their expected statistics
+ * The same seed and options always give the same files, byte for byte. The
+ * tree has a configurable depth and fan-out; file sizes follow a fixed,
+ * uniform or log-normal distribution; optional huge files are streamed to
+ * disk (multi-GB files need no memory). Text is drawn from a Zipf-distributed
+ * vocabulary, so word frequencies look like natural language, and contains
+ * "is", "are" and "you" in mixed case.
+ *
+ * Like src/test_files/testSuitRoot, the tree also gets a non-text share of
+ * files (.pdf, .bin, .log, ...) and the edge cases: empty, whitespace-only and
+ * punctuation-only files, tricky words, a dot file and a text file named
+ * wrong_format.pdf.
+ *
+ * While writing, every word is counted, so the generator knows the expected
+ * totals without reading anything back: files, words, is/are/you, longest
+ * word (a unique 45-letter word), shortest length, the word-length histogram
+ * and the files-by-word-count buckets, for exactly the files that
+ * FileDiscoverer accepts. They are printed as one JSON object with the same
+ * field names as the batch-mode summary; --verify also runs the engine over
+ * the tree and compares.
+ *
+ * Usage: java -cp WordStatisticsProject.jar tools.CorpusGenerator <dir> [options]
+ */
+public class CorpusGenerator {
+    
+    // Exit codes
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+    
+    // The one longest word of every corpus (vocabulary words are shorter)
+    static final String LONGEST_WORD = "pneumonoultramicroscopicsilicovolcanoconiosis";
+    
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int MAX_VOCABULARY_WORD_LENGTH = 18;
+    private static final double ZIPF_EXPONENT = 1.07;
+    private static final int MAX_FILES_PER_DIRECTORY = 1000;
+    
+    private static final String[] TEXT_EXTENSIONS = {".txt", ".txt", ".txt", ".txt", ".md", ".csv", ".text"};
+    private static final String[] OTHER_EXTENSIONS = {".pdf", ".bin", ".log", ".dat", ".docx"};
+    
+    // Separators between words; none contains an ASCII letter ("—" is an em dash)
+    private static final byte[][] SEPARATORS = encodeAll(
+        " ", " ", " ", " ", " ", " ", ", ", ". ", "\n", "\n", "; ", "! ", "? ", " - ", " — ", "\t", " 42 ", "' ");
+    
+    // Options
+    private Path outputDir;
+    private long seed = 1;
+    private int fileCount = 1000;
+    private int depth = 3;
+    private int fanOut = 4;
+    private SizeDistribution sizes = SizeDistribution.parse("lognormal:4k:1.0");
+    private int hugeFiles;
+    private long hugeFileSize = 1L << 30;
+    private double otherRatio = 0.1;
+    private boolean edgeCases = true;
+    private Path expectedFile;
+    private boolean verify;
+    
+    private final FileDiscoverer discoverer = new FileDiscoverer();
+    private Random random;
+    private Vocabulary vocabulary;
+    private Expected expected;
+    
+    /**
+     * How the size of a regular file is chosen
+     */
+    static final class SizeDistribution {
+        private final String kind;
+        private final double a;
+        private final double b;
+        
+        private SizeDistribution(String kind, double a, double b) {
+            this.kind = kind;
+            this.a = a;
+            this.b = b;
+        }
+        
+        /**
+         * Parses fixed:SIZE, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA
+         * @throws IllegalArgumentException If the text is not one of these
+         */
+        static SizeDistribution parse(String text) {
+            String[] parts = text.split(":");
+            switch (parts[0]) {
+                case "fixed":
+                    if (parts.length == 2) {
+                        return new SizeDistribution("fixed", parseSize(parts[1]), 0);
+                    }
+                    break;
+                case "uniform":
+                    if (parts.length == 3) {
+                        return new SizeDistribution("uniform", parseSize(parts[1]), parseSize(parts[2]));
+                    }
+                    break;
+                case "lognormal":
+                    if (parts.length == 3) {
+                        return new SizeDistribution("lognormal", parseSize(parts[1]), Double.parseDouble(parts[2]));
+                    }
+                    break;
+                default:
+                    break;
+            }
+            throw new IllegalArgumentException("Unknown size distribution: " + text
+                + " (expected fixed:SIZE, uniform:MIN:MAX or lognormal:MEDIAN:SIGMA)");
+        }
+        
+        long next(Random random) {
+            switch (kind) {
+                case "uniform":
+                    return (long) (a + random.nextDouble() * (b - a));
+                case "lognormal":
+                    return (long) (a * Math.exp(b * random.nextGaussian()));
+                default:
+                    return (long) a;
+            }
+        }
+    }
+    
+    /**
+     * Zipf-distributed random words; "is", "are" and "you" are among the most frequent
+     */
+    private static final class Vocabulary {
+        final byte[][] words;
+        final double[] cumulative;
+        
+        Vocabulary(Random random) {
+            words = new byte[VOCABULARY_SIZE][];
+            String[] common = {"the", "of", "and", "to", "a", "in", "is", "you", "that", "it", "are", "i"};
+            for (int rank = 0; rank < words.length; rank++) {
+                String word = rank < common.length ? common[rank] : randomWord(random);
+                words[rank] = word.getBytes(StandardCharsets.US_ASCII);
+            }
+            
+            cumulative = new double[words.length];
+            double sum = 0;
+            for (int rank = 0; rank < words.length; rank++) {
+                sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                cumulative[rank] = sum;
+            }
+            for (int rank = 0; rank < words.length; rank++) {
+                cumulative[rank] /= sum;
+            }
+        }
+        
+        byte[] next(Random random) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+            return words[Math.min(rank < 0 ? -rank - 1 : rank, words.length - 1)];
+        }
+        
+        private static String randomWord(Random random) {
+            // Mostly 2-10 letters, like English
+            int length = 1 + (int) Math.min(MAX_VOCABULARY_WORD_LENGTH - 1, Math.abs(random.nextGaussian() * 3.5) + 1);
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+            return new String(chars);
+        }
+    }
+    
+    /**
+     * Expected statistics of the files the engine will analyze
+     */
+    private static final class Expected {
+        long files;
+        long skippedFiles;
+        long bytes;
+        long words;
+        long isCount;
+        long areCount;
+        long youCount;
+        String longestWord = "";
+        int shortestLength;
+        final long[] lengthCounts = new long[LengthHistogram.MAX_LENGTH + 1];
+        final long[] filesByWordCount = new long[64];
+        
+        // Words of the file being written
+        long fileWords;
+        
+        void addWord(byte[] word, int start, int end) {
+            int length = end - start;
+            fileWords++;
+            lengthCounts[Math.min(length, LengthHistogram.MAX_LENGTH)]++;
+            if (length > longestWord.length()) {
+                longestWord = new String(word, start, length, StandardCharsets.US_ASCII);
+            }
+            if (shortestLength == 0 || length < shortestLength) {
+                shortestLength = length;
+            }
+            if (length == 2 && lower(word[start]) == 'i' && lower(word[start + 1]) == 's') {
+                isCount++;
+            } else if (length == 3 && lower(word[start]) == 'a' && lower(word[start + 1]) == 'r'
+                    && lower(word[start + 2]) == 'e') {
+                areCount++;
+            } else if (length == 3 && lower(word[start]) == 'y' && lower(word[start + 1]) == 'o'
+                    && lower(word[start + 2]) == 'u') {
+                youCount++;
+            }
+        }
+        
+        /**
+         * Counts the words (runs of ASCII letters) of literal content
+         */
+        void addText(byte[] content) {
+            int start = -1;
+            for (int i = 0; i <= content.length; i++) {
+                boolean letter = i < content.length && isLetter(content[i]);
+                if (letter && start < 0) {
+                    start = i;
+                } else if (!letter && start >= 0) {
+                    addWord(content, start, i);
+                    start = -1;
+                }
+            }
+        }
+        
+        void endFile(long fileBytes) {
+            files++;
+            bytes += fileBytes;
+            words += fileWords;
+            filesByWordCount[fileWords == 0 ? 0 : 64 - Long.numberOfLeadingZeros(fileWords)]++;
+            fileWords = 0;
+        }
+        
+        long[] usedFilesByWordCount() {
+            int used = filesByWordCount.length;
+            while (used > 0 && filesByWordCount[used - 1] == 0) {
+                used--;
+            }
+            return Arrays.copyOf(filesByWordCount, used);
+        }
+        
+        long[] usedLengthCounts() {
+            int used = lengthCounts.length;
+            while (used > 0 && lengthCounts[used - 1] == 0) {
+                used--;
+            }
+            return Arrays.copyOf(lengthCounts, used);
+        }
+        
+        String toJson(long seed) {
+            return "{\"type\":\"expected\",\"seed\":" + seed
+                + ",\"files\":" + files
+                + ",\"skippedFiles\":" + skippedFiles
+                + ",\"bytes\":" + bytes
+                + ",\"words\":" + words
+                + ",\"is\":" + isCount
+                + ",\"are\":" + areCount
+                + ",\"you\":" + youCount
+                + ",\"longest\":\"" + longestWord + "\""
+                + ",\"shortestLength\":" + shortestLength
+                + ",\"lengthHistogram\":" + Arrays.toString(usedLengthCounts()).replace(" ", "")
+                + ",\"filesByWordCount\":" + Arrays.toString(usedFilesByWordCount()).replace(" ", "")
+                + "}";
+        }
+        
+        private static char lower(byte b) {
+            return (char) (b | 0x20);
+        }
+        
+        private static boolean isLetter(byte b) {
+            return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+        }
+    }
+    
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+    
+    /**
+     * Runs the generator and returns the process exit code
+     */
+    public static int run(String[] args) {
+        CorpusGenerator generator = new CorpusGenerator();
+        String problem;
+        try {
+            problem = generator.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            problem = e.getMessage();
+        }
+        if (problem != null) {
+            if (!problem.isEmpty()) {
+                System.err.println("Error: " + problem);
+            }
+            printUsage();
+            return problem.isEmpty() ? EXIT_OK : EXIT_USAGE;
+        }
+        
+        try {
+            generator.generate();
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+        return generator.verify ? generator.verify() : EXIT_OK;
+    }
+    
+    /**
+     * Parses the arguments
+     *
+     * @return null if valid, "" if only help was requested, or an error message
+     * @throws IllegalArgumentException For malformed numbers and sizes
+     */
+    private String parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-h") || arg.equals("--help")) {
+                return "";
+            }
+            if (arg.equals("--no-edge-cases")) {
+                edgeCases = false;
+                continue;
+            }
+            if (arg.equals("--verify")) {
+                verify = true;
+                continue;
+            }
+            if (!arg.startsWith("-")) {
+                if (outputDir != null) {
+                    return "Only one output directory can be given";
+                }
+                outputDir = Paths.get(arg);
+                continue;
+            }
+            if (++i >= args.length) {
+                return "Missing value for " + arg;
+            }
+            String value = args[i];
+            switch (arg) {
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--files":
+                    fileCount = Integer.parseInt(value);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(value);
+                    break;
+                case "--fan-out":
+                    fanOut = Integer.parseInt(value);
+                    break;
+                case "--size":
+                    sizes = SizeDistribution.parse(value);
+                    break;
+                case "--huge-files":
+                    hugeFiles = Integer.parseInt(value);
+                    break;
+                case "--huge-size":
+                    hugeFileSize = parseSize(value);
+                    break;
+                case "--other-ratio":
+                    otherRatio = Double.parseDouble(value);
+                    break;
+                case "--expected":
+                    expectedFile = Paths.get(value);
+                    break;
+                default:
+                    return "Unknown option: " + arg;
+            }
+        }
+        
+        if (outputDir == null) {
+            return "No output directory given";
+        }
+        if (fileCount < 0 || hugeFiles < 0 || depth < 0 || fanOut < 1 || otherRatio < 0 || otherRatio > 1) {
+            return "Invalid counts or ratio";
+        }
+        return null;
+    }
+    
+    private static void printUsage() {
+        System.err.println("Usage: CorpusGenerator <output-dir> [options]");
+        System.err.println("      --seed <n>            Random seed (default 1); same seed, same corpus");
+        System.err.println("      --files <n>           Number of regular files (default 1000)");
+        System.err.println("      --depth <n>           Depth of the directory tree (default 3)");
+        System.err.println("      --fan-out <n>         Subdirectories per directory (default 4)");
+        System.err.println("      --size <dist>         File sizes: fixed:SIZE, uniform:MIN:MAX or");
+        System.err.println("                            lognormal:MEDIAN:SIGMA (default lognormal:4k:1.0)");
+        System.err.println("      --huge-files <n>      Extra huge files (default 0)");
+        System.err.println("      --huge-size <size>    Size of each huge file (default 1g)");
+        System.err.println("      --other-ratio <r>     Share of non-text files, e.g. .pdf (default 0.1)");
+        System.err.println("      --no-edge-cases       Leave out the edge-case files");
+        System.err.println("      --expected <file>     Write the expected statistics there (default: stdout)");
+        System.err.println("      --verify              Run the engine over the corpus and compare");
+        System.err.println("Sizes take a k, m or g suffix (powers of 1024).");
+    }
+    
+    /**
+     * Writes the corpus and the expected statistics
+     */
+    private void generate() throws IOException {
+        if (Files.isDirectory(outputDir)) {
+            try (Stream<Path> entries = Files.list(outputDir)) {
+                if (entries.findAny().isPresent()) {
+                    throw new IOException("Output directory is not empty: " + outputDir);
+                }
+            }
+        }
+        Files.createDirectories(outputDir);
+        
+        long startTime = System.nanoTime();
+        random = new Random(seed);
+        vocabulary = new Vocabulary(random);
+        expected = new Expected();
+        
+        List<Path> directories = createDirectories();
+        
+        boolean longestWritten = false;
+        for (int i = 0; i < fileCount; i++) {
+            Path dir = directories.get(random.nextInt(directories.size()));
+            boolean other = random.nextDouble() < otherRatio;
+            String[] extensions = other ? OTHER_EXTENSIONS : TEXT_EXTENSIONS;
+            Path file = dir.resolve("file_" + i + extensions[random.nextInt(extensions.length)]);
+            
+            long size = Math.max(0, sizes.next(random));
+            // The unique longest word goes into the first text file
+            boolean withLongest = !longestWritten && discoverer.isTextFile(file);
+            writeTextFile(file, size, withLongest);
+            longestWritten |= withLongest;
+        }
+        
+        for (int i = 0; i < hugeFiles; i++) {
+            writeTextFile(outputDir.resolve("huge_" + i + ".txt"), hugeFileSize, !longestWritten);
+            longestWritten = true;
+        }
+        
+        if (edgeCases) {
+            writeEdgeCases(longestWritten);
+        }
+        
+        String json = expected.toJson(seed);
+        if (expectedFile != null) {
+            Files.writeString(expectedFile, json + System.lineSeparator());
+        } else {
+            System.out.println(json);
+        }
+        System.err.printf(Locale.ROOT, "Generated %d files (%d analyzed, %.1f MB of text) in %.1f s%n",
+            expected.files + expected.skippedFiles, expected.files, expected.bytes / (1024.0 * 1024.0),
+            (System.nanoTime() - startTime) / 1e9);
+    }
+    
+    /**
+     * Creates the directory tree breadth-first and returns all its directories
+     * Levels are added until the tree is depth levels deep; a directory never
+     * gets more than MAX_FILES_PER_DIRECTORY files on average.
+     */
+    private List<Path> createDirectories() throws IOException {
+        List<Path> directories = new ArrayList<>();
+        directories.add(outputDir);
+        List<Path> level = directories;
+        for (int d = 1; d <= depth; d++) {
+            List<Path> next = new ArrayList<>();
+            for (Path parent : level) {
+                for (int i = 0; i < fanOut; i++) {
+                    Path dir = parent.resolve("dir_" + d + "_" + i);
+                    Files.createDirectories(dir);
+                    next.add(dir);
+                }
+            }
+            directories.addAll(next);
+            level = next;
+        }
+        // Wide enough for millions of files
+        int extra = fileCount / MAX_FILES_PER_DIRECTORY - directories.size();
+        for (int i = 0; i < extra; i++) {
+            Path dir = outputDir.resolve("bulk_" + i);
+            Files.createDirectories(dir);
+            directories.add(dir);
+        }
+        return directories;
+    }
+    
+    /**
+     * Writes about size bytes of random text (a word may run past the size)
+     * Non-text files get the same kind of content: the engine must skip them.
+     */
+    private void writeTextFile(Path file, long size, boolean withLongest) throws IOException {
+        boolean analyzed = discoverer.isTextFile(file);
+        long written = 0;
+        
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            if (withLongest) {
+                byte[] longest = LONGEST_WORD.getBytes(StandardCharsets.US_ASCII);
+                out.write(longest);
+                out.write('\n');
+                written += longest.length + 1;
+                if (analyzed) {
+                    expected.addWord(longest, 0, longest.length);
+                }
+            }
+            
+            while (written < size) {
+                byte[] word = vocabulary.next(random);
+                int caseStyle = random.nextInt(20);
+                if (caseStyle == 0) {
+                    // Capitalized
+                    out.write(word[0] & ~0x20);
+                    out.write(word, 1, word.length - 1);
+                } else if (caseStyle == 1) {
+                    // All caps
+                    for (byte b : word) {
+                        out.write(b & ~0x20);
+                    }
+                } else {
+                    out.write(word);
+                }
+                byte[] separator = SEPARATORS[random.nextInt(SEPARATORS.length)];
+                out.write(separator);
+                written += word.length + separator.length;
+                if (analyzed) {
+                    expected.addWord(word, 0, word.length);
+                }
+            }
+        }
+        
+        if (analyzed) {
+            expected.endFile(written);
+        } else {
+            expected.fileWords = 0;
+            expected.skippedFiles++;
+        }
+    }
+    
+    /**
+     * The edge cases of src/test_files/testSuitRoot
+     */
+    private void writeEdgeCases(boolean longestWritten) throws IOException {
+        Path dir = outputDir.resolve("edge_cases");
+        Files.createDirectories(dir);
+        
+        writeLiteral(dir.resolve("empty_file.txt"), "");
+        writeLiteral(dir.resolve("whitespace_only.txt"), "         \n\n\n\t\t  \r\n");
+        writeLiteral(dir.resolve("punctuation.txt"), "!!! ??? ... ,,, !!! ??? ... ,,, ;;; ---\n@ # $ % ^ & * ( ) 123 456");
+        writeLiteral(dir.resolve("tricky_words.txt"),
+            "Is IS iS is\nare ARE Are\nyou YOU You\nThis isthmus area young\n"
+            + "isn't you're aren't you'd is-are you_are café naïve über");
+        writeLiteral(dir.resolve("tie_breaker.txt"), "cat dog rat bat");
+        writeLiteral(dir.resolve(".hidden_file.txt"), "Hidden files are files too, you know.");
+        writeLiteral(dir.resolve("UPPER_CASE.TXT"), "YOU ARE WHAT YOU IS");
+        writeLiteral(dir.resolve("wrong_format.pdf"), "This is text in a PDF-named file. Are you counting it?");
+        
+        byte[] binary = new byte[4096];
+        random.nextBytes(binary);
+        System.arraycopy("%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII), 0, binary, 0, 9);
+        Files.write(dir.resolve("binary.pdf"), binary);
+        expected.skippedFiles++;
+        
+        if (!longestWritten) {
+            writeLiteral(dir.resolve("longest.txt"), LONGEST_WORD);
+        }
+    }
+    
+    private void writeLiteral(Path file, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes);
+        if (discoverer.isTextFile(file)) {
+            expected.addText(bytes);
+            expected.endFile(bytes.length);
+        } else {
+            expected.skippedFiles++;
+        }
+    }
+    
+    /**
+     * Runs the engine over the corpus and compares its totals with the expected ones
+     */
+    private int verify() {
+        StatisticsManager manager = new StatisticsManager();
+        CountDownLatch done = new CountDownLatch(1);
+        String[] error = {null};
+        manager.setProgressListener(new ProgressListener() {
+            @Override
+            public void onFileProcessed(FileStats fileStats, int filesProcessedSoFar, int totalFiles) {
+            }
+            
+            @Override
+            public void onProcessingComplete(GlobalStats globalStats) {
+                done.countDown();
+            }
+            
+            @Override
+            public void onProcessingStarted(int totalFiles) {
+            }
+            
+            @Override
+            public void onError(String fileName, String errorMessage) {
+                error[0] = fileName + " - " + errorMessage;
+                done.countDown();
+            }
+            
+            @Override
+            public void onProgressUpdate(int progress) {
+            }
+        });
+        
+        long startTime = System.nanoTime();
+        manager.processDirectory(outputDir.toString(), true);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILED;
+        }
+        if (error[0] != null) {
+            System.err.println("Verify: run failed: " + error[0]);
+            return EXIT_FAILED;
+        }
+        
+        GlobalStats stats = manager.getGlobalStats();
+        List<String> mismatches = new ArrayList<>();
+        compare(mismatches, "files", expected.files, stats.getTotalFilesProcessed());
+        compare(mismatches, "words", expected.words, stats.getTotalWordCount());
+        compare(mismatches, "is", expected.isCount, stats.getTotalIsCount());
+        compare(mismatches, "are", expected.areCount, stats.getTotalAreCount());
+        compare(mismatches, "you", expected.youCount, stats.getTotalYouCount());
+        compare(mismatches, "longest", expected.longestWord, stats.getLongestWordInDirectory());
+        compare(mismatches, "shortestLength", expected.shortestLength, stats.getShortestWordInDirectory().length());
+        compare(mismatches, "lengthHistogram", Arrays.toString(expected.usedLengthCounts()),
+            Arrays.toString(stats.getWordLengths().getCounts()));
+        compare(mismatches, "filesByWordCount", Arrays.toString(expected.usedFilesByWordCount()),
+            Arrays.toString(stats.getFilesByWordCount()));
+        
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.err.printf(Locale.ROOT, "Verify: engine run took %.2f s (%.1f MB/s)%n",
+            seconds, expected.bytes / (1024.0 * 1024.0) / seconds);
+        if (mismatches.isEmpty()) {
+            System.err.println("Verify: OK, all statistics match");
+            return EXIT_OK;
+        }
+        for (String mismatch : mismatches) {
+            System.err.println("Verify: MISMATCH " + mismatch);
+        }
+        return EXIT_FAILED;
+    }
+    
+    private static void compare(List<String> mismatches, String name, Object expectedValue, Object actualValue) {
+        if (!String.valueOf(expectedValue).equals(String.valueOf(actualValue))) {
+            mismatches.add(name + ": expected " + expectedValue + ", got " + actualValue);
+        }
+    }
+    
+    /**
+     * Parses a size like 512, 4k, 1.5m or 2g (powers of 1024)
+     */
+    static long parseSize(String text) {
+        String value = text.trim().toLowerCase(Locale.ROOT);
+        long unit = 1;
+        if (value.endsWith("k")) {
+            unit = 1L << 10;
+        } else if (value.endsWith("m")) {
+            unit = 1L << 20;
+        } else if (value.endsWith("g")) {
+            unit = 1L << 30;
+        }
+        if (unit > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return (long) (Double.parseDouble(value) * unit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + text);
+        }
+    }
+    
+    private static byte[][] encodeAll(String... texts) {
+        byte[][] encoded = new byte[texts.length][];
+        for (int i = 0; i < texts.length; i++) {
+            encoded[i] = texts[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+}
\ No newline at end of file
@@ -8,6 +8,7 @@ package wordstatisticsproject;
  * comment
  * @author hp
  */
+import cli.BatchRunner;
 import gui.MainWindow;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager; //for buttons to show their color on Mac
@@ -16,6 +17,19 @@ public class WordStatisticsProject {
 
     public static void main(String[] args) {
 
+        // One line per log record ("INFO: Found 12 files..."), unless configured otherwise.
+        // Must be set before the first logger is created.
+        if (System.getProperty("java.util.logging.SimpleFormatter.format") == null
+                && System.getProperty("java.util.logging.config.file") == null) {
+            System.setProperty("java.util.logging.SimpleFormatter.format", "%4$s: %5$s%6$s%n");
+        }
+        
+        // --- 0. HEADLESS BATCH MODE (any argument) ---
+        // Checked before anything touches Swing, so no AWT initialization happens
+        if (args.length > 0) {
+            System.exit(BatchRunner.run(args));
+        }
+        
         // --- 1. SET THEME TO NIMBUS (Fixes Purple Buttons) ---
         try {
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {